@@ -0,0 +1,817 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 编译后的多模式串匹配器，基于双数组 Aho-Corasick 自动机。
+ * 一次扫描即可找出所有模式串，扫描时间与模式串数量无关。
+ *
+ * @author Chuanwise
+ */
+@SuppressWarnings("unused")
+public class AhoCorasick {
+    
+    /**
+     * 匹配语义
+     */
+    public enum Semantics {
+        
+        /**
+         * 报告所有匹配，匹配之间可以重叠，按结束位置排序
+         */
+        OVERLAPPING,
+        
+        /**
+         * 报告互不重叠的匹配。优先选择起始位置最靠左的匹配，起始位置相同时选择最长的匹配
+         */
+        LEFTMOST_LONGEST
+    }
+    
+    /**
+     * 匹配结果
+     */
+    public static final class Match {
+        
+        private final int patternIndex;
+        
+        private final long start;
+        
+        private final long end;
+        
+        public Match(int patternIndex, long start, long end) {
+            this.patternIndex = patternIndex;
+            this.start = start;
+            this.end = end;
+        }
+        
+        /**
+         * 获取匹配到的模式串在添加顺序中的索引
+         *
+         * @return 模式串索引
+         */
+        public int getPatternIndex() {
+            return patternIndex;
+        }
+        
+        /**
+         * 获取匹配的起始位置（包含）
+         *
+         * @return 起始位置
+         */
+        public long getStart() {
+            return start;
+        }
+        
+        /**
+         * 获取匹配的结束位置（不包含）
+         *
+         * @return 结束位置
+         */
+        public long getEnd() {
+            return end;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Match match = (Match) o;
+            return patternIndex == match.patternIndex && start == match.start && end == match.end;
+        }
+        
+        @Override
+        public int hashCode() {
+            return java.util.Objects.hash(patternIndex, start, end);
+        }
+        
+        @Override
+        public String toString() {
+            return "Match{patternIndex=" + patternIndex + ", start=" + start + ", end=" + end + "}";
+        }
+    }
+    
+    /**
+     * 匹配回调，不会为每个匹配分配对象
+     */
+    @FunctionalInterface
+    public interface MatchConsumer {
+        
+        /**
+         * 处理一个匹配
+         *
+         * @param patternIndex 模式串索引
+         * @param start        起始位置（包含）
+         * @param end          结束位置（不包含）
+         * @return 是否继续扫描
+         */
+        boolean accept(int patternIndex, long start, long end);
+    }
+    
+    /**
+     * AhoCorasick 的构造器
+     */
+    public static class Builder {
+        
+        protected final List<String> patterns = new ArrayList<>();
+        
+        protected boolean ignoreAsciiCase;
+        
+        protected boolean ignoreCase;
+        
+        protected Semantics semantics = Semantics.OVERLAPPING;
+        
+        Builder() {
+        }
+        
+        public Builder add(String pattern) {
+            Preconditions.checkNotNull(pattern, "Pattern is null!");
+            Preconditions.checkArgument(!pattern.isEmpty(), "Pattern is empty!");
+            
+            patterns.add(pattern);
+            
+            return this;
+        }
+        
+        public Builder addAll(Iterable<String> patterns) {
+            Preconditions.checkNotNull(patterns, "Patterns are null!");
+            
+            for (String pattern : patterns) {
+                add(pattern);
+            }
+            
+            return this;
+        }
+        
+        public Builder addAll(String... patterns) {
+            Preconditions.checkNotNull(patterns, "Patterns are null!");
+            
+            for (String pattern : patterns) {
+                add(pattern);
+            }
+            
+            return this;
+        }
+        
+        public Builder ignoreAsciiCase(boolean ignoreAsciiCase) {
+            this.ignoreAsciiCase = ignoreAsciiCase;
+            
+            return this;
+        }
+        
+        /**
+         * 设置是否按 {@link Strings#foldCase(char)} 折叠大小写和全角半角后匹配
+         *
+         * @param ignoreCase 是否忽略大小写和全角半角
+         * @return 构造器
+         */
+        public Builder ignoreCase(boolean ignoreCase) {
+            this.ignoreCase = ignoreCase;
+            
+            return this;
+        }
+        
+        public Builder semantics(Semantics semantics) {
+            Preconditions.checkNotNull(semantics, "Semantics is null!");
+            
+            this.semantics = semantics;
+            
+            return this;
+        }
+        
+        public AhoCorasick build() {
+            return new AhoCorasick(patterns, ignoreAsciiCase, ignoreCase, semantics);
+        }
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * ASCII 字符的编码，0 表示不在任何模式串中出现
+     */
+    private final int[] asciiCodes = new int[128];
+    
+    /**
+     * 非 ASCII 字符，升序排列
+     */
+    private final char[] otherChars;
+    
+    /**
+     * 非 ASCII 字符的编码
+     */
+    private final int[] otherCodes;
+    
+    /**
+     * 双数组的 base
+     */
+    private final int[] base;
+    
+    /**
+     * 双数组的 check，保存父状态，-1 表示空闲
+     */
+    private final int[] check;
+    
+    /**
+     * 失败指针
+     */
+    private final int[] failure;
+    
+    /**
+     * 在该状态结束的模式串索引，-1 表示没有
+     */
+    private final int[] output;
+    
+    /**
+     * 沿失败指针能到达的下一个有输出的状态，-1 表示没有
+     */
+    private final int[] outputLink;
+    
+    /**
+     * 状态的深度，即该状态表示的前缀长度
+     */
+    private final int[] depth;
+    
+    private final int patternCount;
+    
+    private final int maxPatternLength;
+    
+    private final boolean ignoreAsciiCase;
+    
+    private final boolean ignoreCase;
+    
+    private final Semantics semantics;
+    
+    private AhoCorasick(List<String> patterns, boolean ignoreAsciiCase, boolean ignoreCase, Semantics semantics) {
+        this.patternCount = patterns.size();
+        this.ignoreAsciiCase = ignoreAsciiCase || ignoreCase;
+        this.ignoreCase = ignoreCase;
+        this.semantics = semantics;
+        
+        // 为出现过的字符分配连续编码，使双数组保持紧凑
+        final Map<Character, Integer> others = new TreeMap<>();
+        int codeCount = 0;
+        int maxLength = 0;
+        for (String pattern : patterns) {
+            maxLength = Math.max(maxLength, pattern.length());
+            for (int i = 0; i < pattern.length(); i++) {
+                final char ch = fold(pattern.charAt(i));
+                if (ch < 128) {
+                    if (asciiCodes[ch] == 0) {
+                        asciiCodes[ch] = ++codeCount;
+                    }
+                } else if (!others.containsKey(ch)) {
+                    others.put(ch, ++codeCount);
+                }
+            }
+        }
+        if (this.ignoreAsciiCase) {
+            for (char ch = 'A'; ch <= 'Z'; ch++) {
+                asciiCodes[ch] = asciiCodes[ch + ('a' - 'A')];
+            }
+        }
+        this.maxPatternLength = maxLength;
+        this.otherChars = new char[others.size()];
+        this.otherCodes = new int[others.size()];
+        int index = 0;
+        for (Map.Entry<Character, Integer> entry : others.entrySet()) {
+            otherChars[index] = entry.getKey();
+            otherCodes[index] = entry.getValue();
+            index++;
+        }
+        
+        // 构造字典树
+        final List<Node> nodes = new ArrayList<>();
+        nodes.add(new Node(0));
+        for (int i = 0; i < patterns.size(); i++) {
+            final String pattern = patterns.get(i);
+            Node node = nodes.get(0);
+            for (int j = 0; j < pattern.length(); j++) {
+                final int code = code(pattern.charAt(j));
+                int child = node.child(code);
+                if (child == -1) {
+                    child = nodes.size();
+                    nodes.add(new Node(node.depth + 1));
+                    node.addChild(code, child);
+                }
+                node = nodes.get(child);
+            }
+            if (node.output == -1) {
+                node.output = i;
+            }
+        }
+        
+        // 按广度优先顺序把字典树放入双数组
+        int capacity = Math.max(256, nodes.size() * 2 + codeCount + 1);
+        int[] base = new int[capacity];
+        int[] check = new int[capacity];
+        java.util.Arrays.fill(check, -1);
+        check[0] = -2;
+        
+        final int[] positions = new int[nodes.size()];
+        final int[] queue = new int[nodes.size()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        int firstFree = 1;
+        int used = 1;
+        while (head < tail) {
+            final int nodeIndex = queue[head++];
+            final Node node = nodes.get(nodeIndex);
+            if (node.size == 0) {
+                continue;
+            }
+            node.sortChildren();
+            
+            while (firstFree < capacity && check[firstFree] != -1) {
+                firstFree++;
+            }
+            int candidate = Math.max(1, firstFree - node.codes[0]);
+            while (true) {
+                final int required = candidate + node.codes[node.size - 1] + 1;
+                if (required > capacity) {
+                    capacity = Math.max(required, capacity * 2);
+                    base = java.util.Arrays.copyOf(base, capacity);
+                    final int oldLength = check.length;
+                    check = java.util.Arrays.copyOf(check, capacity);
+                    java.util.Arrays.fill(check, oldLength, capacity, -1);
+                }
+                boolean fits = true;
+                for (int i = 0; i < node.size; i++) {
+                    if (check[candidate + node.codes[i]] != -1) {
+                        fits = false;
+                        break;
+                    }
+                }
+                if (fits) {
+                    break;
+                }
+                candidate++;
+            }
+            
+            final int position = positions[nodeIndex];
+            base[position] = candidate;
+            for (int i = 0; i < node.size; i++) {
+                final int childPosition = candidate + node.codes[i];
+                check[childPosition] = position;
+                positions[node.targets[i]] = childPosition;
+                queue[tail++] = node.targets[i];
+                used = Math.max(used, childPosition + 1);
+            }
+        }
+        
+        this.base = java.util.Arrays.copyOf(base, used);
+        this.check = java.util.Arrays.copyOf(check, used);
+        this.failure = new int[used];
+        this.output = new int[used];
+        this.outputLink = new int[used];
+        this.depth = new int[used];
+        java.util.Arrays.fill(output, -1);
+        java.util.Arrays.fill(outputLink, -1);
+        for (int i = 0; i < nodes.size(); i++) {
+            output[positions[i]] = nodes.get(i).output;
+            depth[positions[i]] = nodes.get(i).depth;
+        }
+        
+        // 按广度优先顺序计算失败指针，queue 中已经是广度优先顺序
+        for (int i = 0; i < tail; i++) {
+            final Node node = nodes.get(queue[i]);
+            final int position = positions[queue[i]];
+            for (int j = 0; j < node.size; j++) {
+                final int code = node.codes[j];
+                final int childPosition = positions[node.targets[j]];
+                int fallback = 0;
+                if (position != 0) {
+                    int state = failure[position];
+                    while (true) {
+                        final int next = transition(state, code);
+                        if (next != -1) {
+                            fallback = next;
+                            break;
+                        }
+                        if (state == 0) {
+                            break;
+                        }
+                        state = failure[state];
+                    }
+                }
+                failure[childPosition] = fallback;
+                outputLink[childPosition] = output[fallback] != -1 ? fallback : outputLink[fallback];
+            }
+        }
+    }
+    
+    /**
+     * 构造时使用的字典树节点
+     */
+    private static final class Node {
+        
+        final int depth;
+        int[] codes = new int[2];
+        int[] targets = new int[2];
+        int size;
+        int output = -1;
+        
+        Node(int depth) {
+            this.depth = depth;
+        }
+        
+        int child(int code) {
+            for (int i = 0; i < size; i++) {
+                if (codes[i] == code) {
+                    return targets[i];
+                }
+            }
+            return -1;
+        }
+        
+        void addChild(int code, int target) {
+            if (size == codes.length) {
+                codes = java.util.Arrays.copyOf(codes, size * 2);
+                targets = java.util.Arrays.copyOf(targets, size * 2);
+            }
+            codes[size] = code;
+            targets[size] = target;
+            size++;
+        }
+        
+        void sortChildren() {
+            for (int i = 1; i < size; i++) {
+                final int code = codes[i];
+                final int target = targets[i];
+                int j = i - 1;
+                while (j >= 0 && codes[j] > code) {
+                    codes[j + 1] = codes[j];
+                    targets[j + 1] = targets[j];
+                    j--;
+                }
+                codes[j + 1] = code;
+                targets[j + 1] = target;
+            }
+        }
+    }
+    
+    private char fold(char ch) {
+        if (ignoreCase) {
+            return CaseFolding.fold(ch);
+        }
+        return ignoreAsciiCase && ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch;
+    }
+    
+    private int code(char ch) {
+        if (ch < 128) {
+            return asciiCodes[ch];
+        }
+        if (ignoreCase) {
+            ch = CaseFolding.fold(ch);
+        }
+        if (ch < 128) {
+            return asciiCodes[ch];
+        }
+        final int index = java.util.Arrays.binarySearch(otherChars, ch);
+        return index < 0 ? 0 : otherCodes[index];
+    }
+    
+    private int transition(int state, int code) {
+        final int next = base[state] + code;
+        return next < check.length && check[next] == state ? next : -1;
+    }
+    
+    private int step(int state, char ch) {
+        final int code = code(ch);
+        if (code == 0) {
+            return 0;
+        }
+        while (true) {
+            final int next = base[state] + code;
+            if (next < check.length && check[next] == state) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = failure[state];
+        }
+    }
+    
+    /**
+     * 获取模式串个数
+     *
+     * @return 模式串个数
+     */
+    public int getPatternCount() {
+        return patternCount;
+    }
+    
+    /**
+     * 获取匹配语义
+     *
+     * @return 匹配语义
+     */
+    public Semantics getSemantics() {
+        return semantics;
+    }
+    
+    /**
+     * 判断是否忽略 ASCII 字母大小写
+     *
+     * @return 是否忽略 ASCII 字母大小写
+     */
+    public boolean isIgnoreAsciiCase() {
+        return ignoreAsciiCase;
+    }
+    
+    /**
+     * 判断是否忽略大小写和全角半角
+     *
+     * @return 是否忽略大小写和全角半角
+     */
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+    
+    /**
+     * 扫描字符串，将匹配交给回调
+     *
+     * @param string   字符串
+     * @param consumer 回调
+     * @return 回调是否要求提前结束
+     */
+    public boolean find(CharSequence string, MatchConsumer consumer) {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(consumer, "Consumer is null!");
+        
+        try {
+            return scan(new CharSequenceInput(string), consumer, semantics);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 扫描字符流，将匹配交给回调。字符流只会被读取一遍。
+     *
+     * @param reader   字符流
+     * @param consumer 回调
+     * @return 回调是否要求提前结束
+     * @throws IOException 读取出错
+     */
+    public boolean find(Reader reader, MatchConsumer consumer) throws IOException {
+        Preconditions.checkNotNull(reader, "Reader is null!");
+        Preconditions.checkNotNull(consumer, "Consumer is null!");
+        
+        return scan(new ReaderInput(reader, maxPatternLength), consumer, semantics);
+    }
+    
+    /**
+     * 寻找第一个匹配
+     *
+     * @param string 字符串
+     * @return 第一个匹配。找不到时返回 null
+     */
+    public Match findFirst(CharSequence string) {
+        final Match[] first = new Match[1];
+        find(string, (patternIndex, start, end) -> {
+            first[0] = new Match(patternIndex, start, end);
+            return false;
+        });
+        return first[0];
+    }
+    
+    /**
+     * 寻找第一个匹配
+     *
+     * @param reader 字符流
+     * @return 第一个匹配。找不到时返回 null
+     * @throws IOException 读取出错
+     */
+    public Match findFirst(Reader reader) throws IOException {
+        final Match[] first = new Match[1];
+        find(reader, (patternIndex, start, end) -> {
+            first[0] = new Match(patternIndex, start, end);
+            return false;
+        });
+        return first[0];
+    }
+    
+    /**
+     * 寻找所有匹配
+     *
+     * @param string 字符串
+     * @return 所有匹配
+     */
+    public List<Match> findAll(CharSequence string) {
+        final List<Match> matches = new ArrayList<>();
+        find(string, (patternIndex, start, end) -> matches.add(new Match(patternIndex, start, end)));
+        return matches;
+    }
+    
+    /**
+     * 寻找所有匹配
+     *
+     * @param reader 字符流
+     * @return 所有匹配
+     * @throws IOException 读取出错
+     */
+    public List<Match> findAll(Reader reader) throws IOException {
+        final List<Match> matches = new ArrayList<>();
+        find(reader, (patternIndex, start, end) -> matches.add(new Match(patternIndex, start, end)));
+        return matches;
+    }
+    
+    /**
+     * 判断字符串是否包含任何一个模式串
+     *
+     * @param string 字符串
+     * @return 是否包含任何一个模式串
+     */
+    public boolean containsAny(CharSequence string) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        try {
+            return scan(new CharSequenceInput(string), (patternIndex, start, end) -> false, Semantics.OVERLAPPING);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 判断字符流是否包含任何一个模式串
+     *
+     * @param reader 字符流
+     * @return 是否包含任何一个模式串
+     * @throws IOException 读取出错
+     */
+    public boolean containsAny(Reader reader) throws IOException {
+        Preconditions.checkNotNull(reader, "Reader is null!");
+        
+        return scan(new ReaderInput(reader, maxPatternLength), (patternIndex, start, end) -> false, Semantics.OVERLAPPING);
+    }
+    
+    /**
+     * 扫描输入
+     *
+     * @return 回调是否要求提前结束
+     */
+    private boolean scan(Input input, MatchConsumer consumer, Semantics semantics) throws IOException {
+        if (semantics == Semantics.OVERLAPPING && input instanceof CharSequenceInput) {
+            return scanOverlapping(((CharSequenceInput) input).string, consumer);
+        }
+        if (semantics == Semantics.OVERLAPPING) {
+            int state = 0;
+            for (long i = 0; ; i++) {
+                final int ch = input.charAt(i);
+                if (ch == -1) {
+                    return false;
+                }
+                state = step(state, (char) ch);
+                for (int matched = output[state] != -1 ? state : outputLink[state]; matched != -1; matched = outputLink[matched]) {
+                    if (!consumer.accept(output[matched], i + 1 - depth[matched], i + 1)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        
+        // 最左最长匹配：记录起点最靠左的候选，当之后不可能再出现起点不晚于它的匹配时输出，
+        // 并从候选的结束位置重新开始扫描。回退距离不会超过最长模式串长度。
+        int state = 0;
+        int candidatePattern = -1;
+        long candidateStart = -1;
+        long candidateEnd = -1;
+        for (long i = 0; ; i++) {
+            final int ch = input.charAt(i);
+            if (ch != -1) {
+                state = step(state, (char) ch);
+            }
+            if (candidatePattern != -1 && (ch == -1 || i + 1 - depth[state] > candidateStart)) {
+                if (!consumer.accept(candidatePattern, candidateStart, candidateEnd)) {
+                    return true;
+                }
+                i = candidateEnd - 1;
+                state = 0;
+                candidatePattern = -1;
+                continue;
+            }
+            if (ch == -1) {
+                return false;
+            }
+            for (int matched = output[state] != -1 ? state : outputLink[state]; matched != -1; matched = outputLink[matched]) {
+                final long start = i + 1 - depth[matched];
+                if (candidatePattern == -1 || start < candidateStart
+                    || (start == candidateStart && i + 1 > candidateEnd)) {
+                    candidatePattern = output[matched];
+                    candidateStart = start;
+                    candidateEnd = i + 1;
+                }
+            }
+        }
+    }
+    
+    private boolean scanOverlapping(CharSequence string, MatchConsumer consumer) {
+        final int length = string.length();
+        final char[] array = string instanceof CharSlice ? ((CharSlice) string).array() : null;
+        final int offset = array != null ? ((CharSlice) string).arrayOffset() : 0;
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            state = step(state, array != null ? array[offset + i] : string.charAt(i));
+            for (int matched = output[state] != -1 ? state : outputLink[state]; matched != -1; matched = outputLink[matched]) {
+                if (!consumer.accept(output[matched], i + 1 - depth[matched], i + 1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 按位置读取输入，位置不存在时返回 -1
+     */
+    private interface Input {
+        int charAt(long index) throws IOException;
+    }
+    
+    private static final class CharSequenceInput implements Input {
+        
+        private final CharSequence string;
+        
+        CharSequenceInput(CharSequence string) {
+            this.string = string;
+        }
+        
+        @Override
+        public int charAt(long index) {
+            return index < string.length() ? string.charAt((int) index) : -1;
+        }
+    }
+    
+    /**
+     * 字符流的滑动窗口，保留最近的若干字符以便回退
+     */
+    private static final class ReaderInput implements Input {
+        
+        private final Reader reader;
+        private final int keep;
+        private final char[] buffer;
+        private long bufferStart;
+        private int bufferLength;
+        private boolean end;
+        
+        ReaderInput(Reader reader, int keep) {
+            this.reader = reader;
+            this.keep = keep;
+            this.buffer = new char[Math.max(8192, keep * 4)];
+        }
+        
+        @Override
+        public int charAt(long index) throws IOException {
+            while (index >= bufferStart + bufferLength) {
+                if (end) {
+                    return -1;
+                }
+                
+                // 只保留回退可能需要的字符
+                final int retained = (int) Math.min(bufferLength, Math.max(0, bufferStart + bufferLength - (index - keep)));
+                if (bufferLength == buffer.length || retained < bufferLength) {
+                    System.arraycopy(buffer, bufferLength - retained, buffer, 0, retained);
+                    bufferStart += bufferLength - retained;
+                    bufferLength = retained;
+                }
+                final int read = reader.read(buffer, bufferLength, buffer.length - bufferLength);
+                if (read == -1) {
+                    end = true;
+                } else {
+                    bufferLength += read;
+                }
+            }
+            return buffer[(int) (index - bufferStart)];
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+/**
+ * 元素写入器，将元素的字符串形式直接写入 StringBuilder，省去为每个元素创建临时字符串。
+ * 可以通过 {@link Joiner#append(Object, Appender)} 使用。
+ *
+ * @param <T> 元素类型
+ * @author Chuanwise
+ */
+@FunctionalInterface
+public interface Appender<T> {
+    
+    /**
+     * 将元素写入 StringBuilder
+     *
+     * @param element       元素
+     * @param stringBuilder 写入目标
+     */
+    void append(T element, StringBuilder stringBuilder);
+}
@@ -18,6 +18,7 @@ package cn.codethink.common.util;
 
 import com.google.common.base.Preconditions;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.Collections;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -32,6 +33,24 @@ import java.util.function.Predicate;
  */
 @SuppressWarnings("unused")
 public class Arrays {
+    
+    /**
+     * 0 到 99 的十位数字
+     */
+    private static final byte[] DIGIT_TENS = new byte[100];
+    
+    /**
+     * 0 到 99 的个位数字
+     */
+    private static final byte[] DIGIT_ONES = new byte[100];
+    
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_TENS[i] = (byte) ('0' + i / 10);
+            DIGIT_ONES[i] = (byte) ('0' + i % 10);
+        }
+    }
+    
     private Arrays() {
         Throwables.throwNoInstancesException(Arrays.class);
     }
@@ -3004,7 +3023,7 @@ public class Arrays {
         Preconditions.checkNotNull(function, "Function is null!");
         Preconditions.checkNotNull(delimiter, "Delimiter is null!");
         
-        return Joiner.builder().delimiter(delimiter).build().plusAll(array, function).join();
+        return Joiner.pool(delimiter).join(joiner -> joiner.plusAll(array, function));
     }
     
     /**
@@ -3055,7 +3074,7 @@ public class Arrays {
         Preconditions.checkNotNull(function, "Function is null!");
         Preconditions.checkNotNull(delimiter, "Delimiter is null!");
         
-        return Joiner.builder().delimiter(delimiter).build().plusAll(array, function).join();
+        return Joiner.pool(delimiter).join(joiner -> joiner.plusAll(array, function));
     }
     
     /**
@@ -3077,7 +3096,10 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(boolean[] array, String delimiter) {
-        return joinToString(array, java.util.Objects::toString, delimiter);
+        Preconditions.checkNotNull(array, "Array is null!");
+        Preconditions.checkNotNull(delimiter, "Delimiter is null!");
+        
+        return joinBooleans(array, delimiter);
     }
     
     /**
@@ -3087,7 +3109,7 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(boolean[] array) {
-        return joinToString(array, java.util.Objects::toString, ", ");
+        return joinToString(array, ", ");
     }
     
     /**
@@ -3103,7 +3125,7 @@ public class Arrays {
         Preconditions.checkNotNull(function, "Function is null!");
         Preconditions.checkNotNull(delimiter, "Delimiter is null!");
         
-        return Joiner.builder().delimiter(delimiter).build().plusAll(array, function).join();
+        return Joiner.pool(delimiter).join(joiner -> joiner.plusAll(array, function));
     }
     
     /**
@@ -3125,7 +3147,10 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(char[] array, String delimiter) {
-        return joinToString(array, java.util.Objects::toString, delimiter);
+        Preconditions.checkNotNull(array, "Array is null!");
+        Preconditions.checkNotNull(delimiter, "Delimiter is null!");
+        
+        return joinChars(array, delimiter);
     }
     
     /**
@@ -3135,7 +3160,7 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(char[] array) {
-        return joinToString(array, java.util.Objects::toString, ", ");
+        return joinToString(array, ", ");
     }
     
     /**
@@ -3151,7 +3176,7 @@ public class Arrays {
         Preconditions.checkNotNull(function, "Function is null!");
         Preconditions.checkNotNull(delimiter, "Delimiter is null!");
         
-        return Joiner.builder().delimiter(delimiter).build().plusAll(array, function).join();
+        return Joiner.pool(delimiter).join(joiner -> joiner.plusAll(array, function));
     }
     
     /**
@@ -3173,7 +3198,13 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(short[] array, String delimiter) {
-        return joinToString(array, java.util.Objects::toString, delimiter);
+        Preconditions.checkNotNull(array, "Array is null!");
+        Preconditions.checkNotNull(delimiter, "Delimiter is null!");
+        
+        if (!isLatin1(delimiter)) {
+            return joinToString(array, java.util.Objects::toString, delimiter);
+        }
+        return joinLatin1(array, delimiter);
     }
     
     /**
@@ -3183,7 +3214,7 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(short[] array) {
-        return joinToString(array, java.util.Objects::toString, ", ");
+        return joinToString(array, ", ");
     }
     
     /**
@@ -3199,7 +3230,7 @@ public class Arrays {
         Preconditions.checkNotNull(function, "Function is null!");
         Preconditions.checkNotNull(delimiter, "Delimiter is null!");
         
-        return Joiner.builder().delimiter(delimiter).build().plusAll(array, function).join();
+        return Joiner.pool(delimiter).join(joiner -> joiner.plusAll(array, function));
     }
     
     /**
@@ -3221,7 +3252,13 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(int[] array, String delimiter) {
-        return joinToString(array, java.util.Objects::toString, delimiter);
+        Preconditions.checkNotNull(array, "Array is null!");
+        Preconditions.checkNotNull(delimiter, "Delimiter is null!");
+        
+        if (!isLatin1(delimiter)) {
+            return joinToString(array, java.util.Objects::toString, delimiter);
+        }
+        return joinLatin1(array, delimiter);
     }
     
     /**
@@ -3231,7 +3268,7 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(int[] array) {
-        return joinToString(array, java.util.Objects::toString, ", ");
+        return joinToString(array, ", ");
     }
     
     /**
@@ -3247,7 +3284,7 @@ public class Arrays {
         Preconditions.checkNotNull(function, "Function is null!");
         Preconditions.checkNotNull(delimiter, "Delimiter is null!");
         
-        return Joiner.builder().delimiter(delimiter).build().plusAll(array, function).join();
+        return Joiner.pool(delimiter).join(joiner -> joiner.plusAll(array, function));
     }
     
     /**
@@ -3269,7 +3306,13 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(long[] array, String delimiter) {
-        return joinToString(array, java.util.Objects::toString, delimiter);
+        Preconditions.checkNotNull(array, "Array is null!");
+        Preconditions.checkNotNull(delimiter, "Delimiter is null!");
+        
+        if (!isLatin1(delimiter)) {
+            return joinToString(array, java.util.Objects::toString, delimiter);
+        }
+        return joinLatin1(array, delimiter);
     }
     
     /**
@@ -3279,7 +3322,7 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(long[] array) {
-        return joinToString(array, java.util.Objects::toString, ", ");
+        return joinToString(array, ", ");
     }
     
     /**
@@ -3295,7 +3338,7 @@ public class Arrays {
         Preconditions.checkNotNull(function, "Function is null!");
         Preconditions.checkNotNull(delimiter, "Delimiter is null!");
         
-        return Joiner.builder().delimiter(delimiter).build().plusAll(array, function).join();
+        return Joiner.pool(delimiter).join(joiner -> joiner.plusAll(array, function));
     }
     
     /**
@@ -3343,7 +3386,7 @@ public class Arrays {
         Preconditions.checkNotNull(function, "Function is null!");
         Preconditions.checkNotNull(delimiter, "Delimiter is null!");
         
-        return Joiner.builder().delimiter(delimiter).build().plusAll(array, function).join();
+        return Joiner.pool(delimiter).join(joiner -> joiner.plusAll(array, function));
     }
     
     /**
@@ -3755,7 +3798,7 @@ public class Arrays {
         Preconditions.checkNotNull(function, "Function is null!");
         Preconditions.checkNotNull(delimiter, "Delimiter is null!");
         
-        return Joiner.builder().delimiter(delimiter).build().plusAll(array, function).join();
+        return Joiner.pool(delimiter).join(joiner -> joiner.plusAll(array, function));
     }
     
     /**
@@ -3777,7 +3820,13 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(byte[] array, String delimiter) {
-        return joinToString(array, java.util.Objects::toString, delimiter);
+        Preconditions.checkNotNull(array, "Array is null!");
+        Preconditions.checkNotNull(delimiter, "Delimiter is null!");
+        
+        if (!isLatin1(delimiter)) {
+            return joinToString(array, java.util.Objects::toString, delimiter);
+        }
+        return joinLatin1(array, delimiter);
     }
     
     /**
@@ -3787,6 +3836,273 @@ public class Arrays {
      * @return 代表数组内容的字符串，或空字符串 ""
      */
     public static String joinToString(byte[] array) {
-        return joinToString(array, java.util.Objects::toString, ", ");
+        return joinToString(array, ", ");
+    }
+    
+    /**
+     * 按十进制拼接短整数，先计算结果的精确长度再从后向前写入 Latin-1 字节，只构造一次结果
+     */
+    private static String joinLatin1(short[] array, String delimiter) {
+        if (array.length == 0) {
+            return "";
+        }
+        long total = (long) delimiter.length() * (array.length - 1);
+        for (short element : array) {
+            total += stringSize(element);
+        }
+        checkJoinedLength(total);
+        
+        final byte[] bytes = new byte[(int) total];
+        int index = bytes.length;
+        for (int i = array.length - 1; i > 0; i--) {
+            index = getBytes(array[i], index, bytes);
+            index = getBytes(delimiter, index, bytes);
+        }
+        getBytes(array[0], index, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+    
+    /**
+     * 按十进制拼接整数，先计算结果的精确长度再从后向前写入 Latin-1 字节，只构造一次结果
+     */
+    private static String joinLatin1(int[] array, String delimiter) {
+        if (array.length == 0) {
+            return "";
+        }
+        long total = (long) delimiter.length() * (array.length - 1);
+        for (int element : array) {
+            total += stringSize(element);
+        }
+        checkJoinedLength(total);
+        
+        final byte[] bytes = new byte[(int) total];
+        int index = bytes.length;
+        for (int i = array.length - 1; i > 0; i--) {
+            index = getBytes(array[i], index, bytes);
+            index = getBytes(delimiter, index, bytes);
+        }
+        getBytes(array[0], index, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+    
+    /**
+     * 按十进制拼接长整数，先计算结果的精确长度再从后向前写入 Latin-1 字节，只构造一次结果
+     */
+    private static String joinLatin1(long[] array, String delimiter) {
+        if (array.length == 0) {
+            return "";
+        }
+        long total = (long) delimiter.length() * (array.length - 1);
+        for (long element : array) {
+            total += stringSize(element);
+        }
+        checkJoinedLength(total);
+        
+        final byte[] bytes = new byte[(int) total];
+        int index = bytes.length;
+        for (int i = array.length - 1; i > 0; i--) {
+            index = getBytes(array[i], index, bytes);
+            index = getBytes(delimiter, index, bytes);
+        }
+        getBytes(array[0], index, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+    
+    /**
+     * 按十进制拼接字节，先计算结果的精确长度再从后向前写入 Latin-1 字节，只构造一次结果
+     */
+    private static String joinLatin1(byte[] array, String delimiter) {
+        if (array.length == 0) {
+            return "";
+        }
+        long total = (long) delimiter.length() * (array.length - 1);
+        for (byte element : array) {
+            total += stringSize(element);
+        }
+        checkJoinedLength(total);
+        
+        final byte[] bytes = new byte[(int) total];
+        int index = bytes.length;
+        for (int i = array.length - 1; i > 0; i--) {
+            index = getBytes(array[i], index, bytes);
+            index = getBytes(delimiter, index, bytes);
+        }
+        getBytes(array[0], index, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+    
+    /**
+     * 拼接布尔值，先计算结果的精确长度再一次性写入
+     */
+    private static String joinBooleans(boolean[] array, String delimiter) {
+        if (array.length == 0) {
+            return "";
+        }
+        final int delimiterLength = delimiter.length();
+        long total = (long) delimiterLength * (array.length - 1);
+        for (boolean element : array) {
+            total += element ? 4 : 5;
+        }
+        checkJoinedLength(total);
+        
+        final char[] chars = new char[(int) total];
+        int index = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (i != 0) {
+                delimiter.getChars(0, delimiterLength, chars, index);
+                index += delimiterLength;
+            }
+            final String string = array[i] ? "true" : "false";
+            string.getChars(0, string.length(), chars, index);
+            index += string.length();
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * 拼接字符，先计算结果的精确长度再一次性写入
+     */
+    private static String joinChars(char[] array, String delimiter) {
+        if (array.length == 0) {
+            return "";
+        }
+        final int delimiterLength = delimiter.length();
+        final long total = array.length + (long) delimiterLength * (array.length - 1);
+        checkJoinedLength(total);
+        if (delimiterLength == 0) {
+            return new String(array);
+        }
+        
+        final char[] chars = new char[(int) total];
+        int index = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (i != 0) {
+                delimiter.getChars(0, delimiterLength, chars, index);
+                index += delimiterLength;
+            }
+            chars[index++] = array[i];
+        }
+        return new String(chars);
+    }
+    
+    private static void checkJoinedLength(long length) {
+        Preconditions.checkArgument(length <= Strings.MAX_ARRAY_LENGTH,
+            "Joined string length %s exceeds the max array length %s!", length, Strings.MAX_ARRAY_LENGTH);
+    }
+    
+    private static boolean isLatin1(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 计算整数的十进制字符数
+     */
+    private static int stringSize(int value) {
+        // 转为负数计算，避免 Integer.MIN_VALUE 溢出
+        final int sign = value < 0 ? 1 : 0;
+        final int negative = value < 0 ? value : -value;
+        int power = -10;
+        for (int i = 1; i < 10; i++) {
+            if (negative > power) {
+                return i + sign;
+            }
+            power *= 10;
+        }
+        return 10 + sign;
+    }
+    
+    /**
+     * 计算长整数的十进制字符数
+     */
+    private static int stringSize(long value) {
+        final int sign = value < 0 ? 1 : 0;
+        final long negative = value < 0 ? value : -value;
+        long power = -10;
+        for (int i = 1; i < 19; i++) {
+            if (negative > power) {
+                return i + sign;
+            }
+            power *= 10;
+        }
+        return 19 + sign;
+    }
+    
+    /**
+     * 将整数的十进制形式写入字节数组中 end 之前的位置
+     *
+     * @return 写入的起始位置
+     */
+    private static int getBytes(int value, int end, byte[] bytes) {
+        // 转为负数计算，避免 Integer.MIN_VALUE 溢出
+        int index = getDigits(value < 0 ? value : -value, end, bytes);
+        if (value < 0) {
+            bytes[--index] = '-';
+        }
+        return index;
+    }
+    
+    /**
+     * 将长整数的十进制形式写入字节数组中 end 之前的位置
+     *
+     * @return 写入的起始位置
+     */
+    private static int getBytes(long value, int end, byte[] bytes) {
+        if (value == (int) value) {
+            return getBytes((int) value, end, bytes);
+        }
+        long negative = value < 0 ? value : -value;
+        int index = end;
+        while (negative < Integer.MIN_VALUE) {
+            final long quotient = negative / 100;
+            final int remainder = (int) (quotient * 100 - negative);
+            negative = quotient;
+            bytes[--index] = DIGIT_ONES[remainder];
+            bytes[--index] = DIGIT_TENS[remainder];
+        }
+        index = getDigits((int) negative, index, bytes);
+        if (value < 0) {
+            bytes[--index] = '-';
+        }
+        return index;
+    }
+    
+    /**
+     * 将非正整数的绝对值的十进制形式写入字节数组中 end 之前的位置
+     *
+     * @return 写入的起始位置
+     */
+    private static int getDigits(int negative, int end, byte[] bytes) {
+        int index = end;
+        while (negative <= -100) {
+            final int quotient = negative / 100;
+            final int remainder = quotient * 100 - negative;
+            negative = quotient;
+            bytes[--index] = DIGIT_ONES[remainder];
+            bytes[--index] = DIGIT_TENS[remainder];
+        }
+        final int quotient = negative / 10;
+        bytes[--index] = (byte) ('0' + quotient * 10 - negative);
+        if (quotient < 0) {
+            bytes[--index] = (byte) ('0' - quotient);
+        }
+        return index;
+    }
+    
+    /**
+     * 将只含 Latin-1 字符的字符串写入字节数组中 end 之前的位置
+     *
+     * @return 写入的起始位置
+     */
+    private static int getBytes(String string, int end, byte[] bytes) {
+        final int begin = end - string.length();
+        for (int i = 0; i < string.length(); i++) {
+            bytes[begin + i] = (byte) string.charAt(i);
+        }
+        return begin;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+/**
+ * 查表实现的字符折叠，用于不区分大小写和全角半角的比较。
+ * 每个 UTF-16 字符折叠为一个字符，因此折叠前后的索引一一对应。
+ * <ul>
+ *     <li>全角 ASCII 字符（U+FF01 ~ U+FF5E）和全角空格折叠为对应的半角字符；</li>
+ *     <li>半角片假名区的 CJK 标点（｡｢｣､）折叠为对应的全角标点；</li>
+ *     <li>全角符号（￠￡￢￣￤￥￦）折叠为对应的半角符号；</li>
+ *     <li>之后按 {@link String#equalsIgnoreCase(String)} 的规则折叠大小写。</li>
+ * </ul>
+ * ASCII 字符使用单独的小表，只处理 ASCII 文本时不会加载完整的折叠表。
+ *
+ * @author Chuanwise
+ */
+final class CaseFolding {
+    
+    private CaseFolding() {
+        Throwables.throwNoInstancesException(CaseFolding.class);
+    }
+    
+    /**
+     * ASCII 字符的折叠表
+     */
+    private static final char[] ASCII = new char[128];
+    
+    static {
+        for (char ch = 0; ch < 128; ch++) {
+            ASCII[ch] = ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch;
+        }
+    }
+    
+    /**
+     * 完整的折叠表，首次折叠非 ASCII 字符时加载
+     */
+    private static final class Table {
+        
+        static final char[] FOLDED = new char[Character.MAX_VALUE + 1];
+        
+        static {
+            for (int ch = 0; ch <= Character.MAX_VALUE; ch++) {
+                final char narrowed = narrow((char) ch);
+                FOLDED[ch] = Character.isSurrogate(narrowed)
+                    ? narrowed
+                    : Character.toLowerCase(Character.toUpperCase(narrowed));
+            }
+        }
+    }
+    
+    /**
+     * 半角及全角形式区（U+FF00 ~ U+FFEF）的转换表
+     */
+    private static final char[] HALFWIDTH_AND_FULLWIDTH_FORMS = new char[0x100];
+    
+    static {
+        for (int i = 0; i < HALFWIDTH_AND_FULLWIDTH_FORMS.length; i++) {
+            HALFWIDTH_AND_FULLWIDTH_FORMS[i] = (char) (0xFF00 + i);
+        }
+        for (char ch = '！'; ch <= '～'; ch++) {
+            HALFWIDTH_AND_FULLWIDTH_FORMS[ch - 0xFF00] = (char) (ch - 0xFEE0);
+        }
+        final String forms = "｡｢｣､￠￡￢￣￤￥￦";
+        final String narrowed = "。「」、¢£¬¯¦¥₩";
+        for (int i = 0; i < forms.length(); i++) {
+            HALFWIDTH_AND_FULLWIDTH_FORMS[forms.charAt(i) - 0xFF00] = narrowed.charAt(i);
+        }
+    }
+    
+    /**
+     * 将全角字符转换为对应的半角字符。
+     * 全角 ASCII 字符和全角空格转换为半角，半角 CJK 标点转换为全角，全角符号转换为半角。
+     *
+     * @param ch 字符
+     * @return 对应的半角字符，没有时返回 ch 本身
+     */
+    static char narrow(char ch) {
+        if (ch < '　') {
+            return ch;
+        }
+        if (ch >= 0xFF00 && ch <= 0xFFEF) {
+            return HALFWIDTH_AND_FULLWIDTH_FORMS[ch - 0xFF00];
+        }
+        return ch == '　' ? ' ' : ch;
+    }
+    
+    /**
+     * 折叠字符
+     *
+     * @param ch 字符
+     * @return 折叠后的字符
+     */
+    static char fold(char ch) {
+        return ch < 128 ? ASCII[ch] : Table.FOLDED[ch];
+    }
+}
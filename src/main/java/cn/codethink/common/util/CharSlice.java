@@ -0,0 +1,298 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.CharBuffer;
+
+/**
+ * 字符序列的只读切片视图。
+ * 切片直接引用 String、char[] 或 CharBuffer 的内容，{@link #subSequence(int, int)} 不会复制字符。
+ * 对于数组支持的切片，{@link Strings} 中的搜索方法会直接扫描底层数组。
+ *
+ * @author Chuanwise
+ */
+@SuppressWarnings("unused")
+public final class CharSlice implements CharSequence {
+    
+    /**
+     * 空切片
+     */
+    public static final CharSlice EMPTY = new CharSlice(new char[0], null, 0, 0);
+    
+    /**
+     * 底层数组，不是数组支持时为 null
+     */
+    private final char[] array;
+    
+    /**
+     * 底层字符序列，数组支持时为 null
+     */
+    private final CharSequence sequence;
+    
+    /**
+     * 切片在底层数组或字符序列中的起始索引
+     */
+    private final int offset;
+    
+    /**
+     * 切片长度
+     */
+    private final int length;
+    
+    /**
+     * 哈希值缓存
+     */
+    private int hash;
+    
+    private CharSlice(char[] array, CharSequence sequence, int offset, int length) {
+        this.array = array;
+        this.sequence = sequence;
+        this.offset = offset;
+        this.length = length;
+    }
+    
+    /**
+     * 构造字符串的切片
+     *
+     * @param string     字符串
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex   结束索引（不包含）
+     * @return 切片
+     */
+    public static CharSlice of(String string, int beginIndex, int endIndex) {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        return new CharSlice(null, string, beginIndex, endIndex - beginIndex);
+    }
+    
+    /**
+     * 构造字符串的切片
+     *
+     * @param string 字符串
+     * @return 切片
+     */
+    public static CharSlice of(String string) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        return new CharSlice(null, string, 0, string.length());
+    }
+    
+    /**
+     * 构造字符数组的切片。切片不复制数组，数组之后的修改对切片可见。
+     *
+     * @param array      字符数组
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex   结束索引（不包含）
+     * @return 切片
+     */
+    public static CharSlice of(char[] array, int beginIndex, int endIndex) {
+        Preconditions.checkNotNull(array, "Array is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, array.length);
+        
+        return new CharSlice(array, null, beginIndex, endIndex - beginIndex);
+    }
+    
+    /**
+     * 构造字符数组的切片。切片不复制数组，数组之后的修改对切片可见。
+     *
+     * @param array 字符数组
+     * @return 切片
+     */
+    public static CharSlice of(char[] array) {
+        Preconditions.checkNotNull(array, "Array is null!");
+        
+        return new CharSlice(array, null, 0, array.length);
+    }
+    
+    /**
+     * 构造 CharBuffer 从 position 到 limit 之间内容的切片。
+     * 切片不会修改 CharBuffer 的 position 和 limit。
+     *
+     * @param buffer CharBuffer
+     * @return 切片
+     */
+    public static CharSlice of(CharBuffer buffer) {
+        Preconditions.checkNotNull(buffer, "Buffer is null!");
+        
+        if (buffer.hasArray()) {
+            return new CharSlice(buffer.array(), null, buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        return new CharSlice(null, buffer.duplicate(), 0, buffer.remaining());
+    }
+    
+    /**
+     * 构造字符序列的切片。已经是切片时直接返回。
+     *
+     * @param charSequence 字符序列
+     * @return 切片
+     */
+    public static CharSlice of(CharSequence charSequence) {
+        Preconditions.checkNotNull(charSequence, "Char sequence is null!");
+        
+        if (charSequence instanceof CharSlice) {
+            return (CharSlice) charSequence;
+        }
+        if (charSequence instanceof CharBuffer) {
+            return of((CharBuffer) charSequence);
+        }
+        return new CharSlice(null, charSequence, 0, charSequence.length());
+    }
+    
+    @Override
+    public int length() {
+        return length;
+    }
+    
+    @Override
+    public char charAt(int index) {
+        Preconditions.checkElementIndex(index, length);
+        
+        return array != null ? array[offset + index] : sequence.charAt(offset + index);
+    }
+    
+    @Override
+    public CharSlice subSequence(int start, int end) {
+        Preconditions.checkPositionIndexes(start, end, length);
+        
+        if (start == 0 && end == length) {
+            return this;
+        }
+        return new CharSlice(array, sequence, offset + start, end - start);
+    }
+    
+    /**
+     * 判断切片是否为空
+     *
+     * @return 长度为 0 时返回 true
+     */
+    public boolean isEmpty() {
+        return length == 0;
+    }
+    
+    /**
+     * 将切片的一部分复制到字符数组
+     *
+     * @param beginIndex  起始索引（包含）
+     * @param endIndex    结束索引（不包含）
+     * @param destination 目标数组
+     * @param destinationBeginIndex 目标起始索引
+     */
+    public void getChars(int beginIndex, int endIndex, char[] destination, int destinationBeginIndex) {
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, length);
+        Preconditions.checkNotNull(destination, "Destination is null!");
+        
+        if (array != null) {
+            System.arraycopy(array, offset + beginIndex, destination, destinationBeginIndex, endIndex - beginIndex);
+        } else if (sequence instanceof String) {
+            ((String) sequence).getChars(offset + beginIndex, offset + endIndex, destination, destinationBeginIndex);
+        } else {
+            for (int i = beginIndex; i < endIndex; i++) {
+                destination[destinationBeginIndex++] = sequence.charAt(offset + i);
+            }
+        }
+    }
+    
+    /**
+     * 获取底层数组
+     *
+     * @return 底层数组，不是数组支持时返回 null
+     */
+    char[] array() {
+        return array;
+    }
+    
+    /**
+     * 获取切片在底层数组中的起始索引
+     *
+     * @return 起始索引
+     */
+    int arrayOffset() {
+        return offset;
+    }
+    
+    /**
+     * 判断两个切片的内容是否相同
+     *
+     * @param o 另一个对象
+     * @return 当另一个对象是内容相同的切片时返回 true
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CharSlice)) {
+            return false;
+        }
+        final CharSlice slice = (CharSlice) o;
+        return contentEquals(slice);
+    }
+    
+    /**
+     * 判断切片的内容是否和字符序列相同
+     *
+     * @param charSequence 字符序列
+     * @return 内容相同时返回 true
+     */
+    public boolean contentEquals(CharSequence charSequence) {
+        Preconditions.checkNotNull(charSequence, "Char sequence is null!");
+        
+        if (charSequence.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(i) != charSequence.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 计算哈希值，和内容相同的 String 的哈希值相同。
+     * 数组支持的切片内容可能改变，因此不缓存哈希值。
+     *
+     * @return 哈希值
+     */
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0 && length > 0) {
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + (array != null ? array[offset + i] : sequence.charAt(offset + i));
+            }
+            if (array == null && sequence instanceof String) {
+                this.hash = hash;
+            }
+        }
+        return hash;
+    }
+    
+    @Override
+    public String toString() {
+        if (array != null) {
+            return new String(array, offset, length);
+        }
+        if (sequence instanceof String) {
+            return ((String) sequence).substring(offset, offset + length);
+        }
+        return sequence.subSequence(offset, offset + length).toString();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 不可变的字符集合。
+ * Latin-1 字符保存在位图中，其余字符保存在有序数组中，{@link #contains(char)} 不需要装箱。
+ * {@link Strings} 中的字符搜索方法遇到该集合时会直接使用基本类型查询。
+ *
+ * @author Chuanwise
+ */
+@SuppressWarnings("unused")
+public final class CharacterSet extends AbstractSet<Character> {
+    
+    /**
+     * 空白字符，包括 {@code \s} 匹配的字符和全角空格
+     */
+    public static final CharacterSet WHITESPACES = of(" \t\n\u000B\f\r\u3000");
+    
+    /**
+     * Latin-1 字符位图
+     */
+    private final long[] latin1 = new long[4];
+    
+    /**
+     * 其他字符，升序排列且不重复
+     */
+    private final char[] others;
+    
+    private final int size;
+    
+    private CharacterSet(CharSequence characters) {
+        char[] others = new char[characters.length()];
+        int otherCount = 0;
+        int size = 0;
+        for (int i = 0; i < characters.length(); i++) {
+            final char ch = characters.charAt(i);
+            if (ch < 256) {
+                final long bit = 1L << ch;
+                if ((latin1[ch >>> 6] & bit) == 0) {
+                    latin1[ch >>> 6] |= bit;
+                    size++;
+                }
+            } else {
+                others[otherCount++] = ch;
+            }
+        }
+        
+        java.util.Arrays.sort(others, 0, otherCount);
+        int distinct = 0;
+        for (int i = 0; i < otherCount; i++) {
+            if (distinct == 0 || others[distinct - 1] != others[i]) {
+                others[distinct++] = others[i];
+            }
+        }
+        this.others = java.util.Arrays.copyOf(others, distinct);
+        this.size = size + distinct;
+    }
+    
+    /**
+     * 构造包含字符序列中所有字符的集合
+     *
+     * @param characters 字符序列
+     * @return 字符集合
+     */
+    public static CharacterSet of(CharSequence characters) {
+        Preconditions.checkNotNull(characters, "Characters are null!");
+        
+        return new CharacterSet(characters);
+    }
+    
+    /**
+     * 构造包含所有给定字符的集合
+     *
+     * @param characters 字符
+     * @return 字符集合
+     */
+    public static CharacterSet of(char... characters) {
+        Preconditions.checkNotNull(characters, "Characters are null!");
+        
+        return new CharacterSet(CharSlice.of(characters));
+    }
+    
+    /**
+     * 构造包含集合中所有字符的集合。已经是 CharacterSet 时直接返回。
+     *
+     * @param characters 字符集合
+     * @return 字符集合
+     */
+    public static CharacterSet copyOf(Set<Character> characters) {
+        Preconditions.checkNotNull(characters, "Characters are null!");
+        
+        if (characters instanceof CharacterSet) {
+            return (CharacterSet) characters;
+        }
+        final StringBuilder stringBuilder = new StringBuilder(characters.size());
+        for (Character character : characters) {
+            stringBuilder.append(character.charValue());
+        }
+        return new CharacterSet(stringBuilder);
+    }
+    
+    /**
+     * 判断字符是否在集合中
+     *
+     * @param ch 字符
+     * @return 字符是否在集合中
+     */
+    public boolean contains(char ch) {
+        if (ch < 256) {
+            return (latin1[ch >>> 6] & (1L << ch)) != 0;
+        }
+        return others.length != 0 && java.util.Arrays.binarySearch(others, ch) >= 0;
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Character && contains(((Character) o).charValue());
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public Iterator<Character> iterator() {
+        return new Iterator<Character>() {
+            
+            private int next = advance(0);
+            
+            private int advance(int from) {
+                for (int ch = from; ch < 256; ch++) {
+                    if ((latin1[ch >>> 6] & (1L << ch)) != 0) {
+                        return ch;
+                    }
+                }
+                final int index = Math.max(0, from - 256);
+                return index < others.length ? 256 + index : -1;
+            }
+            
+            @Override
+            public boolean hasNext() {
+                return next != -1;
+            }
+            
+            @Override
+            public Character next() {
+                if (next == -1) {
+                    throw new NoSuchElementException();
+                }
+                final char ch = next < 256 ? (char) next : others[next - 256];
+                next = advance(next + 1);
+                return ch;
+            }
+        };
+    }
+}
@@ -0,0 +1,505 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * 字符流搜索工具。
+ * 提供和 {@link Strings#indexOfIncludedCharacter(CharSequence, Set)} 等方法相同语义的流式搜索，
+ * 支持 {@link Reader} 和按 UTF-8 解码的内存映射文件。
+ * 文件按块映射并直接解码字节，不会创建 String。搜索第一个、最后一个位置和计数时，各块并行扫描。
+ *
+ * @author Chuanwise
+ */
+@SuppressWarnings("unused")
+public class CharacterStreams {
+    private CharacterStreams() {
+        Throwables.throwNoInstancesException(CharacterStreams.class);
+    }
+    
+    /**
+     * 读取 Reader 时的缓冲区大小
+     */
+    private static final int READER_BUFFER_SIZE = 8192;
+    
+    /**
+     * 映射文件时每一块的大小
+     */
+    private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+    
+    /**
+     * UTF-8 编码的最大字节数减一，块之间需要重叠这么多字节以解码跨块的字符
+     */
+    private static final int CHUNK_OVERLAP = 3;
+    
+    /**
+     * 在 Reader 中寻找第一个出现的，位于字符集合中的字符
+     *
+     * @param reader     字符流
+     * @param characters 字符集
+     * @return 找到时返回其在字符流中的字符偏移量，否则返回 -1
+     * @throws IOException 读取出错
+     */
+    public static long indexOfIncludedCharacter(Reader reader, Set<Character> characters) throws IOException {
+        return indexOf(reader, characters, true);
+    }
+    
+    /**
+     * 在 Reader 中寻找第一个出现的，不位于字符集合中的字符
+     *
+     * @param reader     字符流
+     * @param characters 字符集
+     * @return 找到时返回其在字符流中的字符偏移量，否则返回 -1
+     * @throws IOException 读取出错
+     */
+    public static long indexOfExcluded(Reader reader, Set<Character> characters) throws IOException {
+        return indexOf(reader, characters, false);
+    }
+    
+    /**
+     * 统计 Reader 中位于字符集合中的字符个数
+     *
+     * @param reader     字符流
+     * @param characters 字符集
+     * @return 字符个数
+     * @throws IOException 读取出错
+     */
+    public static long countIncludedCharacters(Reader reader, Set<Character> characters) throws IOException {
+        Preconditions.checkNotNull(reader, "Reader is null!");
+        final CharacterSet characterSet = CharacterSet.copyOf(Preconditions.checkNotNull(characters, "Characters are null!"));
+        
+        final char[] buffer = new char[READER_BUFFER_SIZE];
+        final CharSlice slice = CharSlice.of(buffer);
+        long count = 0;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            int index = 0;
+            while ((index = Strings.indexOfIncludedCharacter(slice, characterSet, index, read, -1)) != -1) {
+                count++;
+                index++;
+            }
+        }
+        return count;
+    }
+    
+    private static long indexOf(Reader reader, Set<Character> characters, boolean included) throws IOException {
+        Preconditions.checkNotNull(reader, "Reader is null!");
+        final CharacterSet characterSet = CharacterSet.copyOf(Preconditions.checkNotNull(characters, "Characters are null!"));
+        
+        final char[] buffer = new char[READER_BUFFER_SIZE];
+        final CharSlice slice = CharSlice.of(buffer);
+        long offset = 0;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            final int index = included
+                ? Strings.indexOfIncludedCharacter(slice, characterSet, 0, read, -1)
+                : Strings.indexOfExcluded(slice, characterSet, 0, read, -1);
+            if (index != -1) {
+                return offset + index;
+            }
+            offset += read;
+        }
+        return -1;
+    }
+    
+    /**
+     * 在 UTF-8 文件中寻找第一个出现的，位于字符集合中的字符。
+     * 辅助平面的字符只有在其两个代理字符都位于字符集合中时，才认为位于字符集合中。无法解码的字节视为 U+FFFD。
+     *
+     * @param channel    文件
+     * @param characters 字符集
+     * @param pool       并行扫描使用的线程池
+     * @return 找到时返回其在文件中的字节偏移量，否则返回 -1
+     * @throws IOException 读取出错
+     */
+    public static long indexOfIncludedCharacter(FileChannel channel, Set<Character> characters, ForkJoinPool pool) throws IOException {
+        return search(channel, characters, pool, true, Mode.FIRST);
+    }
+    
+    /**
+     * 在 UTF-8 文件中寻找第一个出现的，位于字符集合中的字符
+     *
+     * @param channel    文件
+     * @param characters 字符集
+     * @return 找到时返回其在文件中的字节偏移量，否则返回 -1
+     * @throws IOException 读取出错
+     */
+    public static long indexOfIncludedCharacter(FileChannel channel, Set<Character> characters) throws IOException {
+        return search(channel, characters, ForkJoinPool.commonPool(), true, Mode.FIRST);
+    }
+    
+    /**
+     * 在 UTF-8 文件中寻找第一个出现的，不位于字符集合中的字符
+     *
+     * @param channel    文件
+     * @param characters 字符集
+     * @param pool       并行扫描使用的线程池
+     * @return 找到时返回其在文件中的字节偏移量，否则返回 -1
+     * @throws IOException 读取出错
+     */
+    public static long indexOfExcluded(FileChannel channel, Set<Character> characters, ForkJoinPool pool) throws IOException {
+        return search(channel, characters, pool, false, Mode.FIRST);
+    }
+    
+    /**
+     * 在 UTF-8 文件中寻找第一个出现的，不位于字符集合中的字符
+     *
+     * @param channel    文件
+     * @param characters 字符集
+     * @return 找到时返回其在文件中的字节偏移量，否则返回 -1
+     * @throws IOException 读取出错
+     */
+    public static long indexOfExcluded(FileChannel channel, Set<Character> characters) throws IOException {
+        return search(channel, characters, ForkJoinPool.commonPool(), false, Mode.FIRST);
+    }
+    
+    /**
+     * 在 UTF-8 文件中寻找最后一个出现的，位于字符集合中的字符
+     *
+     * @param channel    文件
+     * @param characters 字符集
+     * @param pool       并行扫描使用的线程池
+     * @return 找到时返回其在文件中的字节偏移量，否则返回 -1
+     * @throws IOException 读取出错
+     */
+    public static long lastIndexOfIncludedCharacter(FileChannel channel, Set<Character> characters, ForkJoinPool pool) throws IOException {
+        return search(channel, characters, pool, true, Mode.LAST);
+    }
+    
+    /**
+     * 在 UTF-8 文件中寻找最后一个出现的，位于字符集合中的字符
+     *
+     * @param channel    文件
+     * @param characters 字符集
+     * @return 找到时返回其在文件中的字节偏移量，否则返回 -1
+     * @throws IOException 读取出错
+     */
+    public static long lastIndexOfIncludedCharacter(FileChannel channel, Set<Character> characters) throws IOException {
+        return search(channel, characters, ForkJoinPool.commonPool(), true, Mode.LAST);
+    }
+    
+    /**
+     * 在 UTF-8 文件中寻找最后一个出现的，不位于字符集合中的字符
+     *
+     * @param channel    文件
+     * @param characters 字符集
+     * @param pool       并行扫描使用的线程池
+     * @return 找到时返回其在文件中的字节偏移量，否则返回 -1
+     * @throws IOException 读取出错
+     */
+    public static long lastIndexOfExcluded(FileChannel channel, Set<Character> characters, ForkJoinPool pool) throws IOException {
+        return search(channel, characters, pool, false, Mode.LAST);
+    }
+    
+    /**
+     * 在 UTF-8 文件中寻找最后一个出现的，不位于字符集合中的字符
+     *
+     * @param channel    文件
+     * @param characters 字符集
+     * @return 找到时返回其在文件中的字节偏移量，否则返回 -1
+     * @throws IOException 读取出错
+     */
+    public static long lastIndexOfExcluded(FileChannel channel, Set<Character> characters) throws IOException {
+        return search(channel, characters, ForkJoinPool.commonPool(), false, Mode.LAST);
+    }
+    
+    /**
+     * 统计 UTF-8 文件中位于字符集合中的字符个数
+     *
+     * @param channel    文件
+     * @param characters 字符集
+     * @param pool       并行扫描使用的线程池
+     * @return 字符个数
+     * @throws IOException 读取出错
+     */
+    public static long countIncludedCharacters(FileChannel channel, Set<Character> characters, ForkJoinPool pool) throws IOException {
+        return search(channel, characters, pool, true, Mode.COUNT);
+    }
+    
+    /**
+     * 统计 UTF-8 文件中位于字符集合中的字符个数
+     *
+     * @param channel    文件
+     * @param characters 字符集
+     * @return 字符个数
+     * @throws IOException 读取出错
+     */
+    public static long countIncludedCharacters(FileChannel channel, Set<Character> characters) throws IOException {
+        return search(channel, characters, ForkJoinPool.commonPool(), true, Mode.COUNT);
+    }
+    
+    /**
+     * 按顺序遍历 UTF-8 文件中所有位于字符集合中的字符
+     *
+     * @param channel    文件
+     * @param characters 字符集
+     * @param consumer   接收字符字节偏移量的回调
+     * @throws IOException 读取出错
+     */
+    public static void forEachIncludedCharacter(FileChannel channel, Set<Character> characters, LongConsumer consumer) throws IOException {
+        Preconditions.checkNotNull(channel, "Channel is null!");
+        Preconditions.checkNotNull(consumer, "Consumer is null!");
+        final CharacterSet characterSet = CharacterSet.copyOf(Preconditions.checkNotNull(characters, "Characters are null!"));
+        
+        final long size = channel.size();
+        for (long chunkBegin = 0; chunkBegin < size; chunkBegin += CHUNK_SIZE) {
+            final long chunkEnd = Math.min(size, chunkBegin + CHUNK_SIZE);
+            scanChunk(channel, size, chunkBegin, chunkEnd, characterSet, true, Mode.ALL, consumer);
+        }
+    }
+    
+    /**
+     * 扫描方式
+     */
+    private enum Mode {
+        FIRST, LAST, COUNT, ALL
+    }
+    
+    private static long search(FileChannel channel, Set<Character> characters, ForkJoinPool pool, boolean included, Mode mode) throws IOException {
+        Preconditions.checkNotNull(channel, "Channel is null!");
+        Preconditions.checkNotNull(pool, "Pool is null!");
+        final CharacterSet characterSet = CharacterSet.copyOf(Preconditions.checkNotNull(characters, "Characters are null!"));
+        
+        final long size = channel.size();
+        if (size == 0) {
+            return mode == Mode.COUNT ? 0 : -1;
+        }
+        final int chunkCount = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        final AtomicLong bound = new AtomicLong(mode == Mode.LAST ? -1 : Long.MAX_VALUE);
+        try {
+            return pool.invoke(new ChunkTask(channel, size, characterSet, included, mode, bound, 0, chunkCount));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * 扫描若干块，并按扫描方式合并结果
+     */
+    private static final class ChunkTask extends RecursiveTask<Long> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final FileChannel channel;
+        private final long size;
+        private final CharacterSet characters;
+        private final boolean included;
+        private final Mode mode;
+        
+        /**
+         * 已经找到的最靠前（或最靠后）的位置，用于跳过不可能更优的块
+         */
+        private final AtomicLong bound;
+        private final int beginChunk;
+        private final int endChunk;
+        
+        ChunkTask(FileChannel channel, long size, CharacterSet characters, boolean included, Mode mode,
+                  AtomicLong bound, int beginChunk, int endChunk) {
+            this.channel = channel;
+            this.size = size;
+            this.characters = characters;
+            this.included = included;
+            this.mode = mode;
+            this.bound = bound;
+            this.beginChunk = beginChunk;
+            this.endChunk = endChunk;
+        }
+        
+        @Override
+        protected Long compute() {
+            if (endChunk - beginChunk > 1) {
+                final int middle = (beginChunk + endChunk) >>> 1;
+                final ChunkTask left = new ChunkTask(channel, size, characters, included, mode, bound, beginChunk, middle);
+                final ChunkTask right = new ChunkTask(channel, size, characters, included, mode, bound, middle, endChunk);
+                right.fork();
+                final long leftResult = left.compute();
+                final long rightResult = right.join();
+                switch (mode) {
+                    case FIRST:
+                        return leftResult != -1 ? leftResult : rightResult;
+                    case LAST:
+                        return rightResult != -1 ? rightResult : leftResult;
+                    default:
+                        return leftResult + rightResult;
+                }
+            }
+            
+            final long chunkBegin = (long) beginChunk * CHUNK_SIZE;
+            final long chunkEnd = Math.min(size, chunkBegin + CHUNK_SIZE);
+            if ((mode == Mode.FIRST && chunkBegin > bound.get()) || (mode == Mode.LAST && chunkEnd <= bound.get())) {
+                return (long) -1;
+            }
+            
+            final long result;
+            try {
+                result = scanChunk(channel, size, chunkBegin, chunkEnd, characters, included, mode, null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (result != -1) {
+                if (mode == Mode.FIRST) {
+                    bound.accumulateAndGet(result, Math::min);
+                } else if (mode == Mode.LAST) {
+                    bound.accumulateAndGet(result, Math::max);
+                }
+            }
+            return result;
+        }
+    }
+    
+    /**
+     * 扫描一块。块内以 UTF-8 首字节位于 [chunkBegin, chunkEnd) 的字符为准。
+     * 块前后各多映射几个字节：开头往回看上一块最后一个序列实际占用了哪些字节，结尾用来解码跨块的字符。
+     *
+     * @return FIRST 和 LAST 返回字节偏移量或 -1，COUNT 返回个数，ALL 返回 0
+     */
+    private static long scanChunk(FileChannel channel, long size, long chunkBegin, long chunkEnd, CharacterSet characters,
+                                  boolean included, Mode mode, LongConsumer consumer) throws IOException {
+        final long mapBegin = Math.max(0, chunkBegin - CHUNK_OVERLAP);
+        final long mapEnd = Math.min(size, chunkEnd + CHUNK_OVERLAP);
+        final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapBegin, mapEnd - mapBegin);
+        final int limit = buffer.limit();
+        final int begin = (int) (chunkBegin - mapBegin);
+        final int end = (int) (chunkEnd - mapBegin);
+        
+        // 往前找最近的非后续字节，它一定是上一块中某个序列的首字节，只跳过该序列伸进本块的部分
+        int index = begin;
+        for (int lead = begin - 1; lead >= 0; lead--) {
+            if ((buffer.get(lead) & 0xC0) != 0x80) {
+                index = Math.max(begin, lead + sequenceLength(buffer, lead, limit));
+                break;
+            }
+        }
+        
+        long count = 0;
+        long last = -1;
+        while (index < end) {
+            final int first = buffer.get(index) & 0xFF;
+            final int length = sequenceLength(buffer, index, limit);
+            final int codePoint;
+            switch (length) {
+                case 2:
+                    codePoint = ((first & 0x1F) << 6) | (buffer.get(index + 1) & 0x3F);
+                    break;
+                case 3:
+                    codePoint = ((first & 0x0F) << 12) | ((buffer.get(index + 1) & 0x3F) << 6) | (buffer.get(index + 2) & 0x3F);
+                    break;
+                case 4:
+                    codePoint = ((first & 0x07) << 18) | ((buffer.get(index + 1) & 0x3F) << 12)
+                        | ((buffer.get(index + 2) & 0x3F) << 6) | (buffer.get(index + 3) & 0x3F);
+                    break;
+                default:
+                    codePoint = first < 0x80 ? first : 0xFFFD;
+                    break;
+            }
+            
+            final boolean contained = codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT
+                ? characters.contains((char) codePoint)
+                : characters.contains(Character.highSurrogate(codePoint)) && characters.contains(Character.lowSurrogate(codePoint));
+            if (contained == included) {
+                final long offset = mapBegin + index;
+                switch (mode) {
+                    case FIRST:
+                        return offset;
+                    case LAST:
+                        last = offset;
+                        break;
+                    case COUNT:
+                        count++;
+                        break;
+                    default:
+                        consumer.accept(offset);
+                        break;
+                }
+            }
+            index += length;
+        }
+        
+        switch (mode) {
+            case FIRST:
+                return -1;
+            case LAST:
+                return last;
+            case COUNT:
+                return count;
+            default:
+                return 0;
+        }
+    }
+    
+    /**
+     * 计算从某个位置开始的 UTF-8 字节序列长度。
+     * 按 RFC 3629 检查第二个字节的范围，拒绝过长编码、代理字符和超过 U+10FFFF 的码点。
+     *
+     * @return 合法序列的字节数。ASCII 字符和无法解码的字节都返回 1
+     */
+    private static int sequenceLength(ByteBuffer buffer, int index, int limit) {
+        final int first = buffer.get(index) & 0xFF;
+        final int length;
+        int lower = 0x80;
+        int upper = 0xBF;
+        if (first >= 0xC2 && first < 0xE0) {
+            length = 2;
+        } else if (first >= 0xE0 && first < 0xF0) {
+            length = 3;
+            if (first == 0xE0) {
+                lower = 0xA0;
+            } else if (first == 0xED) {
+                upper = 0x9F;
+            }
+        } else if (first >= 0xF0 && first < 0xF5) {
+            length = 4;
+            if (first == 0xF0) {
+                lower = 0x90;
+            } else if (first == 0xF4) {
+                upper = 0x8F;
+            }
+        } else {
+            return 1;
+        }
+        
+        if (index + length > limit) {
+            return 1;
+        }
+        final int second = buffer.get(index + 1) & 0xFF;
+        if (second < lower || second > upper) {
+            return 1;
+        }
+        for (int i = 2; i < length; i++) {
+            if (!continuation(buffer, index + i, limit)) {
+                return 1;
+            }
+        }
+        return length;
+    }
+    
+    private static boolean continuation(ByteBuffer buffer, int index, int limit) {
+        return index < limit && (buffer.get(index) & 0xC0) == 0x80;
+    }
+}
@@ -0,0 +1,495 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 分块存储的字符串构造器，适合构造很长的字符串。
+ * 内容追加到固定大小的分块中，扩容时只增加分块，不像 {@link StringBuilder} 那样重新分配连续的大数组并复制全部内容。
+ * 它本身是 {@link CharSequence}，可以直接用于 {@link Strings} 中的搜索方法而不必展开，
+ * 也可以按块写入 {@link Writer}，只有调用 {@link #toString()} 时才展开为字符串。
+ *
+ * @author Chuanwise
+ */
+@SuppressWarnings("unused")
+public class ChunkedStringBuilder implements CharSequence, Appendable {
+    
+    /**
+     * 默认分块大小
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+    
+    private final int chunkShift;
+    
+    private final int chunkMask;
+    
+    /**
+     * 分块，前 (length + chunkMask) >> chunkShift 个已分配
+     */
+    private char[][] chunks = new char[16][];
+    
+    private int length;
+    
+    /**
+     * ChunkedStringBuilder 的构造器
+     */
+    public static class Builder {
+        
+        protected int chunkSize = DEFAULT_CHUNK_SIZE;
+        
+        Builder() {
+        }
+        
+        /**
+         * 设置分块大小，会向上取整到 2 的幂
+         *
+         * @param chunkSize 分块大小
+         * @return 构造器
+         */
+        public Builder chunkSize(int chunkSize) {
+            Preconditions.checkArgument(chunkSize >= 16 && chunkSize <= 1 << 30,
+                "Chunk size must be between 16 and 2^30, but got %s!", chunkSize);
+            
+            this.chunkSize = chunkSize;
+            
+            return this;
+        }
+        
+        public ChunkedStringBuilder build() {
+            return new ChunkedStringBuilder(chunkSize);
+        }
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    @SuppressWarnings("all")
+    public static ChunkedStringBuilder newInstance() {
+        return builder().build();
+    }
+    
+    public ChunkedStringBuilder(int chunkSize) {
+        Preconditions.checkArgument(chunkSize >= 16 && chunkSize <= 1 << 30,
+            "Chunk size must be between 16 and 2^30, but got %s!", chunkSize);
+        
+        this.chunkShift = 32 - Integer.numberOfLeadingZeros(chunkSize - 1);
+        this.chunkMask = (1 << chunkShift) - 1;
+    }
+    
+    /**
+     * 为即将追加的 count 个字符分配分块
+     */
+    private void reserve(int count) {
+        Preconditions.checkArgument((long) length + count <= Integer.MAX_VALUE,
+            "Length %s + %s exceeds the max length!", length, count);
+        
+        final int requiredChunks = (int) (((long) length + count + chunkMask) >>> chunkShift);
+        if (requiredChunks > chunks.length) {
+            chunks = java.util.Arrays.copyOf(chunks, Math.max(requiredChunks, chunks.length << 1));
+        }
+        for (int i = (length + chunkMask) >>> chunkShift; i < requiredChunks; i++) {
+            if (chunks[i] == null) {
+                chunks[i] = new char[chunkMask + 1];
+            }
+        }
+    }
+    
+    /**
+     * 追加字符数组的区间
+     *
+     * @param array      字符数组
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex   结束索引（不包含）
+     * @return this
+     */
+    public ChunkedStringBuilder append(char[] array, int beginIndex, int endIndex) {
+        Preconditions.checkNotNull(array, "Array is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, array.length);
+        
+        reserve(endIndex - beginIndex);
+        int i = beginIndex;
+        while (i < endIndex) {
+            final char[] chunk = chunks[length >>> chunkShift];
+            final int offset = length & chunkMask;
+            final int count = Math.min(chunk.length - offset, endIndex - i);
+            System.arraycopy(array, i, chunk, offset, count);
+            i += count;
+            length += count;
+        }
+        return this;
+    }
+    
+    /**
+     * 追加字符序列的区间
+     *
+     * @param string     字符序列，为 null 时追加 "null"
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex   结束索引（不包含）
+     * @return this
+     */
+    @Override
+    public ChunkedStringBuilder append(CharSequence string, int beginIndex, int endIndex) {
+        final CharSequence nonNull = string == null ? "null" : string;
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, nonNull.length());
+        
+        if (nonNull instanceof CharSlice && ((CharSlice) nonNull).array() != null) {
+            final CharSlice slice = (CharSlice) nonNull;
+            return append(slice.array(), slice.arrayOffset() + beginIndex, slice.arrayOffset() + endIndex);
+        }
+        if (nonNull == this) {
+            return append(toString(beginIndex, endIndex));
+        }
+        
+        reserve(endIndex - beginIndex);
+        int i = beginIndex;
+        while (i < endIndex) {
+            final char[] chunk = chunks[length >>> chunkShift];
+            final int offset = length & chunkMask;
+            final int count = Math.min(chunk.length - offset, endIndex - i);
+            getChars(nonNull, i, i + count, chunk, offset);
+            i += count;
+            length += count;
+        }
+        return this;
+    }
+    
+    private static void getChars(CharSequence string, int beginIndex, int endIndex, char[] destination, int destinationIndex) {
+        if (string instanceof String) {
+            ((String) string).getChars(beginIndex, endIndex, destination, destinationIndex);
+        } else if (string instanceof StringBuilder) {
+            ((StringBuilder) string).getChars(beginIndex, endIndex, destination, destinationIndex);
+        } else if (string instanceof ChunkedStringBuilder) {
+            ((ChunkedStringBuilder) string).getChars(beginIndex, endIndex, destination, destinationIndex);
+        } else {
+            for (int i = beginIndex; i < endIndex; i++) {
+                destination[destinationIndex++] = string.charAt(i);
+            }
+        }
+    }
+    
+    /**
+     * 追加字符序列
+     *
+     * @param string 字符序列，为 null 时追加 "null"
+     * @return this
+     */
+    @Override
+    public ChunkedStringBuilder append(CharSequence string) {
+        final CharSequence nonNull = string == null ? "null" : string;
+        
+        // 能放进当前分块的字符串直接复制
+        final int count = nonNull.length();
+        final int offset = length & chunkMask;
+        if (nonNull instanceof String && offset != 0 && offset + count <= chunkMask + 1) {
+            ((String) nonNull).getChars(0, count, chunks[length >>> chunkShift], offset);
+            length += count;
+            return this;
+        }
+        return append(nonNull, 0, count);
+    }
+    
+    /**
+     * 追加字符
+     *
+     * @param ch 字符
+     * @return this
+     */
+    @Override
+    public ChunkedStringBuilder append(char ch) {
+        final int index = length >>> chunkShift;
+        if (index >= chunks.length || chunks[index] == null) {
+            reserve(1);
+        } else {
+            Preconditions.checkState(length != Integer.MAX_VALUE, "Length exceeds the max length!");
+        }
+        chunks[index][length & chunkMask] = ch;
+        length++;
+        return this;
+    }
+    
+    /**
+     * 追加对象的字符串形式
+     *
+     * @param object 对象
+     * @return this
+     */
+    public ChunkedStringBuilder append(Object object) {
+        return append(String.valueOf(object));
+    }
+    
+    @Override
+    public int length() {
+        return length;
+    }
+    
+    public boolean isEmpty() {
+        return length == 0;
+    }
+    
+    @Override
+    public char charAt(int index) {
+        Preconditions.checkElementIndex(index, length);
+        
+        return chunks[index >>> chunkShift][index & chunkMask];
+    }
+    
+    /**
+     * 获取区间的视图，不复制内容。区间位于同一分块时返回 {@link CharSlice}。
+     * 视图在 {@link #clear()} 或 {@link #setLength(int)} 之前有效
+     *
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex   结束索引（不包含）
+     * @return 区间的视图
+     */
+    @Override
+    public CharSequence subSequence(int beginIndex, int endIndex) {
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, length);
+        
+        if (beginIndex == endIndex) {
+            return CharSlice.EMPTY;
+        }
+        if (beginIndex >>> chunkShift == (endIndex - 1) >>> chunkShift) {
+            final int offset = beginIndex & chunkMask;
+            return CharSlice.of(chunks[beginIndex >>> chunkShift], offset, offset + endIndex - beginIndex);
+        }
+        return new View(beginIndex, endIndex);
+    }
+    
+    /**
+     * 跨越多个分块的区间视图
+     */
+    private class View implements CharSequence {
+        
+        private final int beginIndex;
+        
+        private final int endIndex;
+        
+        View(int beginIndex, int endIndex) {
+            this.beginIndex = beginIndex;
+            this.endIndex = endIndex;
+        }
+        
+        @Override
+        public int length() {
+            return endIndex - beginIndex;
+        }
+        
+        @Override
+        public char charAt(int index) {
+            Preconditions.checkElementIndex(index, endIndex - beginIndex);
+            
+            return ChunkedStringBuilder.this.charAt(beginIndex + index);
+        }
+        
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            Preconditions.checkPositionIndexes(start, end, endIndex - beginIndex);
+            
+            return ChunkedStringBuilder.this.subSequence(beginIndex + start, beginIndex + end);
+        }
+        
+        @Override
+        public String toString() {
+            return ChunkedStringBuilder.this.toString(beginIndex, endIndex);
+        }
+    }
+    
+    /**
+     * 将区间复制到字符数组
+     *
+     * @param beginIndex       起始索引（包含）
+     * @param endIndex         结束索引（不包含）
+     * @param destination      目标数组
+     * @param destinationIndex 目标数组的起始索引
+     */
+    public void getChars(int beginIndex, int endIndex, char[] destination, int destinationIndex) {
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, length);
+        Preconditions.checkNotNull(destination, "Destination is null!");
+        Preconditions.checkPositionIndexes(destinationIndex, destinationIndex + endIndex - beginIndex, destination.length);
+        
+        int i = beginIndex;
+        while (i < endIndex) {
+            final int offset = i & chunkMask;
+            final int count = Math.min(chunkMask + 1 - offset, endIndex - i);
+            System.arraycopy(chunks[i >>> chunkShift], offset, destination, destinationIndex, count);
+            i += count;
+            destinationIndex += count;
+        }
+    }
+    
+    /**
+     * 查找字符第一次出现的位置，逐块扫描
+     *
+     * @param ch         字符
+     * @param beginIndex 开始查找的位置
+     * @return 位置，不存在时返回 -1
+     */
+    public int indexOf(char ch, int beginIndex) {
+        int i = Math.max(beginIndex, 0);
+        while (i < length) {
+            final char[] chunk = chunks[i >>> chunkShift];
+            final int chunkBegin = i & ~chunkMask;
+            final int end = Math.min(chunk.length, length - chunkBegin);
+            for (int j = i - chunkBegin; j < end; j++) {
+                if (chunk[j] == ch) {
+                    return chunkBegin + j;
+                }
+            }
+            i = chunkBegin + end;
+        }
+        return -1;
+    }
+    
+    /**
+     * 查找字符最后一次出现的位置，逐块扫描
+     *
+     * @param ch         字符
+     * @param beginIndex 开始向前查找的位置（包含）
+     * @return 位置，不存在时返回 -1
+     */
+    public int lastIndexOf(char ch, int beginIndex) {
+        int i = Math.min(beginIndex, length - 1);
+        while (i >= 0) {
+            final char[] chunk = chunks[i >>> chunkShift];
+            final int chunkBegin = i & ~chunkMask;
+            for (int j = i - chunkBegin; j >= 0; j--) {
+                if (chunk[j] == ch) {
+                    return chunkBegin + j;
+                }
+            }
+            i = chunkBegin - 1;
+        }
+        return -1;
+    }
+    
+    /**
+     * 查找字符序列第一次出现的位置
+     *
+     * @param pattern    字符序列
+     * @param beginIndex 开始查找的位置
+     * @return 位置，不存在时返回 -1
+     */
+    public int indexOf(CharSequence pattern, int beginIndex) {
+        Preconditions.checkNotNull(pattern, "Pattern is null!");
+        
+        final int patternLength = pattern.length();
+        final int begin = Math.max(beginIndex, 0);
+        if (patternLength == 0) {
+            return Math.min(begin, length);
+        }
+        final char first = pattern.charAt(0);
+        final int last = length - patternLength;
+        for (int i = indexOf(first, begin); i >= 0 && i <= last; i = indexOf(first, i + 1)) {
+            int j = 1;
+            while (j < patternLength && charAt(i + j) == pattern.charAt(j)) {
+                j++;
+            }
+            if (j == patternLength) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 查找字符序列第一次出现的位置
+     *
+     * @param pattern 字符序列
+     * @return 位置，不存在时返回 -1
+     */
+    public int indexOf(CharSequence pattern) {
+        return indexOf(pattern, 0);
+    }
+    
+    /**
+     * 按块将内容写入目标，不展开为字符串
+     *
+     * @param appendable 写入目标
+     * @param <A>        写入目标类型
+     * @return 写入目标
+     * @throws IOException 写入出错
+     */
+    public <A extends Appendable> A writeTo(A appendable) throws IOException {
+        Preconditions.checkNotNull(appendable, "Appendable is null!");
+        
+        for (int i = 0; i < length; i += chunkMask + 1) {
+            final char[] chunk = chunks[i >>> chunkShift];
+            final int count = Math.min(chunk.length, length - i);
+            if (appendable instanceof Writer) {
+                ((Writer) appendable).write(chunk, 0, count);
+            } else if (appendable instanceof StringBuilder) {
+                ((StringBuilder) appendable).append(chunk, 0, count);
+            } else {
+                appendable.append(CharSlice.of(chunk, 0, count));
+            }
+        }
+        return appendable;
+    }
+    
+    /**
+     * 截断内容
+     *
+     * @param length 新的长度，不能超过当前长度
+     */
+    public void setLength(int length) {
+        Preconditions.checkPositionIndex(length, this.length, "Length");
+        
+        this.length = length;
+    }
+    
+    /**
+     * 清空内容，只保留第一个分块
+     */
+    public void clear() {
+        final char[] first = chunks[0];
+        chunks = new char[16][];
+        chunks[0] = first;
+        length = 0;
+    }
+    
+    /**
+     * 将区间展开为字符串
+     *
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex   结束索引（不包含）
+     * @return 字符串
+     */
+    public String toString(int beginIndex, int endIndex) {
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, length);
+        Preconditions.checkArgument(endIndex - beginIndex <= Strings.MAX_ARRAY_LENGTH,
+            "Length %s exceeds the max array length %s!", endIndex - beginIndex, Strings.MAX_ARRAY_LENGTH);
+        
+        final char[] chars = new char[endIndex - beginIndex];
+        getChars(beginIndex, endIndex, chars, 0);
+        return new String(chars);
+    }
+    
+    /**
+     * 将全部内容展开为字符串
+     *
+     * @return 字符串
+     */
+    @Override
+    public String toString() {
+        return toString(0, length);
+    }
+}
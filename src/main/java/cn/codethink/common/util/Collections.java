@@ -515,7 +515,7 @@ public class Collections {
         Preconditions.checkNotNull(function, "Function is null!");
         Preconditions.checkNotNull(delimiter, "Delimiter is null!");
         
-        return Joiner.builder().delimiter(delimiter).build().plusAll(iterable, function).join();
+        return Joiner.pool(delimiter).join(joiner -> joiner.plusAll(iterable, function));
     }
     
     /**
@@ -577,9 +577,20 @@ public class Collections {
         if (end == begin + 1) {
             return function.apply(list.get(begin));
         }
-        final StringBuilder stringBuilder = new StringBuilder(function.apply(list.get(begin)));
-        for (int i = begin + 1; i < end; i++) {
-            stringBuilder.append(delimiter).append(function.apply(list.get(i)));
+        
+        // 先转化所有元素并计算精确长度，再一次性写入
+        final String[] strings = new String[end - begin];
+        long length = (long) delimiter.length() * (strings.length - 1);
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = String.valueOf(function.apply(list.get(begin + i)));
+            length += strings[i].length();
+        }
+        Preconditions.checkArgument(length <= Strings.MAX_ARRAY_LENGTH,
+            "Joined string length %s exceeds the max array length %s!", length, Strings.MAX_ARRAY_LENGTH);
+        
+        final StringBuilder stringBuilder = new StringBuilder((int) length).append(strings[0]);
+        for (int i = 1; i < strings.length; i++) {
+            stringBuilder.append(delimiter).append(strings[i]);
         }
         return stringBuilder.toString();
     }
@@ -627,4 +638,25 @@ public class Collections {
     public static <T> String joinToString(List<T> list, int begin, String delimiter) {
         return joinToString(list, java.util.Objects::toString, begin, list.size(), delimiter);
     }
+    
+    /**
+     * 计算从源列表到目标列表的编辑脚本，元素使用 {@link Objects#equals(Object, Object)} 比较。
+     * 使用 Myers O(ND) 线性空间算法。
+     *
+     * @param source 源列表
+     * @param target 目标列表
+     * @param <T>    列表元素类型
+     * @return 编辑脚本
+     */
+    public static <T> EditScript diff(List<? extends T> source, List<? extends T> target) {
+        Preconditions.checkNotNull(source, "Source is null!");
+        Preconditions.checkNotNull(target, "Target is null!");
+        
+        // 随机访问较慢的列表先复制为数组
+        final Object[] sourceArray = source instanceof RandomAccess ? null : source.toArray();
+        final Object[] targetArray = target instanceof RandomAccess ? null : target.toArray();
+        return EditScript.compute(source.size(), target.size(), (sourceIndex, targetIndex) -> Objects.equals(
+            sourceArray == null ? source.get(sourceIndex) : sourceArray[sourceIndex],
+            targetArray == null ? target.get(targetIndex) : targetArray[targetIndex]));
+    }
 }
\ No newline at end of file
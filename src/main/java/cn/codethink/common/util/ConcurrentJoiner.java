@@ -0,0 +1,423 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 可以被多个线程同时添加元素的 joiner。
+ * 元素写入按线程分散的若干条带缓存，线程优先写入空闲的条带，因此几乎不会互相等待；
+ * {@link #join()} 时锁定所有条带并一次性拼接。
+ * 有序模式下每个元素在写入时获得一个序号，结果按序号排列；无序模式下条带依次拼接，吞吐量更高。
+ * 和 {@link Joiner} 不同，每两个元素之间都会写入分隔符。
+ *
+ * @author Chuanwise
+ * @see Joiner.Builder#buildConcurrent(boolean)
+ */
+@SuppressWarnings("unused")
+public class ConcurrentJoiner {
+    
+    /**
+     * 条带，保存写入它的元素
+     */
+    private static class Stripe extends ReentrantLock {
+        
+        private static final long serialVersionUID = 1L;
+        
+        /**
+         * 内容。无序模式下元素之间已写入分隔符，有序模式下元素紧密排列
+         */
+        final StringBuilder stringBuilder = new StringBuilder();
+        
+        /**
+         * 元素数量
+         */
+        int count;
+        
+        /**
+         * 有序模式下每个元素在 stringBuilder 中的结束位置
+         */
+        int[] ends;
+        
+        /**
+         * 有序模式下每个元素的序号
+         */
+        int[] sequences;
+        
+        /**
+         * 保证还能记录一个元素。在分配序号之前调用，扩容失败时不会留下未记录的序号
+         */
+        void reserve() {
+            if (ends == null) {
+                ends = new int[16];
+                sequences = new int[16];
+            } else if (count == ends.length) {
+                final int[] grownEnds = java.util.Arrays.copyOf(ends, count << 1);
+                sequences = java.util.Arrays.copyOf(sequences, count << 1);
+                ends = grownEnds;
+            }
+        }
+        
+        void record(int end, int sequence) {
+            ends[count] = end;
+            sequences[count] = sequence;
+        }
+        
+        void clear() {
+            stringBuilder.setLength(0);
+            count = 0;
+            ends = null;
+            sequences = null;
+        }
+    }
+    
+    private final String prefix;
+    
+    private final String suffix;
+    
+    private final String delimiter;
+    
+    private final String emptyString;
+    
+    private final boolean nullable;
+    
+    private final Escaper escaper;
+    
+    private final boolean ordered;
+    
+    private final Stripe[] stripes;
+    
+    private final int stripeMask;
+    
+    /**
+     * 有序模式下的下一个序号，只在持有某个条带的锁时递增
+     */
+    private final AtomicInteger sequence = new AtomicInteger();
+    
+    ConcurrentJoiner(String prefix, String suffix, String delimiter, String emptyString,
+                     boolean nullable, Escaper escaper, boolean ordered) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.delimiter = delimiter;
+        this.emptyString = emptyString;
+        this.nullable = nullable;
+        this.escaper = escaper;
+        this.ordered = ordered;
+        
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int stripeCount = Integer.highestOneBit(Math.max(1, processors * 2 - 1) << 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+    
+    /**
+     * 锁定一个条带。从当前线程对应的条带开始尝试空闲的条带，都被占用时等待对应的条带
+     *
+     * @return 已锁定的条带
+     */
+    private Stripe lockStripe() {
+        final long id = Thread.currentThread().getId();
+        final int hash = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+        for (int i = 0; i <= stripeMask; i++) {
+            final Stripe stripe = stripes[(hash + i) & stripeMask];
+            if (stripe.tryLock()) {
+                return stripe;
+            }
+        }
+        final Stripe stripe = stripes[hash & stripeMask];
+        stripe.lock();
+        return stripe;
+    }
+    
+    /**
+     * 开始写入元素，无序模式下写入分隔符
+     */
+    private void begin(Stripe stripe) {
+        if (!ordered && stripe.count != 0) {
+            stripe.stringBuilder.append(delimiter);
+        }
+    }
+    
+    /**
+     * 结束写入元素，有序模式下记录元素的位置和序号
+     */
+    private void end(Stripe stripe) {
+        if (ordered) {
+            stripe.reserve();
+            final int next = sequence.getAndIncrement();
+            Preconditions.checkState(next >= 0, "Too many elements!");
+            stripe.record(stripe.stringBuilder.length(), next);
+        }
+        stripe.count++;
+    }
+    
+    private void write(Stripe stripe, String string) {
+        if (escaper == null || string == null) {
+            stripe.stringBuilder.append(string);
+        } else {
+            escaper.escape(string, stripe.stringBuilder);
+        }
+    }
+    
+    /**
+     * 添加一个字符串
+     *
+     * @param string 字符串
+     * @return this
+     */
+    public ConcurrentJoiner plus(String string) {
+        Preconditions.checkArgument(nullable || Objects.nonNull(string), "String isn't nullable, but got null!");
+        
+        final Stripe stripe = lockStripe();
+        final int length = stripe.stringBuilder.length();
+        try {
+            begin(stripe);
+            write(stripe, string);
+            end(stripe);
+        } catch (RuntimeException | Error e) {
+            stripe.stringBuilder.setLength(length);
+            throw e;
+        } finally {
+            stripe.unlock();
+        }
+        return this;
+    }
+    
+    /**
+     * 添加一个元素。元素在获取条带之前转化为字符串
+     *
+     * @param element  元素
+     * @param function 方法
+     * @return this
+     */
+    public <T> ConcurrentJoiner plus(T element, Function<T, String> function) {
+        Preconditions.checkArgument(nullable || Objects.nonNull(element), "Element isn't nullable, but got null!");
+        Preconditions.checkNotNull(function, "Function is null!");
+        
+        return plus(function.apply(element));
+    }
+    
+    /**
+     * 通过写入器添加一个元素，元素在持有条带时直接写入条带缓存
+     *
+     * @param element  元素
+     * @param appender 写入器
+     * @return this
+     */
+    public <T> ConcurrentJoiner append(T element, Appender<? super T> appender) {
+        Preconditions.checkArgument(nullable || Objects.nonNull(element), "Element isn't nullable, but got null!");
+        Preconditions.checkNotNull(appender, "Appender is null!");
+        
+        final Stripe stripe = lockStripe();
+        final int length = stripe.stringBuilder.length();
+        try {
+            begin(stripe);
+            if (escaper == null) {
+                appender.append(element, stripe.stringBuilder);
+            } else {
+                final int elementBegin = stripe.stringBuilder.length();
+                appender.append(element, stripe.stringBuilder);
+                final String string = stripe.stringBuilder.substring(elementBegin);
+                stripe.stringBuilder.setLength(elementBegin);
+                write(stripe, string);
+            }
+            end(stripe);
+        } catch (RuntimeException | Error e) {
+            // 写入器或转义器中途失败时，撤销已经写入条带的分隔符和部分内容
+            stripe.stringBuilder.setLength(length);
+            throw e;
+        } finally {
+            stripe.unlock();
+        }
+        return this;
+    }
+    
+    private void lockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock();
+        }
+    }
+    
+    private void unlockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.unlock();
+        }
+    }
+    
+    /**
+     * 获取已添加的元素数量
+     *
+     * @return 元素数量
+     */
+    public int size() {
+        lockAll();
+        try {
+            int size = 0;
+            for (Stripe stripe : stripes) {
+                size += stripe.count;
+            }
+            return size;
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    /**
+     * 清空已添加的元素
+     */
+    public void clear() {
+        lockAll();
+        try {
+            for (Stripe stripe : stripes) {
+                stripe.clear();
+            }
+            sequence.set(0);
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    /**
+     * 在持有所有条带时将内容写入 StringBuilder，没有元素时不写入
+     *
+     * @return 是否有元素
+     */
+    private boolean writeTo(StringBuilder stringBuilder) {
+        long length = prefix.length() + suffix.length();
+        int count = 0;
+        int nonEmptyStripes = 0;
+        for (Stripe stripe : stripes) {
+            if (stripe.count != 0) {
+                length += stripe.stringBuilder.length();
+                count += stripe.count;
+                nonEmptyStripes++;
+            }
+        }
+        if (count == 0) {
+            return false;
+        }
+        length += (long) delimiter.length() * (ordered ? count - 1 : nonEmptyStripes - 1);
+        Preconditions.checkArgument(length <= Strings.MAX_ARRAY_LENGTH,
+            "Joined string length %s exceeds the max array length %s!", length, Strings.MAX_ARRAY_LENGTH);
+        stringBuilder.ensureCapacity(stringBuilder.length() + (int) length);
+        
+        stringBuilder.append(prefix);
+        if (ordered) {
+            // 序号在持有条带锁时连续分配，所有条带锁定后没有空洞
+            final Stripe[] stripeOf = new Stripe[count];
+            final int[] indexOf = new int[count];
+            for (Stripe stripe : stripes) {
+                for (int i = 0; i < stripe.count; i++) {
+                    stripeOf[stripe.sequences[i]] = stripe;
+                    indexOf[stripe.sequences[i]] = i;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                if (i != 0) {
+                    stringBuilder.append(delimiter);
+                }
+                final Stripe stripe = stripeOf[i];
+                final int index = indexOf[i];
+                final int begin = index == 0 ? 0 : stripe.ends[index - 1];
+                stringBuilder.append(stripe.stringBuilder, begin, stripe.ends[index]);
+            }
+        } else {
+            boolean first = true;
+            for (Stripe stripe : stripes) {
+                if (stripe.count != 0) {
+                    if (!first) {
+                        stringBuilder.append(delimiter);
+                    }
+                    stringBuilder.append(stripe.stringBuilder);
+                    first = false;
+                }
+            }
+        }
+        stringBuilder.append(suffix);
+        return true;
+    }
+    
+    /**
+     * 合并结果。合并期间其他线程的添加操作会等待
+     *
+     * @param emptyString 没有元素时返回的字符串
+     * @return 合并后的结果
+     */
+    public String join(String emptyString) {
+        Preconditions.checkNotNull(emptyString, "Empty string is null!");
+        
+        final StringBuilder stringBuilder = new StringBuilder(0);
+        lockAll();
+        try {
+            if (!writeTo(stringBuilder)) {
+                return emptyString;
+            }
+        } finally {
+            unlockAll();
+        }
+        return stringBuilder.toString();
+    }
+    
+    /**
+     * 合并结果
+     *
+     * @return 合并后的结果
+     */
+    public String join() {
+        return join(emptyString);
+    }
+    
+    /**
+     * 将结果写入目标
+     *
+     * @param appendable 写入目标
+     * @param <A>        写入目标类型
+     * @return 写入目标
+     * @throws IOException 写入出错
+     */
+    public <A extends Appendable> A joinTo(A appendable) throws IOException {
+        Preconditions.checkNotNull(appendable, "Appendable is null!");
+        
+        if (appendable instanceof StringBuilder) {
+            lockAll();
+            try {
+                if (writeTo((StringBuilder) appendable)) {
+                    return appendable;
+                }
+            } finally {
+                unlockAll();
+            }
+            appendable.append(emptyString);
+            return appendable;
+        }
+        appendable.append(join());
+        return appendable;
+    }
+    
+    public boolean isOrdered() {
+        return ordered;
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 可以被多个线程同时追加的字符缓冲区，用于替代多线程共享的 {@link StringBuffer}。
+ * 追加时通过一次原子加法预留一段位置，然后把字符复制到分块数组中，不加锁也不等待其他线程。
+ * 分块的大小依次翻倍，扩容时不复制已有内容。
+ * {@link #toStringAndClear()} 原子地换上新的缓冲区，只等待已经预留了位置的追加完成复制，
+ * 之后的追加直接写入新的缓冲区。每次追加的内容在结果中是连续的。
+ *
+ * @author Chuanwise
+ * @see StringBuffers
+ */
+@SuppressWarnings("unused")
+public class ConcurrentStringBuffer implements Appendable {
+    
+    /**
+     * 第一个分块大小的位数
+     */
+    private static final int FIRST_CHUNK_SHIFT = 8;
+    
+    /**
+     * 分块的数量，足以容纳最长的字符串
+     */
+    private static final int CHUNK_COUNT = 32 - FIRST_CHUNK_SHIFT;
+    
+    /**
+     * 预留位置的封闭标记
+     */
+    private static final long SEALED = Long.MIN_VALUE;
+    
+    /**
+     * 一代缓冲区，清空时整体替换
+     */
+    private static class Generation {
+        
+        /**
+         * 第 i 个分块从 ((1 << i) - 1) << FIRST_CHUNK_SHIFT 开始，长度为 1 << (i + FIRST_CHUNK_SHIFT)，
+         * 最后一个分块截断到最大数组长度为止
+         */
+        final AtomicReferenceArray<char[]> chunks = new AtomicReferenceArray<>(CHUNK_COUNT);
+        
+        /**
+         * 已预留的字符数，封闭后最高位为 1
+         */
+        final AtomicLong reserved = new AtomicLong();
+        
+        /**
+         * 已完成复制的字符数
+         */
+        final LongAdder committed = new LongAdder();
+        
+        char[] chunk(int index) {
+            final char[] chunk = chunks.get(index);
+            if (chunk != null) {
+                return chunk;
+            }
+            final char[] created = new char[chunkLength(index)];
+            if (chunks.compareAndSet(index, null, created)) {
+                return created;
+            }
+            return chunks.get(index);
+        }
+        
+        /**
+         * 将字符序列的区间复制到从 position 开始的位置
+         */
+        void write(long position, CharSequence string, int beginIndex, int endIndex) {
+            int index = chunkIndex(position);
+            int offset = (int) (position - chunkBegin(index));
+            int i = beginIndex;
+            while (i < endIndex) {
+                final char[] chunk = chunk(index);
+                final int count = Math.min(chunk.length - offset, endIndex - i);
+                getChars(string, i, i + count, chunk, offset);
+                i += count;
+                index++;
+                offset = 0;
+            }
+        }
+        
+        /**
+         * 将前 length 个字符复制到 StringBuilder
+         */
+        void copyTo(StringBuilder stringBuilder, int length) {
+            int remaining = length;
+            for (int index = 0; remaining > 0; index++) {
+                final char[] chunk = chunks.get(index);
+                final int count = Math.min(chunk.length, remaining);
+                stringBuilder.append(chunk, 0, count);
+                remaining -= count;
+            }
+        }
+    }
+    
+    private final AtomicReference<Generation> current = new AtomicReference<>(new Generation());
+    
+    private static int chunkIndex(long position) {
+        return 63 - Long.numberOfLeadingZeros((position >> FIRST_CHUNK_SHIFT) + 1);
+    }
+    
+    private static long chunkBegin(int index) {
+        return ((1L << index) - 1) << FIRST_CHUNK_SHIFT;
+    }
+    
+    private static int chunkLength(int index) {
+        return (int) Math.min(1L << (index + FIRST_CHUNK_SHIFT), Strings.MAX_ARRAY_LENGTH - chunkBegin(index));
+    }
+    
+    private static void getChars(CharSequence string, int beginIndex, int endIndex, char[] chars, int index) {
+        if (string instanceof String) {
+            ((String) string).getChars(beginIndex, endIndex, chars, index);
+        } else if (string instanceof StringBuilder) {
+            ((StringBuilder) string).getChars(beginIndex, endIndex, chars, index);
+        } else {
+            for (int i = beginIndex; i < endIndex; i++) {
+                chars[index++] = string.charAt(i);
+            }
+        }
+    }
+    
+    /**
+     * 追加字符序列的区间
+     *
+     * @param string     字符序列，为 null 时追加 "null"
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex   结束索引（不包含）
+     * @return this
+     */
+    @Override
+    public ConcurrentStringBuffer append(CharSequence string, int beginIndex, int endIndex) {
+        final CharSequence nonNull = string == null ? "null" : string;
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, nonNull.length());
+        
+        final int length = endIndex - beginIndex;
+        if (length == 0) {
+            return this;
+        }
+        while (true) {
+            final Generation generation = current.get();
+            final long position = generation.reserved.getAndAdd(length);
+            if (position < 0) {
+                // 这一代已被封闭，当前缓冲区已经换成了新的一代
+                continue;
+            }
+            if (position + length > Strings.MAX_ARRAY_LENGTH) {
+                generation.committed.add(length);
+                throw new IllegalStateException("Buffer length exceeds the max array length " + Strings.MAX_ARRAY_LENGTH + "!");
+            }
+            try {
+                generation.write(position, nonNull, beginIndex, endIndex);
+            } finally {
+                generation.committed.add(length);
+            }
+            return this;
+        }
+    }
+    
+    /**
+     * 追加字符序列
+     *
+     * @param string 字符序列，为 null 时追加 "null"
+     * @return this
+     */
+    @Override
+    public ConcurrentStringBuffer append(CharSequence string) {
+        final CharSequence nonNull = string == null ? "null" : string;
+        
+        return append(nonNull, 0, nonNull.length());
+    }
+    
+    /**
+     * 追加字符
+     *
+     * @param ch 字符
+     * @return this
+     */
+    @Override
+    public ConcurrentStringBuffer append(char ch) {
+        return append(String.valueOf(ch), 0, 1);
+    }
+    
+    /**
+     * 追加对象的字符串形式
+     *
+     * @param object 对象
+     * @return this
+     */
+    public ConcurrentStringBuffer append(Object object) {
+        return append(String.valueOf(object));
+    }
+    
+    /**
+     * 获取当前已追加的字符数，并发追加时只是一个近似值
+     *
+     * @return 字符数
+     */
+    public int length() {
+        final long reserved = current.get().reserved.get();
+        return reserved < 0 ? 0 : (int) Math.min(reserved, Strings.MAX_ARRAY_LENGTH);
+    }
+    
+    /**
+     * 判断是否没有追加过内容，并发追加时只是一个近似值
+     *
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return length() == 0;
+    }
+    
+    /**
+     * 原子地取出全部内容并清空。换上新的缓冲区后，只等待已经预留了位置的追加完成复制
+     *
+     * @return 清空前的内容
+     * @throws IllegalStateException 内容超过最大数组长度
+     */
+    public String toStringAndClear() {
+        final Generation generation = current.getAndSet(new Generation());
+        final long reserved = generation.reserved.getAndAdd(SEALED);
+        
+        while (generation.committed.sum() < reserved) {
+            Thread.yield();
+        }
+        Preconditions.checkState(reserved <= Strings.MAX_ARRAY_LENGTH,
+            "Buffer length %s exceeds the max array length %s!", reserved, Strings.MAX_ARRAY_LENGTH);
+        if (reserved == 0) {
+            return "";
+        }
+        
+        final StringBuilder stringBuilder = new StringBuilder((int) reserved);
+        generation.copyTo(stringBuilder, (int) reserved);
+        return stringBuilder.toString();
+    }
+    
+    /**
+     * 清空内容
+     */
+    public void clear() {
+        current.set(new Generation());
+    }
+}
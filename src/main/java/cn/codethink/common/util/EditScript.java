@@ -0,0 +1,471 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * 编辑脚本，由连续的保留、插入和删除片段组成
+ *
+ * @author Chuanwise
+ */
+@SuppressWarnings("unused")
+public final class EditScript {
+    
+    /**
+     * 编辑操作
+     */
+    public enum Operation {
+        
+        /**
+         * 保留源序列和目标序列中相同的元素
+         */
+        KEEP,
+        
+        /**
+         * 插入目标序列中的元素
+         */
+        INSERT,
+        
+        /**
+         * 删除源序列中的元素
+         */
+        DELETE
+    }
+    
+    private static final Operation[] OPERATIONS = Operation.values();
+    
+    /**
+     * 每个片段的操作
+     */
+    private final byte[] operations;
+    
+    /**
+     * 每个片段的长度
+     */
+    private final int[] lengths;
+    
+    /**
+     * 每个片段在源序列中的起始索引
+     */
+    private final int[] sourceIndexes;
+    
+    /**
+     * 每个片段在目标序列中的起始索引
+     */
+    private final int[] targetIndexes;
+    
+    /**
+     * 片段数
+     */
+    private final int size;
+    
+    private final int sourceLength;
+    
+    private final int targetLength;
+    
+    private final int keepLength;
+    
+    private EditScript(byte[] operations, int[] lengths, int[] sourceIndexes, int[] targetIndexes, int size,
+                       int sourceLength, int targetLength, int keepLength) {
+        this.operations = operations;
+        this.lengths = lengths;
+        this.sourceIndexes = sourceIndexes;
+        this.targetIndexes = targetIndexes;
+        this.size = size;
+        this.sourceLength = sourceLength;
+        this.targetLength = targetLength;
+        this.keepLength = keepLength;
+    }
+    
+    /**
+     * 获取片段数
+     *
+     * @return 片段数
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * 获取片段的操作
+     *
+     * @param index 片段索引
+     * @return 片段的操作
+     */
+    public Operation getOperation(int index) {
+        Preconditions.checkElementIndex(index, size, "Index");
+        return OPERATIONS[operations[index]];
+    }
+    
+    /**
+     * 获取片段的长度
+     *
+     * @param index 片段索引
+     * @return 片段包含的元素个数
+     */
+    public int getLength(int index) {
+        Preconditions.checkElementIndex(index, size, "Index");
+        return lengths[index];
+    }
+    
+    /**
+     * 获取片段在源序列中的起始索引
+     *
+     * @param index 片段索引
+     * @return 片段在源序列中的起始索引。插入片段返回插入位置
+     */
+    public int getSourceIndex(int index) {
+        Preconditions.checkElementIndex(index, size, "Index");
+        return sourceIndexes[index];
+    }
+    
+    /**
+     * 获取片段在目标序列中的起始索引
+     *
+     * @param index 片段索引
+     * @return 片段在目标序列中的起始索引。删除片段返回删除位置
+     */
+    public int getTargetIndex(int index) {
+        Preconditions.checkElementIndex(index, size, "Index");
+        return targetIndexes[index];
+    }
+    
+    /**
+     * 获取源序列长度
+     *
+     * @return 源序列长度
+     */
+    public int getSourceLength() {
+        return sourceLength;
+    }
+    
+    /**
+     * 获取目标序列长度
+     *
+     * @return 目标序列长度
+     */
+    public int getTargetLength() {
+        return targetLength;
+    }
+    
+    /**
+     * 获取保留的元素个数，即最长公共子序列长度
+     *
+     * @return 保留的元素个数
+     */
+    public int getKeepLength() {
+        return keepLength;
+    }
+    
+    /**
+     * 获取插入和删除的元素总数
+     *
+     * @return 插入和删除的元素总数
+     */
+    public int getDistance() {
+        return sourceLength + targetLength - 2 * keepLength;
+    }
+    
+    /**
+     * 判断源序列和目标序列是否相同
+     *
+     * @return 没有插入和删除时返回 true
+     */
+    public boolean isIdentical() {
+        return keepLength == sourceLength && keepLength == targetLength;
+    }
+    
+    @Override
+    public String toString() {
+        final StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i != 0) {
+                stringBuilder.append(' ');
+            }
+            stringBuilder.append("=+-".charAt(operations[i])).append(lengths[i]);
+        }
+        return stringBuilder.toString();
+    }
+    
+    /**
+     * 判断源序列和目标序列的两个元素是否相等
+     */
+    interface Equality {
+        boolean equals(int sourceIndex, int targetIndex);
+    }
+    
+    /**
+     * 使用 Myers O(ND) 线性空间算法计算编辑脚本。
+     * 每次在剩余区间上寻找中间蛇并二分，空间只与序列长度成线性关系。
+     *
+     * @param sourceLength 源序列长度
+     * @param targetLength 目标序列长度
+     * @param equality     元素相等判断
+     * @return 编辑脚本
+     */
+    static EditScript compute(int sourceLength, int targetLength, Equality equality) {
+        final Builder builder = new Builder(sourceLength, targetLength);
+        
+        final int maxD = (sourceLength + targetLength + 1) / 2;
+        final int[] forward = new int[2 * maxD + 2];
+        final int[] backward = new int[2 * maxD + 2];
+        
+        // 显式栈代替递归，每项为 { 源起始, 源终止, 目标起始, 目标终止 }。
+        // 源起始为 -1 时表示直接输出长度为源终止的保留片段。
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = sourceLength;
+        stack[top++] = 0;
+        stack[top++] = targetLength;
+        
+        while (top > 0) {
+            int targetEnd = stack[--top];
+            int targetBegin = stack[--top];
+            int sourceEnd = stack[--top];
+            int sourceBegin = stack[--top];
+            
+            if (sourceBegin == -1) {
+                builder.add(Operation.KEEP, sourceEnd);
+                continue;
+            }
+            
+            // 去除公共前缀和后缀
+            int prefix = 0;
+            while (sourceBegin + prefix < sourceEnd && targetBegin + prefix < targetEnd
+                && equality.equals(sourceBegin + prefix, targetBegin + prefix)) {
+                prefix++;
+            }
+            builder.add(Operation.KEEP, prefix);
+            sourceBegin += prefix;
+            targetBegin += prefix;
+            
+            int suffix = 0;
+            while (sourceBegin < sourceEnd - suffix && targetBegin < targetEnd - suffix
+                && equality.equals(sourceEnd - suffix - 1, targetEnd - suffix - 1)) {
+                suffix++;
+            }
+            sourceEnd -= suffix;
+            targetEnd -= suffix;
+            
+            if (sourceBegin == sourceEnd || targetBegin == targetEnd) {
+                builder.add(Operation.DELETE, sourceEnd - sourceBegin);
+                builder.add(Operation.INSERT, targetEnd - targetBegin);
+                builder.add(Operation.KEEP, suffix);
+                continue;
+            }
+            
+            final long split = bisect(sourceBegin, sourceEnd, targetBegin, targetEnd, equality, forward, backward);
+            final int splitSource = (int) (split >>> 32);
+            final int splitTarget = (int) split;
+            if (split == -1L
+                || (splitSource == sourceBegin && splitTarget == targetBegin)
+                || (splitSource == sourceEnd && splitTarget == targetEnd)) {
+                builder.add(Operation.DELETE, sourceEnd - sourceBegin);
+                builder.add(Operation.INSERT, targetEnd - targetBegin);
+                builder.add(Operation.KEEP, suffix);
+                continue;
+            }
+            
+            if (top + 12 > stack.length) {
+                stack = java.util.Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (suffix > 0) {
+                stack[top++] = -1;
+                stack[top++] = suffix;
+                stack[top++] = 0;
+                stack[top++] = 0;
+            }
+            stack[top++] = splitSource;
+            stack[top++] = sourceEnd;
+            stack[top++] = splitTarget;
+            stack[top++] = targetEnd;
+            stack[top++] = sourceBegin;
+            stack[top++] = splitSource;
+            stack[top++] = targetBegin;
+            stack[top++] = splitTarget;
+        }
+        
+        return builder.build();
+    }
+    
+    /**
+     * 同时从两端搜索，找到最短编辑路径上的分割点
+     *
+     * @return 分割点，高 32 位为源索引，低 32 位为目标索引。没有公共元素时返回 -1
+     */
+    private static long bisect(int sourceBegin, int sourceEnd, int targetBegin, int targetEnd,
+                               Equality equality, int[] forward, int[] backward) {
+        final int sourceLength = sourceEnd - sourceBegin;
+        final int targetLength = targetEnd - targetBegin;
+        final int maxD = (sourceLength + targetLength + 1) / 2;
+        final int offset = maxD;
+        final int vLength = 2 * maxD;
+        java.util.Arrays.fill(forward, 0, vLength, -1);
+        java.util.Arrays.fill(backward, 0, vLength, -1);
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+        
+        final int delta = sourceLength - targetLength;
+        final boolean front = (delta & 1) != 0;
+        int forwardStart = 0;
+        int forwardEnd = 0;
+        int backwardStart = 0;
+        int backwardEnd = 0;
+        
+        for (int d = 0; d < maxD; d++) {
+            for (int k = -d + forwardStart; k <= d - forwardEnd; k += 2) {
+                final int kOffset = offset + k;
+                int x = (k == -d || (k != d && forward[kOffset - 1] < forward[kOffset + 1]))
+                    ? forward[kOffset + 1]
+                    : forward[kOffset - 1] + 1;
+                int y = x - k;
+                while (x < sourceLength && y < targetLength && equality.equals(sourceBegin + x, targetBegin + y)) {
+                    x++;
+                    y++;
+                }
+                forward[kOffset] = x;
+                if (x > sourceLength) {
+                    forwardEnd += 2;
+                } else if (y > targetLength) {
+                    forwardStart += 2;
+                } else if (front) {
+                    final int backwardOffset = offset + delta - k;
+                    if (backwardOffset >= 0 && backwardOffset < vLength && backward[backwardOffset] != -1
+                        && x >= sourceLength - backward[backwardOffset]) {
+                        return ((long) (sourceBegin + x) << 32) | (targetBegin + y);
+                    }
+                }
+            }
+            
+            for (int k = -d + backwardStart; k <= d - backwardEnd; k += 2) {
+                final int kOffset = offset + k;
+                int x = (k == -d || (k != d && backward[kOffset - 1] < backward[kOffset + 1]))
+                    ? backward[kOffset + 1]
+                    : backward[kOffset - 1] + 1;
+                int y = x - k;
+                while (x < sourceLength && y < targetLength
+                    && equality.equals(sourceEnd - x - 1, targetEnd - y - 1)) {
+                    x++;
+                    y++;
+                }
+                backward[kOffset] = x;
+                if (x > sourceLength) {
+                    backwardEnd += 2;
+                } else if (y > targetLength) {
+                    backwardStart += 2;
+                } else if (!front) {
+                    final int forwardOffset = offset + delta - k;
+                    if (forwardOffset >= 0 && forwardOffset < vLength && forward[forwardOffset] != -1) {
+                        final int forwardX = forward[forwardOffset];
+                        final int forwardY = offset + forwardX - forwardOffset;
+                        if (forwardX >= sourceLength - x) {
+                            return ((long) (sourceBegin + forwardX) << 32) | (targetBegin + forwardY);
+                        }
+                    }
+                }
+            }
+        }
+        return -1L;
+    }
+    
+    /**
+     * 按顺序收集片段，并合并相邻的同类片段
+     */
+    private static final class Builder {
+        
+        private byte[] operations = new byte[16];
+        private int[] lengths = new int[16];
+        private int size;
+        
+        private final int sourceLength;
+        private final int targetLength;
+        
+        Builder(int sourceLength, int targetLength) {
+            this.sourceLength = sourceLength;
+            this.targetLength = targetLength;
+        }
+        
+        void add(Operation operation, int length) {
+            if (length == 0) {
+                return;
+            }
+            final byte ordinal = (byte) operation.ordinal();
+            
+            // 相邻的删除和插入统一为先删除后插入，便于合并
+            if (operation == Operation.DELETE && size > 0 && operations[size - 1] == Operation.INSERT.ordinal()) {
+                if (size > 1 && operations[size - 2] == ordinal) {
+                    lengths[size - 2] += length;
+                    return;
+                }
+                ensureCapacity();
+                operations[size] = operations[size - 1];
+                lengths[size] = lengths[size - 1];
+                operations[size - 1] = ordinal;
+                lengths[size - 1] = length;
+                size++;
+                return;
+            }
+            
+            if (size > 0 && operations[size - 1] == ordinal) {
+                lengths[size - 1] += length;
+                return;
+            }
+            ensureCapacity();
+            operations[size] = ordinal;
+            lengths[size] = length;
+            size++;
+        }
+        
+        private void ensureCapacity() {
+            if (size == operations.length) {
+                operations = java.util.Arrays.copyOf(operations, size * 2);
+                lengths = java.util.Arrays.copyOf(lengths, size * 2);
+            }
+        }
+        
+        EditScript build() {
+            final int[] sourceIndexes = new int[size];
+            final int[] targetIndexes = new int[size];
+            int sourceIndex = 0;
+            int targetIndex = 0;
+            int keepLength = 0;
+            for (int i = 0; i < size; i++) {
+                sourceIndexes[i] = sourceIndex;
+                targetIndexes[i] = targetIndex;
+                switch (OPERATIONS[operations[i]]) {
+                    case KEEP:
+                        sourceIndex += lengths[i];
+                        targetIndex += lengths[i];
+                        keepLength += lengths[i];
+                        break;
+                    case INSERT:
+                        targetIndex += lengths[i];
+                        break;
+                    case DELETE:
+                        sourceIndex += lengths[i];
+                        break;
+                    default:
+                        throw new IllegalStateException();
+                }
+            }
+            return new EditScript(java.util.Arrays.copyOf(operations, size), java.util.Arrays.copyOf(lengths, size),
+                sourceIndexes, targetIndexes, size, sourceLength, targetLength, keepLength);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+
+/**
+ * 字符串转义器，将字符序列的区间转义后直接写入目标，可以通过 {@link Joiner.Builder#escaper(Escaper)} 转义每个元素。
+ *
+ * @author Chuanwise
+ */
+@FunctionalInterface
+public interface Escaper {
+    
+    /**
+     * JSON 字符串转义，不包括两侧的引号
+     *
+     * @see Strings#escapeJson(CharSequence, int, int, Appendable)
+     */
+    Escaper JSON = Strings::escapeJson;
+    
+    /**
+     * HTML 文本和属性值转义
+     *
+     * @see Strings#escapeHtml(CharSequence, int, int, Appendable)
+     */
+    Escaper HTML = Strings::escapeHtml;
+    
+    /**
+     * RFC 4180 CSV 字段转义
+     *
+     * @see Strings#escapeCsv(CharSequence, int, int, Appendable)
+     */
+    Escaper CSV = Strings::escapeCsv;
+    
+    /**
+     * 转义字符序列的区间并写入目标
+     *
+     * @param string     字符序列
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex   结束索引（不包含）
+     * @param appendable 写入目标
+     * @throws IOException 写入出错
+     */
+    void escape(CharSequence string, int beginIndex, int endIndex, Appendable appendable) throws IOException;
+    
+    /**
+     * 转义字符序列并写入 StringBuilder
+     *
+     * @param string        字符序列
+     * @param stringBuilder 写入目标
+     * @return stringBuilder
+     */
+    default StringBuilder escape(CharSequence string, StringBuilder stringBuilder) {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(stringBuilder, "String builder is null!");
+        
+        try {
+            escape(string, 0, string.length(), stringBuilder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return stringBuilder;
+    }
+    
+    /**
+     * 转义字符序列
+     *
+     * @param string 字符序列
+     * @return 转义后的字符串
+     */
+    default String escape(CharSequence string) {
+        return escape(string, new StringBuilder(string.length() + 16)).toString();
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * 压缩的 FM 索引，通过 {@link SuffixArray#toFmIndex(int)} 构造。
+ * BWT 保存在小波矩阵中，每个字符只占 log2(字符种数) 位；后缀数组按间隔采样保存。
+ * 构造后不再需要原文本和完整的后缀数组，适合在内存有限时对大文本计数和定位。
+ *
+ * @author Chuanwise
+ */
+@SuppressWarnings("unused")
+public final class FmIndex {
+    
+    /**
+     * 文本中出现过的字符，升序排列。字符 alphabet[i] 的符号为 i + 1，符号 0 表示文本结尾
+     */
+    private final char[] alphabet;
+    
+    /**
+     * counts[c] 是文本（含结尾符号）中小于符号 c 的符号个数
+     */
+    private final int[] counts;
+    
+    private final WaveletMatrix bwt;
+    
+    /**
+     * 被采样的行
+     */
+    private final BitVector sampledRows;
+    
+    /**
+     * 被采样行的后缀起始位置，按行号排列
+     */
+    private final int[] samples;
+    
+    private final int sampleRate;
+    
+    private final int length;
+    
+    FmIndex(CharBuffer text, IntBuffer suffixes, int sampleRate) {
+        this.length = text.limit();
+        this.sampleRate = sampleRate;
+        
+        final boolean[] present = new boolean[Character.MAX_VALUE + 1];
+        for (int i = 0; i < length; i++) {
+            present[text.get(i)] = true;
+        }
+        int alphabetSize = 0;
+        for (boolean value : present) {
+            if (value) {
+                alphabetSize++;
+            }
+        }
+        this.alphabet = new char[alphabetSize];
+        for (int ch = 0, index = 0; ch < present.length; ch++) {
+            if (present[ch]) {
+                alphabet[index++] = (char) ch;
+            }
+        }
+        
+        // 第 0 行是只包含结尾符号的后缀，第 r 行是排名为 r - 1 的后缀
+        final int rows = length + 1;
+        final int[] symbols = new int[rows];
+        final int[] occurrences = new int[alphabetSize + 2];
+        sampledRows = new BitVector(rows);
+        int sampleCount = 0;
+        for (int row = 0; row < rows; row++) {
+            final int position = row == 0 ? length : suffixes.get(row - 1);
+            symbols[row] = position == 0 ? 0 : symbol(text.get(position - 1));
+            occurrences[symbols[row] + 1]++;
+            if (position % sampleRate == 0) {
+                sampledRows.set(row);
+                sampleCount++;
+            }
+        }
+        sampledRows.build();
+        
+        this.counts = occurrences;
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        this.samples = new int[sampleCount];
+        for (int row = 0, index = 0; row < rows; row++) {
+            final int position = row == 0 ? length : suffixes.get(row - 1);
+            if (position % sampleRate == 0) {
+                samples[index++] = position;
+            }
+        }
+        this.bwt = new WaveletMatrix(symbols, alphabetSize);
+    }
+    
+    /**
+     * @return 字符对应的符号，不在文本中出现时返回 0
+     */
+    private int symbol(char ch) {
+        final int index = java.util.Arrays.binarySearch(alphabet, ch);
+        return index < 0 ? 0 : index + 1;
+    }
+    
+    /**
+     * 后向搜索模式串
+     *
+     * @return 匹配的行区间 [begin, end)，没有匹配时 begin >= end
+     */
+    private long search(CharSequence pattern) {
+        int begin = 0;
+        int end = length + 1;
+        for (int i = pattern.length() - 1; i >= 0 && begin < end; i--) {
+            final int symbol = symbol(pattern.charAt(i));
+            if (symbol == 0) {
+                return 0;
+            }
+            begin = counts[symbol] + bwt.rank(symbol, begin);
+            end = counts[symbol] + bwt.rank(symbol, end);
+        }
+        return begin < end ? (long) begin << 32 | end : 0;
+    }
+    
+    /**
+     * 统计模式串在文本中出现的次数，出现位置可以重叠
+     *
+     * @param pattern 模式串
+     * @return 出现次数
+     */
+    public int count(CharSequence pattern) {
+        Preconditions.checkNotNull(pattern, "Pattern is null!");
+        Preconditions.checkArgument(pattern.length() > 0, "Pattern is empty!");
+        
+        final long range = search(pattern);
+        return (int) range - (int) (range >>> 32);
+    }
+    
+    /**
+     * 判断文本是否包含模式串
+     *
+     * @param pattern 模式串
+     * @return 是否包含
+     */
+    public boolean contains(CharSequence pattern) {
+        return count(pattern) > 0;
+    }
+    
+    /**
+     * 寻找模式串在文本中的全部出现位置。
+     * 每个位置需要沿 LF 映射回溯到最近的采样行，平均步数为采样间隔的一半。
+     *
+     * @param pattern 模式串
+     * @return 升序排列的出现位置
+     */
+    public int[] locate(CharSequence pattern) {
+        Preconditions.checkNotNull(pattern, "Pattern is null!");
+        Preconditions.checkArgument(pattern.length() > 0, "Pattern is empty!");
+        
+        final long range = search(pattern);
+        final int begin = (int) (range >>> 32);
+        final int end = (int) range;
+        final int[] positions = new int[end - begin];
+        for (int row = begin; row < end; row++) {
+            int current = row;
+            int steps = 0;
+            while (!sampledRows.get(current)) {
+                final int symbol = bwt.access(current);
+                current = counts[symbol] + bwt.rank(symbol, current);
+                steps++;
+            }
+            positions[row - begin] = samples[sampledRows.rank(current)] + steps;
+        }
+        java.util.Arrays.sort(positions);
+        return positions;
+    }
+    
+    /**
+     * 获取文本长度
+     *
+     * @return 文本长度
+     */
+    public int length() {
+        return length;
+    }
+    
+    /**
+     * 获取后缀数组的采样间隔
+     *
+     * @return 采样间隔
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+    
+    /**
+     * 支持 rank 查询的位向量，每 512 位保存一个累计计数
+     */
+    private static final class BitVector {
+        private final long[] words;
+        private int[] blocks;
+        
+        BitVector(int length) {
+            this.words = new long[(length + 63) >>> 6];
+        }
+        
+        void set(int index) {
+            words[index >>> 6] |= 1L << index;
+        }
+        
+        boolean get(int index) {
+            return (words[index >>> 6] & 1L << index) != 0;
+        }
+        
+        void build() {
+            blocks = new int[(words.length >>> 3) + 1];
+            for (int block = 1; block < blocks.length; block++) {
+                int count = blocks[block - 1];
+                for (int word = (block - 1) << 3; word < block << 3; word++) {
+                    count += Long.bitCount(words[word]);
+                }
+                blocks[block] = count;
+            }
+        }
+        
+        /**
+         * @return [0, index) 中 1 的个数
+         */
+        int rank(int index) {
+            final int word = index >>> 6;
+            int count = blocks[word >>> 3];
+            for (int i = word & ~7; i < word; i++) {
+                count += Long.bitCount(words[i]);
+            }
+            if ((index & 63) != 0) {
+                count += Long.bitCount(words[word] & (1L << index) - 1);
+            }
+            return count;
+        }
+    }
+    
+    /**
+     * 小波矩阵，支持在 O(log 符号种数) 时间内访问和计数
+     */
+    private static final class WaveletMatrix {
+        private final BitVector[] levels;
+        private final int[] zeros;
+        
+        WaveletMatrix(int[] values, int maxValue) {
+            final int levelCount = Math.max(1, 32 - Integer.numberOfLeadingZeros(maxValue));
+            this.levels = new BitVector[levelCount];
+            this.zeros = new int[levelCount];
+            
+            int[] current = values.clone();
+            int[] next = new int[values.length];
+            for (int level = 0; level < levelCount; level++) {
+                final int shift = levelCount - 1 - level;
+                final BitVector bits = new BitVector(values.length);
+                int zeroCount = 0;
+                for (int i = 0; i < current.length; i++) {
+                    if ((current[i] >>> shift & 1) == 0) {
+                        zeroCount++;
+                    } else {
+                        bits.set(i);
+                    }
+                }
+                bits.build();
+                levels[level] = bits;
+                zeros[level] = zeroCount;
+                
+                // 稳定划分：0 在前，1 在后
+                int zeroIndex = 0;
+                int oneIndex = zeroCount;
+                for (int value : current) {
+                    if ((value >>> shift & 1) == 0) {
+                        next[zeroIndex++] = value;
+                    } else {
+                        next[oneIndex++] = value;
+                    }
+                }
+                final int[] swap = current;
+                current = next;
+                next = swap;
+            }
+        }
+        
+        int access(int index) {
+            int value = 0;
+            for (int level = 0; level < levels.length; level++) {
+                final BitVector bits = levels[level];
+                if (bits.get(index)) {
+                    value = value << 1 | 1;
+                    index = zeros[level] + bits.rank(index);
+                } else {
+                    value <<= 1;
+                    index = index - bits.rank(index);
+                }
+            }
+            return value;
+        }
+        
+        /**
+         * @return [0, index) 中 value 的个数
+         */
+        int rank(int value, int index) {
+            int begin = 0;
+            for (int level = 0; level < levels.length; level++) {
+                final BitVector bits = levels[level];
+                if ((value >>> (levels.length - 1 - level) & 1) != 0) {
+                    begin = zeros[level] + bits.rank(begin);
+                    index = zeros[level] + bits.rank(index);
+                } else {
+                    begin = begin - bits.rank(begin);
+                    index = index - bits.rank(index);
+                }
+            }
+            return index - begin;
+        }
+    }
+}
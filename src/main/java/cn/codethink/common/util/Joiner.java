@@ -18,11 +18,19 @@ package cn.codethink.common.util;
 
 import com.google.common.base.Preconditions;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collector;
 
 /**
- * 用于拼接字符串的 joiner
+ * 用于拼接字符串的 joiner。前缀在创建时就写入缓存，合并时后缀追加到同一缓存中，
+ * 因此 {@link #join()} 只需一次复制得到最终字符串，{@link #joinTo(Appendable)} 则不产生字符串。
  *
  * @author Chuanwise
  */
@@ -50,15 +58,25 @@ public class Joiner {
     private final String emptyString;
     
     /**
-     * 字符串缓存
+     * 字符串缓存，总是以前缀开头
      */
     private final StringBuilder stringBuilder = new StringBuilder();
     
+    /**
+     * 元素数量已知时，为每个元素预留的字符数
+     */
+    private static final int ESTIMATED_ELEMENT_LENGTH = 8;
+    
     /**
      * 元素可空
      */
     private final boolean nullable;
     
+    /**
+     * 元素转义器，为 null 时不转义
+     */
+    private final Escaper escaper;
+    
     /**
      * Joiner 的构造器
      */
@@ -74,6 +92,8 @@ public class Joiner {
         
         protected boolean nullable;
         
+        protected Escaper escaper;
+        
         Builder() {
         }
         
@@ -115,9 +135,210 @@ public class Joiner {
             return this;
         }
         
+        /**
+         * 设置元素转义器。前缀、后缀和分隔符不会被转义
+         *
+         * @param escaper 转义器，为 null 时不转义
+         * @return 构造器
+         */
+        public Builder escaper(Escaper escaper) {
+            this.escaper = escaper;
+            
+            return this;
+        }
+        
         public Joiner build() {
-            return new Joiner(prefix, suffix, delimiter, emptyString, nullable);
+            return new Joiner(prefix, suffix, delimiter, emptyString, nullable, escaper);
+        }
+        
+        /**
+         * 构造使用当前配置的 joiner 池
+         *
+         * @param maxRetainedCapacity 归还时保留的最大缓存容量，超过时缓存被收缩
+         * @return joiner 池
+         */
+        public Pool buildPool(int maxRetainedCapacity) {
+            Preconditions.checkArgument(maxRetainedCapacity >= 0, "Max retained capacity must be greater than or equals to 0!");
+            
+            return new Pool(prefix, suffix, delimiter, emptyString, nullable, escaper, maxRetainedCapacity);
+        }
+        
+        /**
+         * 构造使用当前配置的 joiner 池，归还时最多保留 {@link Pool#DEFAULT_MAX_RETAINED_CAPACITY} 个字符的缓存
+         *
+         * @return joiner 池
+         */
+        public Pool buildPool() {
+            return buildPool(Pool.DEFAULT_MAX_RETAINED_CAPACITY);
+        }
+        
+        /**
+         * 构造使用当前配置拼接流元素的收集器，适用于并行流。
+         * 和 joiner 不同，收集器在每两个元素之间都写入分隔符，没有元素时返回空字符串。
+         *
+         * @param function 元素转化为字符序列的方法
+         * @param <T>      元素类型
+         * @return 收集器
+         */
+        public <T> Collector<T, ?, String> buildCollector(Function<? super T, ? extends CharSequence> function) {
+            Preconditions.checkNotNull(function, "Function is null!");
+            
+            return new JoiningCollector<>(prefix, suffix, delimiter, emptyString, nullable, escaper, function);
+        }
+        
+        /**
+         * 构造使用当前配置拼接字符序列的收集器，适用于并行流
+         *
+         * @return 收集器
+         * @see #buildCollector(Function)
+         */
+        public Collector<CharSequence, ?, String> buildCollector() {
+            return buildCollector(Function.identity());
+        }
+        
+        /**
+         * 构造使用当前配置、可以被多个线程同时添加元素的 joiner
+         *
+         * @param ordered 是否按添加顺序拼接。为 false 时顺序不确定，但吞吐量更高
+         * @return 并发 joiner
+         */
+        public ConcurrentJoiner buildConcurrent(boolean ordered) {
+            return new ConcurrentJoiner(prefix, suffix, delimiter, emptyString, nullable, escaper, ordered);
+        }
+        
+        /**
+         * 构造使用当前配置、直接拼接为 UTF-8 字节的 joiner
+         *
+         * @return UTF-8 joiner
+         */
+        public Utf8Joiner buildUtf8() {
+            return new Utf8Joiner(prefix, suffix, delimiter, emptyString, nullable, escaper);
+        }
+    }
+    
+    /**
+     * 线程本地的 joiner 池。每个线程缓存一个配置相同的 joiner，
+     * 借出期间在同一线程上再次借用（例如元素的 toString 中又拼接了字符串）时创建新的 joiner，
+     * 因此可以安全地嵌套使用。归还时缓存容量超过上限的 joiner 会被收缩，避免长期占用大块内存。
+     * 虚拟线程各自持有独立的槽，每个槽占用的内存同样受上限约束。
+     */
+    public static class Pool {
+        
+        /**
+         * 默认归还时保留的最大缓存容量
+         */
+        public static final int DEFAULT_MAX_RETAINED_CAPACITY = 8192;
+        
+        private final String prefix;
+        
+        private final String suffix;
+        
+        private final String delimiter;
+        
+        private final String emptyString;
+        
+        private final boolean nullable;
+        
+        private final Escaper escaper;
+        
+        private final int maxRetainedCapacity;
+        
+        /**
+         * 每个线程空闲的 joiner，借出时置空
+         */
+        private final ThreadLocal<Joiner[]> idle = ThreadLocal.withInitial(() -> new Joiner[1]);
+        
+        Pool(String prefix, String suffix, String delimiter, String emptyString,
+             boolean nullable, Escaper escaper, int maxRetainedCapacity) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.delimiter = delimiter;
+            this.emptyString = emptyString;
+            this.nullable = nullable;
+            this.escaper = escaper;
+            this.maxRetainedCapacity = maxRetainedCapacity;
+        }
+        
+        /**
+         * 借出一个空的 joiner，用完后应通过 {@link #release(Joiner)} 归还
+         *
+         * @return joiner
+         */
+        public Joiner acquire() {
+            final Joiner[] slot = idle.get();
+            final Joiner joiner = slot[0];
+            if (joiner != null) {
+                slot[0] = null;
+                return joiner;
+            }
+            return new Joiner(prefix, suffix, delimiter, emptyString, nullable, escaper);
+        }
+        
+        /**
+         * 清空并归还 joiner。归还后不应再使用它
+         *
+         * @param joiner joiner
+         */
+        public void release(Joiner joiner) {
+            Preconditions.checkNotNull(joiner, "Joiner is null!");
+            
+            joiner.reset(maxRetainedCapacity);
+            final Joiner[] slot = idle.get();
+            if (slot[0] == null) {
+                slot[0] = joiner;
+            }
+        }
+        
+        /**
+         * 借出 joiner 添加元素并合并结果，之后自动归还
+         *
+         * @param action 添加元素的操作
+         * @return 合并后的结果
+         */
+        public String join(Consumer<Joiner> action) {
+            Preconditions.checkNotNull(action, "Action is null!");
+            
+            final Joiner joiner = acquire();
+            try {
+                action.accept(joiner);
+                return joiner.join();
+            } finally {
+                release(joiner);
+            }
+        }
+        
+        public int getMaxRetainedCapacity() {
+            return maxRetainedCapacity;
+        }
+    }
+    
+    /**
+     * 共享池的数量上限，超过后不再为新的分隔符创建共享池
+     */
+    private static final int MAX_SHARED_POOLS = 64;
+    
+    /**
+     * 按分隔符共享的默认配置 joiner 池
+     */
+    private static final Map<String, Pool> SHARED_POOLS = new ConcurrentHashMap<>();
+    
+    /**
+     * 获取使用指定分隔符、其余配置为默认值的共享 joiner 池
+     *
+     * @param delimiter 分隔符
+     * @return joiner 池
+     */
+    public static Pool pool(String delimiter) {
+        Preconditions.checkNotNull(delimiter, "Delimiter is null!");
+        
+        final Pool pool = SHARED_POOLS.get(delimiter);
+        if (pool != null) {
+            return pool;
         }
+        if (SHARED_POOLS.size() >= MAX_SHARED_POOLS) {
+            return builder().delimiter(delimiter).buildPool();
+        }
+        return SHARED_POOLS.computeIfAbsent(delimiter, x -> builder().delimiter(x).buildPool());
     }
     
     public static Builder builder() {
@@ -130,12 +351,60 @@ public class Joiner {
     }
     
     public Joiner(String prefix, String suffix, String delimiter, String emptyString, boolean nullable) {
+        this(prefix, suffix, delimiter, emptyString, nullable, null);
+    }
+    
+    public Joiner(String prefix, String suffix, String delimiter, String emptyString, boolean nullable, Escaper escaper) {
+        Preconditions.checkNotNull(prefix, "Prefix is null!");
+        Preconditions.checkNotNull(suffix, "Suffix is null!");
+        Preconditions.checkNotNull(delimiter, "Delimiter is null!");
+        Preconditions.checkNotNull(emptyString, "Empty string is null!");
         
         this.prefix = prefix;
         this.suffix = suffix;
         this.delimiter = delimiter;
         this.emptyString = emptyString;
         this.nullable = nullable;
+        this.escaper = escaper;
+        
+        stringBuilder.append(prefix);
+    }
+    
+    /**
+     * 是否还没有写入任何内容
+     */
+    private boolean isContentEmpty() {
+        return stringBuilder.length() == prefix.length();
+    }
+    
+    /**
+     * 在即将添加已知数量的元素前预留缓存，减少扩容时的复制
+     *
+     * @param count 元素数量
+     */
+    private void presize(int count) {
+        final long capacity = (long) stringBuilder.length() + suffix.length()
+            + (long) count * (delimiter.length() + ESTIMATED_ELEMENT_LENGTH);
+        if (capacity > stringBuilder.capacity() && capacity <= Strings.MAX_ARRAY_LENGTH) {
+            stringBuilder.ensureCapacity((int) capacity);
+        }
+    }
+    
+    /**
+     * 写入元素，设置了转义器时直接转义到缓存中
+     *
+     * @param string 元素
+     */
+    private void write(String string) {
+        if (escaper == null || string == null) {
+            stringBuilder.append(string);
+            return;
+        }
+        try {
+            escaper.escape(string, 0, string.length(), stringBuilder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
     }
     
     /**
@@ -147,10 +416,10 @@ public class Joiner {
     public Joiner plus(String string) {
         Preconditions.checkArgument(nullable || Objects.nonNull(string), "String isn't nullable, but got null!");
     
-        if (stringBuilder.length() != 0) {
+        if (!isContentEmpty()) {
             stringBuilder.append(delimiter);
         }
-        stringBuilder.append(string);
+        write(string);
         
         return this;
     }
@@ -166,14 +435,135 @@ public class Joiner {
         Preconditions.checkArgument(nullable || Objects.nonNull(element), "Element isn't nullable, but got null!");
         Preconditions.checkNotNull(function, "Function is null!");
     
-        if (stringBuilder.length() != 0) {
+        if (!isContentEmpty()) {
             stringBuilder.append(delimiter);
         }
-        stringBuilder.append(function.apply(element));
+        write(function.apply(element));
     
         return this;
     }
     
+    /**
+     * 添加一个整数，直接写入缓存
+     *
+     * @param value 整数
+     * @return this
+     */
+    public Joiner plus(int value) {
+        if (escaper != null) {
+            return plus(String.valueOf(value));
+        }
+        if (!isContentEmpty()) {
+            stringBuilder.append(delimiter);
+        }
+        stringBuilder.append(value);
+        
+        return this;
+    }
+    
+    /**
+     * 添加一个长整数，直接写入缓存
+     *
+     * @param value 长整数
+     * @return this
+     */
+    public Joiner plus(long value) {
+        if (escaper != null) {
+            return plus(String.valueOf(value));
+        }
+        if (!isContentEmpty()) {
+            stringBuilder.append(delimiter);
+        }
+        stringBuilder.append(value);
+        
+        return this;
+    }
+    
+    /**
+     * 添加一个浮点数，直接写入缓存
+     *
+     * @param value 浮点数
+     * @return this
+     */
+    public Joiner plus(double value) {
+        if (escaper != null) {
+            return plus(String.valueOf(value));
+        }
+        if (!isContentEmpty()) {
+            stringBuilder.append(delimiter);
+        }
+        stringBuilder.append(value);
+        
+        return this;
+    }
+    
+    /**
+     * 通过写入器添加一个元素，元素直接写入缓存而不创建临时字符串。
+     * 设置了转义器时，写入的内容会被转义。
+     *
+     * @param element  元素
+     * @param appender 写入器
+     * @return this
+     */
+    public <T> Joiner append(T element, Appender<? super T> appender) {
+        Preconditions.checkArgument(nullable || Objects.nonNull(element), "Element isn't nullable, but got null!");
+        Preconditions.checkNotNull(appender, "Appender is null!");
+        
+        if (!isContentEmpty()) {
+            stringBuilder.append(delimiter);
+        }
+        if (escaper == null) {
+            appender.append(element, stringBuilder);
+            return this;
+        }
+        
+        final int length = stringBuilder.length();
+        appender.append(element, stringBuilder);
+        final String string = stringBuilder.substring(length);
+        stringBuilder.setLength(length);
+        write(string);
+        
+        return this;
+    }
+    
+    /**
+     * 通过写入器添加若干元素
+     *
+     * @param elements 元素
+     * @param appender 写入器
+     * @return this
+     */
+    public <T> Joiner appendAll(T[] elements, Appender<? super T> appender) {
+        Preconditions.checkNotNull(elements, "Elements are null!");
+        Preconditions.checkNotNull(appender, "Appender is null!");
+        
+        presize(elements.length);
+        for (T element : elements) {
+            append(element, appender);
+        }
+        return this;
+    }
+    
+    /**
+     * 通过写入器添加若干元素
+     *
+     * @param iterable 元素
+     * @param appender 写入器
+     * @return this
+     */
+    public <T> Joiner appendAll(Iterable<T> iterable, Appender<? super T> appender) {
+        Preconditions.checkNotNull(iterable, "Iterable is null!");
+        Preconditions.checkNotNull(appender, "Appender is null!");
+        
+        if (iterable instanceof Collection) {
+            presize(((Collection<?>) iterable).size());
+        }
+        for (T element : iterable) {
+            append(element, appender);
+        }
+        return this;
+    }
+    
     /**
      * 添加若干元素
      *
@@ -185,6 +575,7 @@ public class Joiner {
         Preconditions.checkNotNull(elements, "Elements are null!");
         Preconditions.checkNotNull(function, "Function is null!");
     
+        presize(elements.length);
         for (T element : elements) {
             plus(element, function);
         }
@@ -212,6 +603,7 @@ public class Joiner {
         Preconditions.checkNotNull(chars, "Chars are null!");
         Preconditions.checkNotNull(function, "Function is null!");
     
+        presize(chars.length);
         for (char element : chars) {
             plus(element, function);
         }
@@ -229,6 +621,7 @@ public class Joiner {
         Preconditions.checkNotNull(bytes, "Bytes are null!");
         Preconditions.checkNotNull(function, "Function is null!");
     
+        presize(bytes.length);
         for (byte element : bytes) {
             plus(element, function);
         }
@@ -246,6 +639,7 @@ public class Joiner {
         Preconditions.checkNotNull(booleans, "Booleans are null!");
         Preconditions.checkNotNull(function, "Function is null!");
     
+        presize(booleans.length);
         for (boolean element : booleans) {
             plus(element, function);
         }
@@ -263,6 +657,7 @@ public class Joiner {
         Preconditions.checkNotNull(shorts, "Shorts are null!");
         Preconditions.checkNotNull(function, "Function is null!");
     
+        presize(shorts.length);
         for (short element : shorts) {
             plus(element, function);
         }
@@ -280,12 +675,29 @@ public class Joiner {
         Preconditions.checkNotNull(integers, "Integers are null!");
         Preconditions.checkNotNull(function, "Function is null!");
     
+        presize(integers.length);
         for (int element : integers) {
             plus(element, function);
         }
         return this;
     }
     
+    /**
+     * 添加若干整数，直接写入缓存
+     *
+     * @param integers 元素
+     * @return this
+     */
+    public Joiner plusAll(int[] integers) {
+        Preconditions.checkNotNull(integers, "Integers are null!");
+        
+        presize(integers.length);
+        for (int element : integers) {
+            plus(element);
+        }
+        return this;
+    }
+    
     /**
      * 添加若干元素
      *
@@ -297,12 +709,29 @@ public class Joiner {
         Preconditions.checkNotNull(longs, "Longs are null!");
         Preconditions.checkNotNull(function, "Function is null!");
     
+        presize(longs.length);
         for (long element : longs) {
             plus(element, function);
         }
         return this;
     }
     
+    /**
+     * 添加若干长整数，直接写入缓存
+     *
+     * @param longs 元素
+     * @return this
+     */
+    public Joiner plusAll(long[] longs) {
+        Preconditions.checkNotNull(longs, "Longs are null!");
+        
+        presize(longs.length);
+        for (long element : longs) {
+            plus(element);
+        }
+        return this;
+    }
+    
     /**
      * 添加若干元素
      *
@@ -314,6 +743,7 @@ public class Joiner {
         Preconditions.checkNotNull(floats, "Floats are null!");
         Preconditions.checkNotNull(function, "Function is null!");
     
+        presize(floats.length);
         for (float element : floats) {
             plus(element, function);
         }
@@ -331,12 +761,29 @@ public class Joiner {
         Preconditions.checkNotNull(doubles, "Doubles are null!");
         Preconditions.checkNotNull(function, "Function is null!");
     
+        presize(doubles.length);
         for (double element : doubles) {
             plus(element, function);
         }
         return this;
     }
     
+    /**
+     * 添加若干浮点数，直接写入缓存
+     *
+     * @param doubles 元素
+     * @return this
+     */
+    public Joiner plusAll(double[] doubles) {
+        Preconditions.checkNotNull(doubles, "Doubles are null!");
+        
+        presize(doubles.length);
+        for (double element : doubles) {
+            plus(element);
+        }
+        return this;
+    }
+    
     /**
      * 添加若干元素
      *
@@ -348,6 +795,9 @@ public class Joiner {
         Preconditions.checkNotNull(iterable, "Iterable is null!");
         Preconditions.checkNotNull(function, "Function is null!");
     
+        if (iterable instanceof Collection) {
+            presize(((Collection<?>) iterable).size());
+        }
         iterable.forEach(x -> plus(x, function));
         return this;
     }
@@ -364,6 +814,34 @@ public class Joiner {
         return plusAll(iterable, Objects::toString);
     }
     
+    /**
+     * 清空已添加的元素，保留缓存容量以便复用
+     *
+     * @return this
+     */
+    public Joiner reset() {
+        stringBuilder.setLength(prefix.length());
+        
+        return this;
+    }
+    
+    /**
+     * 清空已添加的元素，缓存容量超过上限时收缩缓存
+     *
+     * @param maxRetainedCapacity 保留的最大缓存容量
+     * @return this
+     */
+    public Joiner reset(int maxRetainedCapacity) {
+        Preconditions.checkArgument(maxRetainedCapacity >= 0, "Max retained capacity must be greater than or equals to 0!");
+        
+        stringBuilder.setLength(prefix.length());
+        if (stringBuilder.capacity() > maxRetainedCapacity) {
+            stringBuilder.trimToSize();
+        }
+        
+        return this;
+    }
+    
     /**
      * 合并结果
      *
@@ -373,11 +851,61 @@ public class Joiner {
     public String join(String emptyString) {
         Preconditions.checkNotNull(emptyString, "Empty string is null!");
     
-        if (stringBuilder.length() == 0) {
+        if (isContentEmpty()) {
             return emptyString;
         }
         
-        return prefix + stringBuilder + suffix;
+        final int length = stringBuilder.length();
+        stringBuilder.append(suffix);
+        final String string = stringBuilder.toString();
+        stringBuilder.setLength(length);
+        return string;
+    }
+    
+    /**
+     * 将结果直接写入目标，不创建中间字符串
+     *
+     * @param appendable  写入目标
+     * @param emptyString 内容为空时写入的字符串
+     * @param <A>         写入目标类型
+     * @return 写入目标
+     * @throws IOException 写入出错
+     */
+    public <A extends Appendable> A joinTo(A appendable, String emptyString) throws IOException {
+        Preconditions.checkNotNull(appendable, "Appendable is null!");
+        Preconditions.checkNotNull(emptyString, "Empty string is null!");
+        
+        if (isContentEmpty()) {
+            appendable.append(emptyString);
+            return appendable;
+        }
+        
+        if (appendable instanceof Writer) {
+            final Writer writer = (Writer) appendable;
+            final int length = stringBuilder.length();
+            final char[] chunk = new char[Math.min(length, Strings.REPEAT_CHUNK_LENGTH)];
+            for (int i = 0; i < length; i += chunk.length) {
+                final int count = Math.min(chunk.length, length - i);
+                stringBuilder.getChars(i, i + count, chunk, 0);
+                writer.write(chunk, 0, count);
+            }
+            writer.write(suffix);
+        } else {
+            appendable.append(stringBuilder).append(suffix);
+        }
+        return appendable;
+    }
+    
+    /**
+     * 将结果直接写入目标，不创建中间字符串
+     *
+     * @param appendable 写入目标
+     * @param <A>        写入目标类型
+     * @return 写入目标
+     * @throws IOException 写入出错
+     */
+    public <A extends Appendable> A joinTo(A appendable) throws IOException {
+        return joinTo(appendable, emptyString);
     }
     
     /**
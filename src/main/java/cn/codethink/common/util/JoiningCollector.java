@@ -0,0 +1,176 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * 使用 {@link Joiner} 配置拼接流元素的收集器，可用于并行流。
+ * 每个子任务写入自己的片段，合并时只链接片段链表而不复制内容，
+ * 结束时按精确长度一次性拼接所有片段。
+ *
+ * @param <T> 元素类型
+ * @author Chuanwise
+ * @see Joiner.Builder#buildCollector(Function)
+ */
+class JoiningCollector<T> implements Collector<T, JoiningCollector.Chain, String> {
+    
+    /**
+     * 片段，保存一个子任务写入的元素
+     */
+    static class Segment {
+        
+        final StringBuilder stringBuilder = new StringBuilder();
+        
+        int count;
+        
+        Segment next;
+    }
+    
+    /**
+     * 片段链表
+     */
+    static class Chain {
+        
+        Segment head;
+        
+        Segment tail;
+        
+        Chain() {
+            head = tail = new Segment();
+        }
+    }
+    
+    private final String prefix;
+    
+    private final String suffix;
+    
+    private final String delimiter;
+    
+    private final String emptyString;
+    
+    private final boolean nullable;
+    
+    private final Escaper escaper;
+    
+    private final Function<? super T, ? extends CharSequence> function;
+    
+    JoiningCollector(String prefix, String suffix, String delimiter, String emptyString,
+                     boolean nullable, Escaper escaper, Function<? super T, ? extends CharSequence> function) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.delimiter = delimiter;
+        this.emptyString = emptyString;
+        this.nullable = nullable;
+        this.escaper = escaper;
+        this.function = function;
+    }
+    
+    @Override
+    public Supplier<Chain> supplier() {
+        return Chain::new;
+    }
+    
+    @Override
+    public BiConsumer<Chain, T> accumulator() {
+        return this::accumulate;
+    }
+    
+    @Override
+    public BinaryOperator<Chain> combiner() {
+        return JoiningCollector::combine;
+    }
+    
+    @Override
+    public Function<Chain, String> finisher() {
+        return this::finish;
+    }
+    
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Collections.emptySet();
+    }
+    
+    private void accumulate(Chain chain, T element) {
+        Preconditions.checkArgument(nullable || Objects.nonNull(element), "Element isn't nullable, but got null!");
+        
+        final Segment segment = chain.tail;
+        if (segment.count != 0) {
+            segment.stringBuilder.append(delimiter);
+        }
+        segment.count++;
+        
+        final CharSequence string = function.apply(element);
+        if (escaper == null || string == null) {
+            segment.stringBuilder.append(string);
+        } else {
+            escaper.escape(string, segment.stringBuilder);
+        }
+    }
+    
+    private static Chain combine(Chain left, Chain right) {
+        left.tail.next = right.head;
+        left.tail = right.tail;
+        return left;
+    }
+    
+    private String finish(Chain chain) {
+        long length = prefix.length() + suffix.length();
+        int segments = 0;
+        Segment single = null;
+        for (Segment segment = chain.head; segment != null; segment = segment.next) {
+            if (segment.count != 0) {
+                length += segment.stringBuilder.length();
+                segments++;
+                single = segment;
+            }
+        }
+        if (segments == 0) {
+            return emptyString;
+        }
+        length += (long) delimiter.length() * (segments - 1);
+        Preconditions.checkArgument(length <= Strings.MAX_ARRAY_LENGTH,
+            "Joined string length %s exceeds the max array length %s!", length, Strings.MAX_ARRAY_LENGTH);
+        
+        // 顺序流只有一个片段，直接在其后追加后缀
+        if (segments == 1 && prefix.isEmpty()) {
+            return single.stringBuilder.append(suffix).toString();
+        }
+        
+        final StringBuilder stringBuilder = new StringBuilder((int) length).append(prefix);
+        boolean first = true;
+        for (Segment segment = chain.head; segment != null; segment = segment.next) {
+            if (segment.count != 0) {
+                if (!first) {
+                    stringBuilder.append(delimiter);
+                }
+                stringBuilder.append(segment.stringBuilder);
+                first = false;
+            }
+        }
+        return stringBuilder.append(suffix).toString();
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 不使用正则表达式的字符串分割器。
+ * 分隔符是一个字符集，使用 {@link Strings#indexOfIncludedCharacter(CharSequence, java.util.Set, int, int, int)}
+ * 寻找分隔符，使用 {@link Strings#indexOfExcluded(CharSequence, java.util.Set, int, int, int)} 去除首尾空白。
+ * 分割结果是原字符串的 {@link CharSlice} 视图，并且按需惰性计算。
+ *
+ * @author Chuanwise
+ */
+@SuppressWarnings("unused")
+public class Splitter {
+    
+    /**
+     * 分隔符
+     */
+    private final CharacterSet delimiters;
+    
+    /**
+     * 需要从每一段首尾去除的字符，为 null 时不去除
+     */
+    private final CharacterSet trimCharacters;
+    
+    /**
+     * 是否忽略空字符串
+     */
+    private final boolean omitEmptyStrings;
+    
+    /**
+     * 最多分割出的段数，0 表示不限制。达到限制时，最后一段包含剩余的全部内容
+     */
+    private final int limit;
+    
+    /**
+     * 引号，为 null 时不处理引号
+     */
+    private final CharacterSet quote;
+    
+    private final char quoteCharacter;
+    
+    /**
+     * 分割回调，每一段只传递区间，不分配对象
+     */
+    @FunctionalInterface
+    public interface TokenConsumer {
+        
+        /**
+         * 处理一段内容
+         *
+         * @param string     被分割的字符串
+         * @param beginIndex 起始索引（包含）
+         * @param endIndex   结束索引（不包含）
+         */
+        void accept(CharSequence string, int beginIndex, int endIndex);
+    }
+    
+    /**
+     * Splitter 的构造器
+     */
+    public static class Builder {
+        
+        protected CharacterSet delimiters = CharacterSet.of(',');
+        
+        protected CharacterSet trimCharacters;
+        
+        protected boolean omitEmptyStrings;
+        
+        protected int limit;
+        
+        protected Character quote;
+        
+        Builder() {
+        }
+        
+        public Builder delimiters(CharSequence delimiters) {
+            Preconditions.checkNotNull(delimiters, "Delimiters are null!");
+            Preconditions.checkArgument(delimiters.length() > 0, "Delimiters are empty!");
+            
+            this.delimiters = CharacterSet.of(delimiters);
+            
+            return this;
+        }
+        
+        public Builder delimiter(char delimiter) {
+            this.delimiters = CharacterSet.of(delimiter);
+            
+            return this;
+        }
+        
+        public Builder trimWhitespaces() {
+            this.trimCharacters = CharacterSet.WHITESPACES;
+            
+            return this;
+        }
+        
+        public Builder trimCharacters(CharSequence trimCharacters) {
+            Preconditions.checkNotNull(trimCharacters, "Trim characters are null!");
+            
+            this.trimCharacters = trimCharacters.length() == 0 ? null : CharacterSet.of(trimCharacters);
+            
+            return this;
+        }
+        
+        public Builder omitEmptyStrings(boolean omitEmptyStrings) {
+            this.omitEmptyStrings = omitEmptyStrings;
+            
+            return this;
+        }
+        
+        public Builder limit(int limit) {
+            Preconditions.checkArgument(limit >= 0, "Limit must be greater than or equals to 0!");
+            
+            this.limit = limit;
+            
+            return this;
+        }
+        
+        public Builder quote(char quote) {
+            this.quote = quote;
+            
+            return this;
+        }
+        
+        public Splitter build() {
+            Preconditions.checkState(quote == null || !delimiters.contains(quote.charValue()), "Quote can not be a delimiter!");
+            
+            return new Splitter(delimiters, trimCharacters, omitEmptyStrings, limit, quote);
+        }
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * 构造使用给定分隔符的分割器
+     *
+     * @param delimiters 分隔符
+     * @return 分割器
+     */
+    public static Splitter on(CharSequence delimiters) {
+        return builder().delimiters(delimiters).build();
+    }
+    
+    private Splitter(CharacterSet delimiters, CharacterSet trimCharacters, boolean omitEmptyStrings, int limit, Character quote) {
+        this.delimiters = delimiters;
+        this.trimCharacters = trimCharacters == null ? null : minus(trimCharacters, delimiters);
+        this.omitEmptyStrings = omitEmptyStrings;
+        this.limit = limit;
+        this.quote = quote == null ? null : CharacterSet.of(quote);
+        this.quoteCharacter = quote == null ? 0 : quote;
+    }
+    
+    /**
+     * 去除首尾时不能越过分隔符，因此从需要去除的字符中排除分隔符
+     */
+    private static CharacterSet minus(CharacterSet characters, CharacterSet excluded) {
+        final StringBuilder stringBuilder = new StringBuilder(characters.size());
+        for (Character character : characters) {
+            if (!excluded.contains(character.charValue())) {
+                stringBuilder.append(character.charValue());
+            }
+        }
+        return stringBuilder.length() == characters.size() ? characters : CharacterSet.of(stringBuilder);
+    }
+    
+    /**
+     * 惰性分割字符串。
+     * 每一段是原字符串的切片。被引号包围的段不包含引号；若其中含有转义的引号（两个连续的引号），
+     * 则该段会被复制为去除转义后的 String。
+     *
+     * @param string 字符串
+     * @return 分割结果。遍历到右引号之后、下一个分隔符之前有其他内容的段时，抛出 {@link IllegalArgumentException}
+     */
+    public Iterable<CharSequence> split(CharSequence string) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        return () -> new TokenIterator(string);
+    }
+    
+    /**
+     * 分割字符串并把每一段复制到列表中
+     *
+     * @param string 字符串
+     * @return 分割结果
+     */
+    public List<String> splitToList(CharSequence string) {
+        final List<String> list = new ArrayList<>();
+        for (CharSequence token : split(string)) {
+            list.add(token.toString());
+        }
+        return list;
+    }
+    
+    /**
+     * 分割字符串，把每一段的区间交给回调。该方法不会为每一段分配对象。
+     * 被引号包围的段只传递引号内的区间，其中转义的引号保持原样。
+     *
+     * @param string   字符串
+     * @param consumer 回调
+     * @return 段数
+     * @throws IllegalArgumentException 右引号之后、下一个分隔符之前有其他内容
+     */
+    public int split(CharSequence string, TokenConsumer consumer) {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(consumer, "Consumer is null!");
+        
+        final Cursor cursor = new Cursor(string);
+        while (cursor.next()) {
+            consumer.accept(cursor.string, cursor.tokenBegin, cursor.tokenEnd);
+        }
+        return cursor.count;
+    }
+    
+    /**
+     * 分割过程中的位置
+     */
+    private final class Cursor {
+        
+        final CharSequence string;
+        final int length;
+        int position;
+        boolean finished;
+        int count;
+        
+        int tokenBegin;
+        int tokenEnd;
+        boolean escapedQuote;
+        
+        Cursor(CharSequence string) {
+            this.string = string;
+            this.length = string.length();
+        }
+        
+        boolean next() {
+            while (!finished) {
+                int begin = position;
+                if (trimCharacters != null) {
+                    begin = Strings.indexOfExcluded(string, trimCharacters, begin, length, length);
+                }
+                escapedQuote = false;
+                
+                if (limit > 0 && count == limit - 1) {
+                    tokenBegin = begin;
+                    tokenEnd = trimEnd(begin, length);
+                    finished = true;
+                } else if (quote != null && begin < length && string.charAt(begin) == quoteCharacter) {
+                    nextQuoted(begin);
+                } else {
+                    final int delimiter = Strings.indexOfIncludedCharacter(string, delimiters, begin, length, -1);
+                    final int end = delimiter == -1 ? length : delimiter;
+                    tokenBegin = begin;
+                    tokenEnd = trimEnd(begin, end);
+                    if (delimiter == -1) {
+                        finished = true;
+                    } else {
+                        position = delimiter + 1;
+                    }
+                }
+                
+                if (omitEmptyStrings && tokenBegin == tokenEnd) {
+                    continue;
+                }
+                count++;
+                return true;
+            }
+            return false;
+        }
+        
+        private void nextQuoted(int begin) {
+            tokenBegin = begin + 1;
+            int index = tokenBegin;
+            while (true) {
+                final int closing = Strings.indexOfIncludedCharacter(string, quote, index, length, -1);
+                if (closing == -1) {
+                    // 引号没有闭合，剩余内容都属于这一段
+                    tokenEnd = length;
+                    finished = true;
+                    return;
+                }
+                if (closing + 1 < length && string.charAt(closing + 1) == quoteCharacter) {
+                    escapedQuote = true;
+                    index = closing + 2;
+                    continue;
+                }
+                
+                tokenEnd = closing;
+                int next = closing + 1;
+                if (trimCharacters != null) {
+                    next = Strings.indexOfExcluded(string, trimCharacters, next, length, length);
+                }
+                // 和 unescapeCsv 一致，右引号之后只能是分隔符或结尾
+                Preconditions.checkArgument(next == length || delimiters.contains(string.charAt(next)),
+                    "Unexpected character after closing quote at index %s!", next);
+                if (next == length) {
+                    finished = true;
+                } else {
+                    position = next + 1;
+                }
+                return;
+            }
+        }
+        
+        private int trimEnd(int begin, int end) {
+            if (trimCharacters == null || begin == end) {
+                return end;
+            }
+            return Strings.lastIndexOfExcluded(string, trimCharacters, begin, end, begin - 1) + 1;
+        }
+        
+        CharSequence token(CharSlice slice) {
+            if (!escapedQuote) {
+                return slice.subSequence(tokenBegin, tokenEnd);
+            }
+            final StringBuilder stringBuilder = new StringBuilder(tokenEnd - tokenBegin);
+            for (int i = tokenBegin; i < tokenEnd; i++) {
+                final char ch = string.charAt(i);
+                stringBuilder.append(ch);
+                if (ch == quoteCharacter) {
+                    i++;
+                }
+            }
+            return stringBuilder.toString();
+        }
+    }
+    
+    private final class TokenIterator implements Iterator<CharSequence> {
+        
+        private final Cursor cursor;
+        private final CharSlice slice;
+        private boolean ready;
+        
+        TokenIterator(CharSequence string) {
+            this.cursor = new Cursor(string);
+            this.slice = CharSlice.of(string);
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (!ready) {
+                ready = cursor.next();
+            }
+            return ready;
+        }
+        
+        @Override
+        public CharSequence next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return cursor.token(slice);
+        }
+    }
+}
@@ -0,0 +1,733 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Set;
+
+/**
+ * 紧凑的字符串存储区，用于在内存中保存大量短字符串。
+ * 字符串被依次写入若干个大的 byte[] 页中，只包含 Latin-1 字符的字符串每个字符占 1 字节，
+ * 其余字符串每个字符占 2 字节，前面是记录长度和编码的变长头部。
+ * 写入后返回 long 类型的句柄，高 32 位是页号，低 32 位是页内偏移。
+ * 可以直接在句柄上计算哈希、比较、搜索字符和最长公共子序列，不需要创建 {@link String}。
+ * <p>
+ * 句柄只做范围校验：页号、偏移或解析出的内容超出已写入范围时抛出 {@link IllegalArgumentException}。
+ * 存储区不记录字符串的起始位置，因此指向某个字符串内部的句柄无法识别，会把内部的字节当作头部解析，
+ * 得到的内容没有意义，但读取不会越过已写入的范围。
+ * <p>
+ * 存储区不是线程安全的。写入完成后，多个线程可以并发读取。
+ *
+ * @author Chuanwise
+ */
+@SuppressWarnings("unused")
+public class StringArena {
+    
+    /**
+     * 表示不存在的句柄
+     */
+    public static final long NO_HANDLE = -1;
+    
+    private byte[][] pages = new byte[4][];
+    
+    /**
+     * 每一页已写入的字节数，用于校验句柄
+     */
+    private int[] pageLimits = new int[4];
+    
+    private int pageCount;
+    
+    /**
+     * 当前写入的页
+     */
+    private int currentPage = -1;
+    
+    /**
+     * 当前页的写入位置
+     */
+    private int position;
+    
+    private final int pageSize;
+    
+    /**
+     * 分配结果的页号，仅在 {@link #allocate(int)} 后有效
+     */
+    private int pageIndexOfAllocation;
+    
+    /**
+     * 分配结果的页内偏移，仅在 {@link #allocate(int)} 后有效
+     */
+    private int offsetOfAllocation;
+    
+    /**
+     * 去重表，保存句柄 + 1，0 表示空槽。不去重时为 null
+     */
+    private long[] table;
+    
+    private int size;
+    
+    private long usedBytes;
+    
+    private long allocatedBytes;
+    
+    /**
+     * StringArena 的构造器
+     */
+    public static class Builder {
+        
+        protected int pageSize = 1 << 20;
+        
+        protected boolean deduplicate;
+        
+        Builder() {
+        }
+        
+        public Builder pageSize(int pageSize) {
+            Preconditions.checkArgument(pageSize >= 16, "Page size must be greater than or equals to 16!");
+            
+            this.pageSize = pageSize;
+            
+            return this;
+        }
+        
+        public Builder deduplicate(boolean deduplicate) {
+            this.deduplicate = deduplicate;
+            
+            return this;
+        }
+        
+        public StringArena build() {
+            return new StringArena(pageSize, deduplicate);
+        }
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    @SuppressWarnings("all")
+    public static StringArena newInstance() {
+        return builder().build();
+    }
+    
+    public StringArena(int pageSize, boolean deduplicate) {
+        Preconditions.checkArgument(pageSize >= 16, "Page size must be greater than or equals to 16!");
+        
+        this.pageSize = pageSize;
+        this.table = deduplicate ? new long[64] : null;
+    }
+    
+    /**
+     * 写入字符串
+     *
+     * @param charSequence 字符序列
+     * @return 句柄。去重时若已存在相同内容的字符串，返回已有的句柄
+     */
+    public long add(CharSequence charSequence) {
+        Preconditions.checkNotNull(charSequence, "Char sequence is null!");
+        
+        final int length = charSequence.length();
+        boolean latin1 = true;
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            final char ch = charSequence.charAt(i);
+            latin1 &= ch < 256;
+            hash = 31 * hash + ch;
+        }
+        
+        if (table != null) {
+            final long handle = find(charSequence, hash);
+            if (handle != NO_HANDLE) {
+                return handle;
+            }
+        }
+        
+        final long header = (long) length << 1 | (latin1 ? 0 : 1);
+        final int headerLength = headerLength(header);
+        final long totalLength = headerLength + (latin1 ? (long) length : 2L * length);
+        Preconditions.checkArgument(totalLength <= Integer.MAX_VALUE - 8, "String is too long!");
+        
+        final byte[] page = allocate((int) totalLength);
+        final long handle = (long) pageIndexOfAllocation << 32 | offsetOfAllocation;
+        int index = writeHeader(page, offsetOfAllocation, header);
+        if (latin1) {
+            for (int i = 0; i < length; i++) {
+                page[index++] = (byte) charSequence.charAt(i);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                final char ch = charSequence.charAt(i);
+                page[index++] = (byte) (ch >>> 8);
+                page[index++] = (byte) ch;
+            }
+        }
+        size++;
+        usedBytes += totalLength;
+        
+        if (table != null) {
+            insert(handle, hash);
+        }
+        return handle;
+    }
+    
+    private byte[] allocate(int length) {
+        if (length > pageSize) {
+            // 超过页大小的字符串独占一页，不影响当前页的写入
+            final byte[] page = new byte[length];
+            pageIndexOfAllocation = addPage(page);
+            offsetOfAllocation = 0;
+            pageLimits[pageIndexOfAllocation] = length;
+            return page;
+        }
+        if (currentPage < 0 || position + length > pageSize) {
+            currentPage = addPage(new byte[pageSize]);
+            position = 0;
+        }
+        pageIndexOfAllocation = currentPage;
+        offsetOfAllocation = position;
+        position += length;
+        pageLimits[currentPage] = position;
+        return pages[currentPage];
+    }
+    
+    private int addPage(byte[] page) {
+        if (pageCount == pages.length) {
+            pages = java.util.Arrays.copyOf(pages, pages.length * 2);
+            pageLimits = java.util.Arrays.copyOf(pageLimits, pageLimits.length * 2);
+        }
+        pages[pageCount] = page;
+        allocatedBytes += page.length;
+        return pageCount++;
+    }
+    
+    private static int headerLength(long header) {
+        int length = 1;
+        while ((header >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+    
+    private static int writeHeader(byte[] page, int index, long header) {
+        while ((header & ~0x7FL) != 0) {
+            page[index++] = (byte) (header & 0x7F | 0x80);
+            header >>>= 7;
+        }
+        page[index++] = (byte) header;
+        return index;
+    }
+    
+    /**
+     * 校验句柄并解析头部，不分配对象
+     *
+     * @return 头部左移 4 位后与头部字节数的组合
+     */
+    private long decode(long handle) {
+        final int pageIndex = (int) (handle >>> 32);
+        final int offset = (int) handle;
+        Preconditions.checkArgument(handle >= 0 && pageIndex < pageCount && offset >= 0 && offset < pageLimits[pageIndex],
+            "Invalid handle: %s", handle);
+        
+        // 头部和内容都必须落在页内已写入的范围中。指向字符串内部的句柄只要满足这一点就无法识别
+        final byte[] page = pages[pageIndex];
+        final int limit = pageLimits[pageIndex];
+        int index = offset;
+        long header = 0;
+        int shift = 0;
+        byte b;
+        do {
+            Preconditions.checkArgument(index < limit && shift < 64, "Invalid handle: %s", handle);
+            b = page[index++];
+            header |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        
+        final long length = header >>> 1;
+        final boolean latin1 = (header & 1) == 0;
+        Preconditions.checkArgument(length <= (latin1 ? limit - index : (limit - index) / 2), "Invalid handle: %s", handle);
+        return header << 4 | (index - offset);
+    }
+    
+    /**
+     * 解析后的句柄，供需要反复访问字符的方法使用
+     */
+    private final class Entry {
+        final byte[] page;
+        final int start;
+        final int length;
+        final boolean latin1;
+        
+        Entry(long handle) {
+            final long decoded = decode(handle);
+            this.page = pages[(int) (handle >>> 32)];
+            this.start = (int) handle + (int) (decoded & 0xF);
+            this.length = (int) (decoded >>> 5);
+            this.latin1 = (decoded & 0x10) == 0;
+        }
+        
+        char charAt(int index) {
+            if (latin1) {
+                return (char) (page[start + index] & 0xFF);
+            }
+            final int position = start + 2 * index;
+            return (char) ((page[position] & 0xFF) << 8 | page[position + 1] & 0xFF);
+        }
+    }
+    
+    /**
+     * 获取句柄对应字符串的长度
+     *
+     * @param handle 句柄
+     * @return 长度
+     */
+    public int length(long handle) {
+        return (int) (decode(handle) >>> 5);
+    }
+    
+    /**
+     * 获取句柄对应字符串中的字符
+     *
+     * @param handle 句柄
+     * @param index  索引
+     * @return 字符
+     */
+    public char charAt(long handle, int index) {
+        final long decoded = decode(handle);
+        Preconditions.checkElementIndex(index, (int) (decoded >>> 5));
+        
+        final byte[] page = pages[(int) (handle >>> 32)];
+        final int start = (int) handle + (int) (decoded & 0xF);
+        if ((decoded & 0x10) == 0) {
+            return (char) (page[start + index] & 0xFF);
+        }
+        final int position = start + 2 * index;
+        return (char) ((page[position] & 0xFF) << 8 | page[position + 1] & 0xFF);
+    }
+    
+    /**
+     * 计算句柄对应字符串的哈希值，与 {@link String#hashCode()} 相同
+     *
+     * @param handle 句柄
+     * @return 哈希值
+     */
+    public int hashCode(long handle) {
+        final Entry entry = new Entry(handle);
+        int hash = 0;
+        for (int i = 0; i < entry.length; i++) {
+            hash = 31 * hash + entry.charAt(i);
+        }
+        return hash;
+    }
+    
+    /**
+     * 判断 2 个句柄对应的字符串内容是否相同
+     *
+     * @param handle1 句柄1
+     * @param handle2 句柄2
+     * @return 是否相同
+     */
+    public boolean equals(long handle1, long handle2) {
+        if (handle1 == handle2) {
+            return true;
+        }
+        final Entry entry1 = new Entry(handle1);
+        final Entry entry2 = new Entry(handle2);
+        if (entry1.length != entry2.length || entry1.latin1 != entry2.latin1) {
+            // 编码由内容决定，编码不同的字符串内容必然不同
+            return false;
+        }
+        final int byteLength = entry1.latin1 ? entry1.length : 2 * entry1.length;
+        for (int i = 0; i < byteLength; i++) {
+            if (entry1.page[entry1.start + i] != entry2.page[entry2.start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 判断句柄对应的字符串与字符序列的内容是否相同
+     *
+     * @param handle       句柄
+     * @param charSequence 字符序列
+     * @return 是否相同
+     */
+    public boolean contentEquals(long handle, CharSequence charSequence) {
+        Preconditions.checkNotNull(charSequence, "Char sequence is null!");
+        
+        return contentEquals(new Entry(handle), charSequence);
+    }
+    
+    private static boolean contentEquals(Entry entry, CharSequence charSequence) {
+        if (entry.length != charSequence.length()) {
+            return false;
+        }
+        for (int i = 0; i < entry.length; i++) {
+            if (entry.charAt(i) != charSequence.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 按字典序比较 2 个句柄对应的字符串，结果与 {@link String#compareTo(String)} 的符号相同
+     *
+     * @param handle1 句柄1
+     * @param handle2 句柄2
+     * @return 比较结果
+     */
+    public int compare(long handle1, long handle2) {
+        if (handle1 == handle2) {
+            return 0;
+        }
+        final Entry entry1 = new Entry(handle1);
+        final Entry entry2 = new Entry(handle2);
+        final int length = Math.min(entry1.length, entry2.length);
+        if (entry1.latin1 && entry2.latin1) {
+            for (int i = 0; i < length; i++) {
+                final int b1 = entry1.page[entry1.start + i] & 0xFF;
+                final int b2 = entry2.page[entry2.start + i] & 0xFF;
+                if (b1 != b2) {
+                    return b1 - b2;
+                }
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                final char ch1 = entry1.charAt(i);
+                final char ch2 = entry2.charAt(i);
+                if (ch1 != ch2) {
+                    return ch1 - ch2;
+                }
+            }
+        }
+        return entry1.length - entry2.length;
+    }
+    
+    /**
+     * 寻找句柄对应的字符串中第一个出现的，位于字符集合中的字符
+     *
+     * @param handle       句柄
+     * @param characters   字符集
+     * @param beginIndex   起始索引
+     * @param defaultIndex 默认索引
+     * @return 找到时返回其索引，否则返回默认索引
+     */
+    public int indexOfIncludedCharacter(long handle, Set<Character> characters, int beginIndex, int defaultIndex) {
+        return indexOfCharacter(handle, characters, beginIndex, defaultIndex, true, false);
+    }
+    
+    /**
+     * 寻找句柄对应的字符串中第一个出现的，不位于字符集合中的字符
+     *
+     * @param handle       句柄
+     * @param characters   字符集
+     * @param beginIndex   起始索引
+     * @param defaultIndex 默认索引
+     * @return 找到时返回其索引，否则返回默认索引
+     */
+    public int indexOfExcluded(long handle, Set<Character> characters, int beginIndex, int defaultIndex) {
+        return indexOfCharacter(handle, characters, beginIndex, defaultIndex, false, false);
+    }
+    
+    /**
+     * 寻找句柄对应的字符串中最后一个出现的，位于字符集合中的字符
+     *
+     * @param handle       句柄
+     * @param characters   字符集
+     * @param beginIndex   起始索引
+     * @param defaultIndex 默认索引
+     * @return 在起始索引后找到时返回其索引，否则返回默认索引
+     */
+    public int lastIndexOfIncludedCharacter(long handle, Set<Character> characters, int beginIndex, int defaultIndex) {
+        return indexOfCharacter(handle, characters, beginIndex, defaultIndex, true, true);
+    }
+    
+    /**
+     * 寻找句柄对应的字符串中最后一个出现的，不位于字符集合中的字符
+     *
+     * @param handle       句柄
+     * @param characters   字符集
+     * @param beginIndex   起始索引
+     * @param defaultIndex 默认索引
+     * @return 在起始索引后找到时返回其索引，否则返回默认索引
+     */
+    public int lastIndexOfExcluded(long handle, Set<Character> characters, int beginIndex, int defaultIndex) {
+        return indexOfCharacter(handle, characters, beginIndex, defaultIndex, false, true);
+    }
+    
+    private int indexOfCharacter(long handle, Set<Character> characters, int beginIndex, int defaultIndex,
+                                 boolean included, boolean backward) {
+        Preconditions.checkNotNull(characters, "Characters are null!");
+        
+        final Entry entry = new Entry(handle);
+        Preconditions.checkPositionIndex(beginIndex, entry.length, "Begin index");
+        
+        final CharacterSet characterSet = characters instanceof CharacterSet
+            ? (CharacterSet) characters
+            : CharacterSet.copyOf(characters);
+        if (backward) {
+            for (int i = entry.length - 1; i >= beginIndex; i--) {
+                if (characterSet.contains(entry.charAt(i)) == included) {
+                    return i;
+                }
+            }
+        } else {
+            for (int i = beginIndex; i < entry.length; i++) {
+                if (characterSet.contains(entry.charAt(i)) == included) {
+                    return i;
+                }
+            }
+        }
+        return defaultIndex;
+    }
+    
+    /**
+     * 计算 2 个句柄对应字符串的最长公共子序列长度
+     *
+     * @param handle1 句柄1
+     * @param handle2 句柄2
+     * @return 最长公共子序列长度
+     */
+    public int longestCommonSubsequenceLength(long handle1, long handle2) {
+        final Entry entry1 = new Entry(handle1);
+        final Entry entry2 = new Entry(handle2);
+        
+        int[] previous = new int[entry2.length + 1];
+        int[] current = new int[entry2.length + 1];
+        for (int i = 0; i < entry1.length; i++) {
+            final char ch = entry1.charAt(i);
+            for (int j = 0; j < entry2.length; j++) {
+                current[j + 1] = ch == entry2.charAt(j)
+                    ? previous[j] + 1
+                    : Math.max(previous[j + 1], current[j]);
+            }
+            final int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[entry2.length];
+    }
+    
+    /**
+     * 将句柄对应的字符串复制到字符数组中
+     *
+     * @param handle           句柄
+     * @param destination      目标数组
+     * @param destinationIndex 目标数组中的起始索引
+     * @return 复制的字符数
+     */
+    public int getChars(long handle, char[] destination, int destinationIndex) {
+        Preconditions.checkNotNull(destination, "Destination is null!");
+        
+        final Entry entry = new Entry(handle);
+        Preconditions.checkPositionIndexes(destinationIndex, destinationIndex + entry.length, destination.length);
+        
+        for (int i = 0; i < entry.length; i++) {
+            destination[destinationIndex + i] = entry.charAt(i);
+        }
+        return entry.length;
+    }
+    
+    /**
+     * 获取句柄对应字符串的视图。视图不复制字符，可以直接交给 {@link Strings} 中的搜索方法。
+     *
+     * @param handle 句柄
+     * @return 字符序列视图
+     */
+    public CharSequence view(long handle) {
+        final Entry entry = new Entry(handle);
+        return new View(entry, 0, entry.length);
+    }
+    
+    /**
+     * 创建句柄对应的字符串
+     *
+     * @param handle 句柄
+     * @return 字符串
+     */
+    public String toString(long handle) {
+        final Entry entry = new Entry(handle);
+        if (entry.latin1) {
+            final char[] chars = new char[entry.length];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) (entry.page[entry.start + i] & 0xFF);
+            }
+            return new String(chars);
+        }
+        return new View(entry, 0, entry.length).toString();
+    }
+    
+    private static final class View implements CharSequence {
+        private final Entry entry;
+        private final int beginIndex;
+        private final int endIndex;
+        
+        View(Entry entry, int beginIndex, int endIndex) {
+            this.entry = entry;
+            this.beginIndex = beginIndex;
+            this.endIndex = endIndex;
+        }
+        
+        @Override
+        public int length() {
+            return endIndex - beginIndex;
+        }
+        
+        @Override
+        public char charAt(int index) {
+            Preconditions.checkElementIndex(index, endIndex - beginIndex);
+            
+            return entry.charAt(beginIndex + index);
+        }
+        
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            Preconditions.checkPositionIndexes(start, end, endIndex - beginIndex);
+            
+            return new View(entry, beginIndex + start, beginIndex + end);
+        }
+        
+        @Override
+        public String toString() {
+            final char[] chars = new char[endIndex - beginIndex];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = entry.charAt(beginIndex + i);
+            }
+            return new String(chars);
+        }
+    }
+    
+    /**
+     * 寻找内容相同的字符串，仅在去重时可用
+     *
+     * @param charSequence 字符序列
+     * @return 句柄，不存在时返回 {@link #NO_HANDLE}
+     * @throws IllegalStateException 存储区不去重
+     */
+    public long find(CharSequence charSequence) {
+        Preconditions.checkNotNull(charSequence, "Char sequence is null!");
+        Preconditions.checkState(table != null, "String arena is not deduplicated!");
+        
+        int hash = 0;
+        for (int i = 0; i < charSequence.length(); i++) {
+            hash = 31 * hash + charSequence.charAt(i);
+        }
+        return find(charSequence, hash);
+    }
+    
+    private long find(CharSequence charSequence, int hash) {
+        final int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            final long handle = table[slot] - 1;
+            if (contentEquals(new Entry(handle), charSequence)) {
+                return handle;
+            }
+        }
+        return NO_HANDLE;
+    }
+    
+    private void insert(long handle, int hash) {
+        if (2 * size > table.length) {
+            final long[] oldTable = table;
+            table = new long[oldTable.length * 2];
+            for (long value : oldTable) {
+                if (value != 0) {
+                    put(value, hashCode(value - 1));
+                }
+            }
+        }
+        put(handle + 1, hash);
+    }
+    
+    private void put(long value, int hash) {
+        final int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+    }
+    
+    private static int mix(int hash) {
+        final int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+    
+    /**
+     * 清空存储区，之前的句柄全部失效
+     */
+    public void clear() {
+        pages = new byte[4][];
+        pageLimits = new int[4];
+        pageCount = 0;
+        currentPage = -1;
+        position = 0;
+        size = 0;
+        usedBytes = 0;
+        allocatedBytes = 0;
+        if (table != null) {
+            table = new long[64];
+        }
+    }
+    
+    /**
+     * 获取写入的字符串个数，去重时不包括重复的字符串
+     *
+     * @return 字符串个数
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * 获取字符串实际占用的字节数，包括头部
+     *
+     * @return 字节数
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+    
+    /**
+     * 获取已分配的页的总字节数
+     *
+     * @return 字节数
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+    
+    /**
+     * 获取页大小
+     *
+     * @return 页大小
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+    
+    /**
+     * 判断是否去重
+     *
+     * @return 是否去重
+     */
+    public boolean isDeduplicated() {
+        return table != null;
+    }
+}
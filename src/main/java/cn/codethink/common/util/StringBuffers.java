@@ -41,7 +41,8 @@ public class StringBuffers {
     }
     
     /**
-     * 取出 StringBuffer 中的值，并清空。
+     * 取出 StringBuffer 中的值，并清空。取出和清空之间其他线程的追加不会丢失。
+     * 多线程频繁追加时可以使用 {@link ConcurrentStringBuffer}。
      *
      * @param stringBuffer StringBuffer
      * @return stringBuffer 中的内容
@@ -49,8 +50,10 @@ public class StringBuffers {
     public static String toStringAndClear(StringBuffer stringBuffer) {
         Preconditions.checkNotNull(stringBuffer, "String buffer is null!");
     
-        final String string = stringBuffer.toString();
-        stringBuffer.setLength(0);
-        return string;
+        synchronized (stringBuffer) {
+            final String string = stringBuffer.toString();
+            stringBuffer.setLength(0);
+            return string;
+        }
     }
 }
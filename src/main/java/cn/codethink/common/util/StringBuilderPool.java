@@ -0,0 +1,247 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程本地的 StringBuilder 池。每个线程最多缓存若干个 StringBuilder，
+ * 同一线程可以嵌套借用（例如渲染参数的 toString 中又借用了 StringBuilder）。
+ * 归还时容量超过上限的 StringBuilder 会被丢弃，避免一次很长的拼接之后长期占用大块内存。
+ * 虚拟线程同样各自缓存，每个线程占用的内存不超过缓存数量和容量上限的乘积。
+ *
+ * @author Chuanwise
+ * @see StringBuilders#acquire()
+ */
+@SuppressWarnings("unused")
+public class StringBuilderPool {
+    
+    /**
+     * 一个线程缓存的 StringBuilder
+     */
+    private static class Slots {
+        
+        final StringBuilder[] stringBuilders;
+        
+        int size;
+        
+        Slots(int capacity) {
+            this.stringBuilders = new StringBuilder[capacity];
+        }
+    }
+    
+    private final int initialCapacity;
+    
+    private final int maxRetainedCapacity;
+    
+    private final int maxPooledPerThread;
+    
+    private final ThreadLocal<Slots> slots;
+    
+    private final LongAdder hitCount = new LongAdder();
+    
+    private final LongAdder missCount = new LongAdder();
+    
+    private final LongAdder oversizeDropCount = new LongAdder();
+    
+    /**
+     * StringBuilderPool 的构造器
+     */
+    public static class Builder {
+        
+        protected int initialCapacity = 256;
+        
+        protected int maxRetainedCapacity = 8192;
+        
+        protected int maxPooledPerThread = 4;
+        
+        Builder() {
+        }
+        
+        /**
+         * 设置新建 StringBuilder 的初始容量
+         *
+         * @param initialCapacity 初始容量
+         * @return 构造器
+         */
+        public Builder initialCapacity(int initialCapacity) {
+            Preconditions.checkArgument(initialCapacity >= 0, "Initial capacity must be greater than or equals to 0!");
+            
+            this.initialCapacity = initialCapacity;
+            
+            return this;
+        }
+        
+        /**
+         * 设置归还时保留的最大容量，超过时丢弃
+         *
+         * @param maxRetainedCapacity 最大容量
+         * @return 构造器
+         */
+        public Builder maxRetainedCapacity(int maxRetainedCapacity) {
+            Preconditions.checkArgument(maxRetainedCapacity >= 0, "Max retained capacity must be greater than or equals to 0!");
+            
+            this.maxRetainedCapacity = maxRetainedCapacity;
+            
+            return this;
+        }
+        
+        /**
+         * 设置每个线程最多缓存的 StringBuilder 数量
+         *
+         * @param maxPooledPerThread 数量
+         * @return 构造器
+         */
+        public Builder maxPooledPerThread(int maxPooledPerThread) {
+            Preconditions.checkArgument(maxPooledPerThread > 0, "Max pooled per thread must be greater than 0!");
+            
+            this.maxPooledPerThread = maxPooledPerThread;
+            
+            return this;
+        }
+        
+        public StringBuilderPool build() {
+            Preconditions.checkArgument(initialCapacity <= maxRetainedCapacity,
+                "Initial capacity %s must be less than or equals to max retained capacity %s!", initialCapacity, maxRetainedCapacity);
+            
+            return new StringBuilderPool(initialCapacity, maxRetainedCapacity, maxPooledPerThread);
+        }
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    @SuppressWarnings("all")
+    public static StringBuilderPool newInstance() {
+        return builder().build();
+    }
+    
+    public StringBuilderPool(int initialCapacity, int maxRetainedCapacity, int maxPooledPerThread) {
+        Preconditions.checkArgument(initialCapacity >= 0, "Initial capacity must be greater than or equals to 0!");
+        Preconditions.checkArgument(maxRetainedCapacity >= 0, "Max retained capacity must be greater than or equals to 0!");
+        Preconditions.checkArgument(maxPooledPerThread > 0, "Max pooled per thread must be greater than 0!");
+        
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+        this.maxPooledPerThread = maxPooledPerThread;
+        this.slots = ThreadLocal.withInitial(() -> new Slots(maxPooledPerThread));
+    }
+    
+    /**
+     * 借出一个空的 StringBuilder，用完后应通过 {@link #release(StringBuilder)} 归还
+     *
+     * @return StringBuilder
+     */
+    public StringBuilder acquire() {
+        final Slots slots = this.slots.get();
+        if (slots.size != 0) {
+            final int index = --slots.size;
+            final StringBuilder stringBuilder = slots.stringBuilders[index];
+            slots.stringBuilders[index] = null;
+            hitCount.increment();
+            return stringBuilder;
+        }
+        missCount.increment();
+        return new StringBuilder(initialCapacity);
+    }
+    
+    /**
+     * 清空并归还 StringBuilder。容量超过上限或当前线程的缓存已满时丢弃，归还后不应再使用它
+     *
+     * @param stringBuilder StringBuilder
+     */
+    public void release(StringBuilder stringBuilder) {
+        Preconditions.checkNotNull(stringBuilder, "String builder is null!");
+        
+        stringBuilder.setLength(0);
+        if (stringBuilder.capacity() > maxRetainedCapacity) {
+            oversizeDropCount.increment();
+            return;
+        }
+        final Slots slots = this.slots.get();
+        if (slots.size < slots.stringBuilders.length) {
+            slots.stringBuilders[slots.size++] = stringBuilder;
+        }
+    }
+    
+    /**
+     * 取出 StringBuilder 中的值并归还
+     *
+     * @param stringBuilder StringBuilder
+     * @return stringBuilder 中的内容
+     */
+    public String toStringAndRelease(StringBuilder stringBuilder) {
+        Preconditions.checkNotNull(stringBuilder, "String builder is null!");
+        
+        final String string = stringBuilder.toString();
+        release(stringBuilder);
+        return string;
+    }
+    
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+    
+    public int getMaxRetainedCapacity() {
+        return maxRetainedCapacity;
+    }
+    
+    public int getMaxPooledPerThread() {
+        return maxPooledPerThread;
+    }
+    
+    /**
+     * 获取借出时命中缓存的次数
+     *
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+    
+    /**
+     * 获取借出时新建 StringBuilder 的次数
+     *
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+    
+    /**
+     * 获取归还时因容量超过上限而丢弃的次数
+     *
+     * @return 丢弃次数
+     */
+    public long getOversizeDropCount() {
+        return oversizeDropCount.sum();
+    }
+    
+    /**
+     * 获取命中率
+     *
+     * @return 命中次数占借出次数的比例，没有借出时返回 0
+     */
+    public double getHitRate() {
+        final long hits = hitCount.sum();
+        final long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
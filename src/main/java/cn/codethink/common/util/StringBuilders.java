@@ -26,6 +26,12 @@ import java.util.Objects;
  * @author Chuanwise
  */
 public class StringBuilders {
+    
+    /**
+     * 共享的 StringBuilder 池
+     */
+    private static final StringBuilderPool POOL = StringBuilderPool.newInstance();
+    
     private StringBuilders() {
         Throwables.throwNoInstancesException(StringBuilders.class);
     }
@@ -53,4 +59,62 @@ public class StringBuilders {
         stringBuilder.setLength(0);
         return string;
     }
+    
+    /**
+     * 取出 StringBuilder 中的值并清空，容量超过上限时收缩
+     *
+     * @param stringBuilder       StringBuilder
+     * @param maxRetainedCapacity 保留的最大容量
+     * @return stringBuilder 中的内容
+     */
+    public static String toStringAndClear(StringBuilder stringBuilder, int maxRetainedCapacity) {
+        Preconditions.checkNotNull(stringBuilder, "String builder is null!");
+        Preconditions.checkArgument(maxRetainedCapacity >= 0, "Max retained capacity must be greater than or equals to 0!");
+        
+        final String string = stringBuilder.toString();
+        stringBuilder.setLength(0);
+        if (stringBuilder.capacity() > maxRetainedCapacity) {
+            stringBuilder.trimToSize();
+        }
+        return string;
+    }
+    
+    /**
+     * 获取共享的 StringBuilder 池
+     *
+     * @return StringBuilder 池
+     */
+    public static StringBuilderPool getPool() {
+        return POOL;
+    }
+    
+    /**
+     * 从共享池借出一个空的 StringBuilder
+     *
+     * @return StringBuilder
+     * @see StringBuilderPool#acquire()
+     */
+    public static StringBuilder acquire() {
+        return POOL.acquire();
+    }
+    
+    /**
+     * 将 StringBuilder 归还到共享池
+     *
+     * @param stringBuilder StringBuilder
+     * @see StringBuilderPool#release(StringBuilder)
+     */
+    public static void release(StringBuilder stringBuilder) {
+        POOL.release(stringBuilder);
+    }
+    
+    /**
+     * 取出 StringBuilder 中的值并归还到共享池
+     *
+     * @param stringBuilder StringBuilder
+     * @return stringBuilder 中的内容
+     */
+    public static String toStringAndRelease(StringBuilder stringBuilder) {
+        return POOL.toStringAndRelease(stringBuilder);
+    }
 }
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界的并发字符串驻留池，用于对大量重复的短字符串去重。
+ * 和 {@link String#intern()} 不同，驻留池的容量有上限，满时按二次机会策略淘汰旧字符串。
+ * 哈希表被划分为若干个 8 槽的桶，读写都只使用 CAS，不加锁。
+ * 可以直接从 char[] 或字符序列的区间驻留，命中时不会创建临时字符串。
+ *
+ * @author Chuanwise
+ */
+@SuppressWarnings("unused")
+public class StringInterner {
+    
+    /**
+     * 每个桶的槽数
+     */
+    private static final int BUCKET_SIZE = 8;
+    
+    /**
+     * 槽
+     */
+    private final AtomicReferenceArray<String> slots;
+    
+    /**
+     * 槽最近是否被命中过，淘汰时给予一次机会
+     */
+    private final AtomicIntegerArray referenced;
+    
+    /**
+     * 每个桶的淘汰指针
+     */
+    private final AtomicIntegerArray hands;
+    
+    private final int bucketMask;
+    
+    /**
+     * 超过该长度的字符串不驻留
+     */
+    private final int maxLength;
+    
+    private final LongAdder hitCount = new LongAdder();
+    
+    private final LongAdder missCount = new LongAdder();
+    
+    private final LongAdder evictionCount = new LongAdder();
+    
+    /**
+     * StringInterner 的构造器
+     */
+    public static class Builder {
+        
+        protected int capacity = 1 << 16;
+        
+        protected int maxLength = 64;
+        
+        Builder() {
+        }
+        
+        public Builder capacity(int capacity) {
+            Preconditions.checkArgument(capacity > 0, "Capacity must be greater than 0!");
+            
+            this.capacity = capacity;
+            
+            return this;
+        }
+        
+        public Builder maxLength(int maxLength) {
+            Preconditions.checkArgument(maxLength >= 0, "Max length must be greater than or equals to 0!");
+            
+            this.maxLength = maxLength;
+            
+            return this;
+        }
+        
+        public StringInterner build() {
+            return new StringInterner(capacity, maxLength);
+        }
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    @SuppressWarnings("all")
+    public static StringInterner newInstance() {
+        return builder().build();
+    }
+    
+    public StringInterner(int capacity, int maxLength) {
+        Preconditions.checkArgument(capacity > 0, "Capacity must be greater than 0!");
+        Preconditions.checkArgument(maxLength >= 0, "Max length must be greater than or equals to 0!");
+        
+        final int buckets = (capacity + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        final int bucketCount = buckets == 1 ? 1 : Integer.highestOneBit((buckets - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(bucketCount * BUCKET_SIZE);
+        this.referenced = new AtomicIntegerArray(bucketCount * BUCKET_SIZE);
+        this.hands = new AtomicIntegerArray(bucketCount);
+        this.bucketMask = bucketCount - 1;
+        this.maxLength = maxLength;
+    }
+    
+    /**
+     * 驻留字符串
+     *
+     * @param string 字符串
+     * @return 池中和 string 内容相同的字符串。池中没有时放入 string 本身
+     */
+    public String intern(String string) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        if (string.length() > maxLength) {
+            return string;
+        }
+        final int hash = string.hashCode();
+        final String interned = lookup(string, 0, string.length(), hash);
+        if (interned != null) {
+            return interned;
+        }
+        return install(string, hash);
+    }
+    
+    /**
+     * 驻留字符序列的区间
+     *
+     * @param charSequence 字符序列
+     * @param beginIndex   起始索引（包含）
+     * @param endIndex     结束索引（不包含）
+     * @return 池中内容相同的字符串。池中没有时创建并放入新的字符串
+     */
+    public String intern(CharSequence charSequence, int beginIndex, int endIndex) {
+        Preconditions.checkNotNull(charSequence, "Char sequence is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, charSequence.length());
+        
+        if (charSequence instanceof String && beginIndex == 0 && endIndex == charSequence.length()) {
+            return intern((String) charSequence);
+        }
+        if (charSequence instanceof CharSlice) {
+            final CharSlice slice = (CharSlice) charSequence;
+            final char[] array = slice.array();
+            if (array != null) {
+                return intern(array, slice.arrayOffset() + beginIndex, slice.arrayOffset() + endIndex);
+            }
+        }
+        if (endIndex - beginIndex > maxLength) {
+            return charSequence.subSequence(beginIndex, endIndex).toString();
+        }
+        
+        int hash = 0;
+        for (int i = beginIndex; i < endIndex; i++) {
+            hash = 31 * hash + charSequence.charAt(i);
+        }
+        final String interned = lookup(charSequence, beginIndex, endIndex, hash);
+        if (interned != null) {
+            return interned;
+        }
+        return install(charSequence.subSequence(beginIndex, endIndex).toString(), hash);
+    }
+    
+    /**
+     * 驻留字符序列
+     *
+     * @param charSequence 字符序列
+     * @return 池中内容相同的字符串。池中没有时创建并放入新的字符串
+     */
+    public String intern(CharSequence charSequence) {
+        Preconditions.checkNotNull(charSequence, "Char sequence is null!");
+        
+        return intern(charSequence, 0, charSequence.length());
+    }
+    
+    /**
+     * 驻留字符数组的区间
+     *
+     * @param array      字符数组
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex   结束索引（不包含）
+     * @return 池中内容相同的字符串。池中没有时创建并放入新的字符串
+     */
+    public String intern(char[] array, int beginIndex, int endIndex) {
+        Preconditions.checkNotNull(array, "Array is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, array.length);
+        
+        if (endIndex - beginIndex > maxLength) {
+            return new String(array, beginIndex, endIndex - beginIndex);
+        }
+        
+        int hash = 0;
+        for (int i = beginIndex; i < endIndex; i++) {
+            hash = 31 * hash + array[i];
+        }
+        
+        final int bucket = bucketOf(hash);
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i++) {
+            final String candidate = slots.get(i);
+            if (candidate != null && candidate.hashCode() == hash && contentEquals(candidate, array, beginIndex, endIndex)) {
+                hit(i);
+                return candidate;
+            }
+        }
+        missCount.increment();
+        return install(new String(array, beginIndex, endIndex - beginIndex), hash);
+    }
+    
+    private String lookup(CharSequence charSequence, int beginIndex, int endIndex, int hash) {
+        final int bucket = bucketOf(hash);
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i++) {
+            final String candidate = slots.get(i);
+            if (candidate != null && candidate.hashCode() == hash && contentEquals(candidate, charSequence, beginIndex, endIndex)) {
+                hit(i);
+                return candidate;
+            }
+        }
+        missCount.increment();
+        return null;
+    }
+    
+    private void hit(int slot) {
+        hitCount.increment();
+        if (referenced.get(slot) == 0) {
+            referenced.lazySet(slot, 1);
+        }
+    }
+    
+    /**
+     * 放入字符串。优先放入空槽，否则淘汰一个最近没有被命中过的槽。
+     * 并发放入相同内容时可能短暂存在重复，不影响正确性。
+     */
+    private String install(String string, int hash) {
+        final int bucket = bucketOf(hash);
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, string)) {
+                return string;
+            }
+        }
+        
+        final int bucketIndex = bucket / BUCKET_SIZE;
+        for (int attempt = 0; attempt < BUCKET_SIZE * 2; attempt++) {
+            final int slot = bucket + (hands.getAndIncrement(bucketIndex) & (BUCKET_SIZE - 1));
+            if (referenced.get(slot) != 0 && attempt < BUCKET_SIZE) {
+                referenced.lazySet(slot, 0);
+                continue;
+            }
+            final String victim = slots.get(slot);
+            if (slots.compareAndSet(slot, victim, string)) {
+                referenced.lazySet(slot, 0);
+                if (victim != null) {
+                    evictionCount.increment();
+                }
+                return string;
+            }
+        }
+        return string;
+    }
+    
+    private int bucketOf(int hash) {
+        final int spread = hash ^ (hash >>> 16);
+        return (spread & bucketMask) * BUCKET_SIZE;
+    }
+    
+    private static boolean contentEquals(String string, CharSequence charSequence, int beginIndex, int endIndex) {
+        final int length = endIndex - beginIndex;
+        if (string.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (string.charAt(i) != charSequence.charAt(beginIndex + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean contentEquals(String string, char[] array, int beginIndex, int endIndex) {
+        final int length = endIndex - beginIndex;
+        if (string.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (string.charAt(i) != array[beginIndex + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 获取池的容量
+     *
+     * @return 槽的总数
+     */
+    public int getCapacity() {
+        return slots.length();
+    }
+    
+    /**
+     * 获取超过后不再驻留的字符串长度
+     *
+     * @return 最大长度
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+    
+    /**
+     * 获取命中次数
+     *
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+    
+    /**
+     * 获取未命中次数
+     *
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+    
+    /**
+     * 获取淘汰次数
+     *
+     * @return 淘汰次数
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+    
+    /**
+     * 获取命中率
+     *
+     * @return 命中次数占查询次数的比例，没有查询时返回 0
+     */
+    public double getHitRate() {
+        final long hits = hitCount.sum();
+        final long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+    
+    /**
+     * 清空池和统计数据
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+            referenced.set(i, 0);
+        }
+        hitCount.reset();
+        missCount.reset();
+        evictionCount.reset();
+    }
+}
@@ -18,9 +18,14 @@ package cn.codethink.common.util;
 
 import com.google.common.base.Preconditions;
 
-import java.util.HashSet;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.regex.Pattern;
 
 /**
@@ -35,6 +40,26 @@ public class Strings {
      * 空字符串正则表达式
      */
     private static final Pattern BLANK = Pattern.compile("\\s+");
+    
+    /**
+     * 编辑距离计算缓存
+     */
+    private static final ThreadLocal<DistanceScratch> DISTANCE_SCRATCH = ThreadLocal.withInitial(DistanceScratch::new);
+    
+    /**
+     * 共享的有界字符串驻留池
+     */
+    private static final StringInterner INTERNER = StringInterner.newInstance();
+    
+    /**
+     * 数组的最大长度，部分虚拟机会在数组头部保留若干个字
+     */
+    static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+    
+    /**
+     * 重复写入目标时每块的最大字符数
+     */
+    public static final int REPEAT_CHUNK_LENGTH = 8192;
 
     /**
      * 判断字符串是否为空
@@ -60,27 +85,155 @@ public class Strings {
         }
     }
     
+    /**
+     * 获取共享的有界字符串驻留池
+     *
+     * @return 字符串驻留池
+     */
+    public static StringInterner getInterner() {
+        return INTERNER;
+    }
+    
+    /**
+     * 使用共享的有界驻留池驻留字符序列的区间，命中时不创建临时字符串
+     *
+     * @param charSequence 字符序列
+     * @param beginIndex   起始索引（包含）
+     * @param endIndex     结束索引（不包含）
+     * @return 池中内容相同的字符串
+     */
+    public static String intern(CharSequence charSequence, int beginIndex, int endIndex) {
+        return INTERNER.intern(charSequence, beginIndex, endIndex);
+    }
+    
+    /**
+     * 使用共享的有界驻留池驻留字符序列
+     *
+     * @param charSequence 字符序列
+     * @return 池中内容相同的字符串
+     */
+    public static String intern(CharSequence charSequence) {
+        return INTERNER.intern(charSequence);
+    }
+    
+    /**
+     * 使用共享的有界驻留池驻留字符数组的区间，命中时不创建临时字符串
+     *
+     * @param array      字符数组
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex   结束索引（不包含）
+     * @return 池中内容相同的字符串
+     */
+    public static String intern(char[] array, int beginIndex, int endIndex) {
+        return INTERNER.intern(array, beginIndex, endIndex);
+    }
+    
+    /**
+     * 编译占位符模板，例如 {@code "{name} has {count} items"}。
+     * 模式串只解析一次，之后可以反复渲染，比每次调用 {@link String#format(String, Object...)} 快得多。
+     *
+     * @param pattern 模式串
+     * @return 模板
+     * @throws IllegalArgumentException 花括号不匹配
+     * @see Template
+     */
+    public static Template template(String pattern) {
+        return Template.compile(pattern);
+    }
+    
     /**
      * 将一个字符串的内容重复若干次
      *
      * @param string 字符串
      * @param count 重复次数
      * @return 重复后的字符串
-     * @throws IllegalArgumentException string 为 null 或 count < 0
+     * @throws IllegalArgumentException string 为 null、count < 0 或结果长度超过字符串的最大长度
      */
     public static String repeat(String string, int count) {
         Preconditions.checkNotNull(string, "String is null!");
         Preconditions.checkArgument(count >= 0, "Count must be greater than or equals to 0!");
         
-        if (count == 0 || string.length() == 0) {
+        final int length = string.length();
+        if (count == 0 || length == 0) {
             return "";
         }
+        if (count == 1) {
+            return string;
+        }
+        
+        final long totalLength = (long) length * count;
+        Preconditions.checkArgument(totalLength <= MAX_ARRAY_LENGTH,
+            "Repeated string length (%s * %s = %s) exceeds the max array length %s!", length, count, totalLength, MAX_ARRAY_LENGTH);
+        
+        final char[] chars = new char[(int) totalLength];
+        string.getChars(0, length, chars, 0);
+        fillByDoubling(chars, length, chars.length);
+        return new String(chars);
+    }
+    
+    /**
+     * 将一个字符序列的内容重复若干次，分块写入目标。
+     * 无论 count 有多大，使用的缓冲区都不超过 {@link #REPEAT_CHUNK_LENGTH} 个字符（或一份 string 的长度）。
+     *
+     * @param string     字符序列
+     * @param count      重复次数
+     * @param appendable 写入目标，为 {@link Writer} 或 {@link StringBuilder} 时直接写入字符数组
+     * @param <A>        写入目标类型
+     * @return appendable
+     * @throws IOException              写入出错
+     * @throws IllegalArgumentException count < 0
+     */
+    public static <A extends Appendable> A repeat(CharSequence string, long count, A appendable) throws IOException {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(appendable, "Appendable is null!");
+        Preconditions.checkArgument(count >= 0, "Count must be greater than or equals to 0!");
         
-        final StringBuilder stringBuilder = new StringBuilder(string.length() * count);
-        for (int i = 0; i < count; i++) {
-            stringBuilder.append(string);
+        final int length = string.length();
+        if (count == 0 || length == 0) {
+            return appendable;
+        }
+        
+        final int copiesPerChunk = (int) Math.min(count, Math.max(1, REPEAT_CHUNK_LENGTH / length));
+        final char[] chunk = new char[copiesPerChunk * length];
+        if (string instanceof String) {
+            ((String) string).getChars(0, length, chunk, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chunk[i] = string.charAt(i);
+            }
+        }
+        fillByDoubling(chunk, length, chunk.length);
+        
+        final long fullChunks = count / copiesPerChunk;
+        for (long i = 0; i < fullChunks; i++) {
+            appendChars(appendable, chunk, chunk.length);
+        }
+        final int remainder = (int) (count % copiesPerChunk);
+        if (remainder > 0) {
+            appendChars(appendable, chunk, remainder * length);
+        }
+        return appendable;
+    }
+    
+    /**
+     * 用 chars 的前 filled 个字符倍增填满前 totalLength 个字符
+     */
+    private static void fillByDoubling(char[] chars, int filled, int totalLength) {
+        while (filled < totalLength) {
+            final int copyLength = Math.min(filled, totalLength - filled);
+            System.arraycopy(chars, 0, chars, filled, copyLength);
+            filled += copyLength;
+        }
+    }
+    
+    private static void appendChars(Appendable appendable, char[] chars, int length) throws IOException {
+        if (appendable instanceof Writer) {
+            ((Writer) appendable).write(chars, 0, length);
+        } else if (appendable instanceof StringBuilder) {
+            ((StringBuilder) appendable).append(chars, 0, length);
+        } else {
+            appendable.append(CharSlice.of(chars, 0, length));
         }
-        return stringBuilder.toString();
     }
 
     /**
@@ -110,6 +263,494 @@ public class Strings {
         return maxLength;
     }
     
+    /**
+     * 使用分块反对角线（wavefront）方式并行计算 2 个字符串的最长公共子序列长度。
+     * 动态规划矩阵被划分为若干块，同一条反对角线上的块互不依赖，由 fork/join 线程池并发计算。
+     * 只保存块边界上的一行和一列，空间与输入长度成线性关系。
+     *
+     * @param str1     字符串1
+     * @param str2     字符串2
+     * @param pool     线程池
+     * @param tileSize 块的边长
+     * @return 最长公共子序列长度
+     * @throws IllegalArgumentException tileSize <= 0
+     */
+    public static int parallelLongestCommonSubsequenceLength(CharSequence str1, CharSequence str2, ForkJoinPool pool, int tileSize) {
+        Preconditions.checkNotNull(str1, "String is null!");
+        Preconditions.checkNotNull(str2, "String is null!");
+        Preconditions.checkNotNull(pool, "Pool is null!");
+        Preconditions.checkArgument(tileSize > 0, "Tile size must be greater than 0!");
+        
+        final char[] rows = str1.toString().toCharArray();
+        final char[] columns = str2.toString().toCharArray();
+        if (rows.length == 0 || columns.length == 0) {
+            return 0;
+        }
+        
+        final WavefrontLcs lcs = new WavefrontLcs(rows, columns, tileSize);
+        if (lcs.tileRows == 1 && lcs.tileColumns == 1) {
+            lcs.computeTile(0, 0, new int[columns.length + 1]);
+        } else {
+            for (int diagonal = 0; diagonal < lcs.tileRows + lcs.tileColumns - 1; diagonal++) {
+                final int firstTileRow = Math.max(0, diagonal - lcs.tileColumns + 1);
+                final int lastTileRow = Math.min(diagonal, lcs.tileRows - 1);
+                pool.invoke(new WavefrontTask(lcs, diagonal, firstTileRow, lastTileRow + 1));
+            }
+        }
+        return lcs.horizontal[columns.length];
+    }
+    
+    /**
+     * 使用公共 fork/join 线程池并行计算 2 个字符串的最长公共子序列长度
+     *
+     * @param str1 字符串1
+     * @param str2 字符串2
+     * @return 最长公共子序列长度
+     */
+    public static int parallelLongestCommonSubsequenceLength(CharSequence str1, CharSequence str2) {
+        return parallelLongestCommonSubsequenceLength(str1, str2, ForkJoinPool.commonPool(), 2048);
+    }
+    
+    /**
+     * 计算 2 个字符串的 Levenshtein 编辑距离。
+     * 使用 Myers 1999 位并行算法，每 64 个字符为一个位向量块。
+     *
+     * @param str1        字符串1
+     * @param str2        字符串2
+     * @param maxDistance 最大距离
+     * @return 编辑距离。当距离大于最大距离时，提前结束并返回 -1
+     * @throws IllegalArgumentException maxDistance < 0
+     */
+    public static int levenshteinDistance(CharSequence str1, CharSequence str2, int maxDistance) {
+        Preconditions.checkNotNull(str1, "String is null!");
+        Preconditions.checkNotNull(str2, "String is null!");
+        Preconditions.checkArgument(maxDistance >= 0, "Max distance must be greater than or equals to 0!");
+        
+        // 较短的字符串作为模式串，按位存放
+        final CharSequence pattern = str1.length() <= str2.length() ? str1 : str2;
+        final CharSequence text = pattern == str1 ? str2 : str1;
+        final int patternLength = pattern.length();
+        final int textLength = text.length();
+        
+        if (textLength - patternLength > maxDistance) {
+            return -1;
+        }
+        if (patternLength == 0) {
+            return textLength;
+        }
+        
+        final DistanceScratch scratch = DISTANCE_SCRATCH.get();
+        if (patternLength <= 64) {
+            return levenshteinDistance64(scratch, pattern, text, maxDistance);
+        }
+        return levenshteinDistanceBlocks(scratch, pattern, text, maxDistance);
+    }
+    
+    /**
+     * 计算 2 个字符串的 Levenshtein 编辑距离
+     *
+     * @param str1 字符串1
+     * @param str2 字符串2
+     * @return 编辑距离
+     */
+    public static int levenshteinDistance(CharSequence str1, CharSequence str2) {
+        return levenshteinDistance(str1, str2, Integer.MAX_VALUE);
+    }
+    
+    private static int levenshteinDistance64(DistanceScratch scratch, CharSequence pattern, CharSequence text, int maxDistance) {
+        final int patternLength = pattern.length();
+        final int textLength = text.length();
+        
+        for (int i = 0; i < patternLength; i++) {
+            scratch.putPeq(pattern.charAt(i), 1L << i);
+        }
+        
+        final long lastBit = 1L << (patternLength - 1);
+        long positiveVertical = -1L;
+        long negativeVertical = 0L;
+        int score = patternLength;
+        
+        try {
+            for (int i = 0; i < textLength; i++) {
+                final long eq = scratch.getPeq(text.charAt(i));
+                final long xv = eq | negativeVertical;
+                final long xh = (((eq & positiveVertical) + positiveVertical) ^ positiveVertical) | eq;
+                long positiveHorizontal = negativeVertical | ~(xh | positiveVertical);
+                long negativeHorizontal = positiveVertical & xh;
+                
+                if ((positiveHorizontal & lastBit) != 0) {
+                    score++;
+                } else if ((negativeHorizontal & lastBit) != 0) {
+                    score--;
+                }
+                
+                // 剩余的每一列最多使距离减少 1
+                if (score - (textLength - i - 1) > maxDistance) {
+                    return -1;
+                }
+                
+                positiveHorizontal = (positiveHorizontal << 1) | 1L;
+                negativeHorizontal = negativeHorizontal << 1;
+                positiveVertical = negativeHorizontal | ~(xv | positiveHorizontal);
+                negativeVertical = positiveHorizontal & xv;
+            }
+        } finally {
+            scratch.clearPeq(pattern, 0, patternLength);
+        }
+        
+        return score;
+    }
+    
+    private static int levenshteinDistanceBlocks(DistanceScratch scratch, CharSequence pattern, CharSequence text, int maxDistance) {
+        final int patternLength = pattern.length();
+        final int textLength = text.length();
+        final int blockCount = (patternLength + 63) >>> 6;
+        
+        // 横向差值按列保存为位集合，初始时第 0 行的差值都是 +1
+        final int horizontalSize = (textLength + 63) >>> 6;
+        scratch.ensureHorizontal(horizontalSize);
+        final long[] positiveHorizontalBits = scratch.positiveHorizontal;
+        final long[] negativeHorizontalBits = scratch.negativeHorizontal;
+        java.util.Arrays.fill(positiveHorizontalBits, 0, horizontalSize, -1L);
+        java.util.Arrays.fill(negativeHorizontalBits, 0, horizontalSize, 0L);
+        
+        // 逐个处理 64 行的横条，只有最后一个横条需要统计距离
+        for (int block = 0; block < blockCount; block++) {
+            final int beginRow = block << 6;
+            final int endRow = Math.min(beginRow + 64, patternLength);
+            final boolean lastBlock = endRow == patternLength;
+            for (int i = beginRow; i < endRow; i++) {
+                scratch.putPeq(pattern.charAt(i), 1L << (i - beginRow));
+            }
+            
+            final long lastBit = 1L << (endRow - beginRow - 1);
+            long positiveVertical = -1L;
+            long negativeVertical = 0L;
+            int score = patternLength;
+            
+            try {
+                for (int i = 0; i < textLength; i++) {
+                    final int word = i >>> 6;
+                    final long bit = 1L << i;
+                    final long positiveIn = (positiveHorizontalBits[word] >>> i) & 1L;
+                    final long negativeIn = (negativeHorizontalBits[word] >>> i) & 1L;
+                    
+                    final long eq = scratch.getPeq(text.charAt(i));
+                    final long xv = eq | negativeVertical;
+                    final long xh = ((((eq | negativeIn) & positiveVertical) + positiveVertical) ^ positiveVertical) | eq | negativeIn;
+                    long positiveHorizontal = negativeVertical | ~(xh | positiveVertical);
+                    long negativeHorizontal = positiveVertical & xh;
+                    
+                    if (lastBlock) {
+                        if ((positiveHorizontal & lastBit) != 0) {
+                            score++;
+                        } else if ((negativeHorizontal & lastBit) != 0) {
+                            score--;
+                        }
+                        if (score - (textLength - i - 1) > maxDistance) {
+                            return -1;
+                        }
+                    } else {
+                        if (((positiveHorizontal >>> 63) ^ positiveIn) != 0) {
+                            positiveHorizontalBits[word] ^= bit;
+                        }
+                        if (((negativeHorizontal >>> 63) ^ negativeIn) != 0) {
+                            negativeHorizontalBits[word] ^= bit;
+                        }
+                    }
+                    
+                    positiveHorizontal = (positiveHorizontal << 1) | positiveIn;
+                    negativeHorizontal = (negativeHorizontal << 1) | negativeIn;
+                    positiveVertical = negativeHorizontal | ~(xv | positiveHorizontal);
+                    negativeVertical = positiveHorizontal & xv;
+                }
+            } finally {
+                scratch.clearPeq(pattern, beginRow, endRow);
+            }
+            
+            if (lastBlock) {
+                return score;
+            }
+            
+            // 任何路径都要穿过当前横条的底行，据此估计距离下界
+            if (maxDistance != Integer.MAX_VALUE
+                && lowerBoundAcrossRow(positiveHorizontalBits, negativeHorizontalBits, endRow, patternLength, textLength) > maxDistance) {
+                return -1;
+            }
+        }
+        
+        throw new IllegalStateException();
+    }
+    
+    private static int lowerBoundAcrossRow(long[] positiveHorizontalBits, long[] negativeHorizontalBits, int row, int patternLength, int textLength) {
+        final int remainingRows = patternLength - row;
+        int value = row;
+        int lowerBound = value + Math.abs(remainingRows - textLength);
+        for (int i = 0; i < textLength; i++) {
+            final int word = i >>> 6;
+            value += (int) ((positiveHorizontalBits[word] >>> i) & 1L) - (int) ((negativeHorizontalBits[word] >>> i) & 1L);
+            lowerBound = Math.min(lowerBound, value + Math.abs(remainingRows - (textLength - i - 1)));
+        }
+        return lowerBound;
+    }
+    
+    /**
+     * 计算 2 个字符串的最优字符串对齐（Optimal String Alignment，受限 Damerau-Levenshtein）距离。
+     * 相邻字符交换视为一次编辑，但交换过的子串不会再被编辑。
+     *
+     * @param str1        字符串1
+     * @param str2        字符串2
+     * @param maxDistance 最大距离
+     * @return 编辑距离。当距离大于最大距离时，提前结束并返回 -1
+     * @throws IllegalArgumentException maxDistance < 0
+     */
+    public static int optimalStringAlignmentDistance(CharSequence str1, CharSequence str2, int maxDistance) {
+        Preconditions.checkNotNull(str1, "String is null!");
+        Preconditions.checkNotNull(str2, "String is null!");
+        Preconditions.checkArgument(maxDistance >= 0, "Max distance must be greater than or equals to 0!");
+        
+        // 较短的字符串放在行内，减少缓存大小
+        final CharSequence shorter = str1.length() <= str2.length() ? str1 : str2;
+        final CharSequence longer = shorter == str1 ? str2 : str1;
+        final int shorterLength = shorter.length();
+        final int longerLength = longer.length();
+        
+        if (longerLength - shorterLength > maxDistance) {
+            return -1;
+        }
+        if (shorterLength == 0) {
+            return longerLength;
+        }
+        
+        final DistanceScratch scratch = DISTANCE_SCRATCH.get();
+        scratch.ensureRows(shorterLength + 1);
+        int[] beforePreviousRow = scratch.row0;
+        int[] previousRow = scratch.row1;
+        int[] currentRow = scratch.row2;
+        for (int j = 0; j <= shorterLength; j++) {
+            previousRow[j] = j;
+        }
+        
+        char previousLongerChar = 0;
+        for (int i = 1; i <= longerLength; i++) {
+            final char longerChar = longer.charAt(i - 1);
+            currentRow[0] = i;
+            int rowMinimum = i;
+            
+            char previousShorterChar = 0;
+            for (int j = 1; j <= shorterLength; j++) {
+                final char shorterChar = shorter.charAt(j - 1);
+                final int cost = longerChar == shorterChar ? 0 : 1;
+                int value = Math.min(Math.min(previousRow[j] + 1, currentRow[j - 1] + 1), previousRow[j - 1] + cost);
+                if (i > 1 && j > 1 && longerChar == previousShorterChar && previousLongerChar == shorterChar) {
+                    value = Math.min(value, beforePreviousRow[j - 2] + 1);
+                }
+                currentRow[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+                previousShorterChar = shorterChar;
+            }
+            
+            if (rowMinimum > maxDistance) {
+                return -1;
+            }
+            
+            final int[] recycled = beforePreviousRow;
+            beforePreviousRow = previousRow;
+            previousRow = currentRow;
+            currentRow = recycled;
+            previousLongerChar = longerChar;
+        }
+        
+        final int distance = previousRow[shorterLength];
+        return distance > maxDistance ? -1 : distance;
+    }
+    
+    /**
+     * 计算 2 个字符串的最优字符串对齐（受限 Damerau-Levenshtein）距离
+     *
+     * @param str1 字符串1
+     * @param str2 字符串2
+     * @return 编辑距离
+     */
+    public static int optimalStringAlignmentDistance(CharSequence str1, CharSequence str2) {
+        return optimalStringAlignmentDistance(str1, str2, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * 计算 2 个字符串的 Jaro-Winkler 相似度。
+     * 当 Jaro 相似度大于 0.7 时，对最多 4 个字符的公共前缀给予 0.1 的加权。
+     *
+     * @param str1          字符串1
+     * @param str2          字符串2
+     * @param minSimilarity 最小相似度
+     * @return [0, 1] 之间的相似度。当相似度小于最小相似度时，提前结束并返回 0
+     * @throws IllegalArgumentException minSimilarity 不在 [0, 1] 之间
+     */
+    public static double jaroWinklerSimilarity(CharSequence str1, CharSequence str2, double minSimilarity) {
+        Preconditions.checkNotNull(str1, "String is null!");
+        Preconditions.checkNotNull(str2, "String is null!");
+        Preconditions.checkArgument(minSimilarity >= 0 && minSimilarity <= 1, "Min similarity must be in [0, 1]!");
+        
+        final int length1 = str1.length();
+        final int length2 = str2.length();
+        if (length1 == 0 && length2 == 0) {
+            return 1;
+        }
+        if (length1 == 0 || length2 == 0) {
+            return 0;
+        }
+        
+        int prefix = 0;
+        final int maxPrefix = Math.min(4, Math.min(length1, length2));
+        while (prefix < maxPrefix && str1.charAt(prefix) == str2.charAt(prefix)) {
+            prefix++;
+        }
+        
+        // 找出达到最小相似度至少需要的匹配数，用于提前结束
+        final int maxMatches = Math.min(length1, length2);
+        int requiredMatches = 1;
+        while (requiredMatches <= maxMatches
+            && jaroWinklerSimilarity(requiredMatches, 0, length1, length2, prefix) < minSimilarity) {
+            requiredMatches++;
+        }
+        if (requiredMatches > maxMatches) {
+            return 0;
+        }
+        
+        final DistanceScratch scratch = DISTANCE_SCRATCH.get();
+        scratch.ensureFlags(length1, length2);
+        final boolean[] flags1 = scratch.flags1;
+        final boolean[] flags2 = scratch.flags2;
+        
+        try {
+            final int window = Math.max(0, Math.max(length1, length2) / 2 - 1);
+            int matches = 0;
+            for (int i = 0; i < length1; i++) {
+                if (matches + (length1 - i) < requiredMatches) {
+                    return 0;
+                }
+                
+                final char ch = str1.charAt(i);
+                final int endIndex = Math.min(length2, i + window + 1);
+                for (int j = Math.max(0, i - window); j < endIndex; j++) {
+                    if (!flags2[j] && str2.charAt(j) == ch) {
+                        flags1[i] = true;
+                        flags2[j] = true;
+                        matches++;
+                        break;
+                    }
+                }
+            }
+            if (matches < requiredMatches) {
+                return 0;
+            }
+            
+            int halfTranspositions = 0;
+            for (int i = 0, j = 0; i < length1; i++) {
+                if (flags1[i]) {
+                    while (!flags2[j]) {
+                        j++;
+                    }
+                    if (str1.charAt(i) != str2.charAt(j)) {
+                        halfTranspositions++;
+                    }
+                    j++;
+                }
+            }
+            
+            final double similarity = jaroWinklerSimilarity(matches, halfTranspositions / 2, length1, length2, prefix);
+            return similarity < minSimilarity ? 0 : similarity;
+        } finally {
+            java.util.Arrays.fill(flags1, 0, length1, false);
+            java.util.Arrays.fill(flags2, 0, length2, false);
+        }
+    }
+    
+    /**
+     * 计算 2 个字符串的 Jaro-Winkler 相似度
+     *
+     * @param str1 字符串1
+     * @param str2 字符串2
+     * @return [0, 1] 之间的相似度
+     */
+    public static double jaroWinklerSimilarity(CharSequence str1, CharSequence str2) {
+        return jaroWinklerSimilarity(str1, str2, 0);
+    }
+    
+    private static double jaroWinklerSimilarity(int matches, int transpositions, int length1, int length2, int prefix) {
+        final double jaro = ((double) matches / length1
+            + (double) matches / length2
+            + (double) (matches - transpositions) / matches) / 3;
+        return jaro > 0.7 ? jaro + prefix * 0.1 * (1 - jaro) : jaro;
+    }
+    
+    /**
+     * 计算从源字符串到目标字符串的逐字符编辑脚本。
+     * 使用 Myers O(ND) 线性空间算法，不需要 O(n·m) 的矩阵。
+     *
+     * @param source 源字符串
+     * @param target 目标字符串
+     * @return 编辑脚本，其中的索引为字符索引
+     */
+    public static EditScript diff(CharSequence source, CharSequence target) {
+        Preconditions.checkNotNull(source, "Source is null!");
+        Preconditions.checkNotNull(target, "Target is null!");
+        
+        return EditScript.compute(source.length(), target.length(),
+            (sourceIndex, targetIndex) -> source.charAt(sourceIndex) == target.charAt(targetIndex));
+    }
+    
+    /**
+     * 计算从源字符串到目标字符串的逐行编辑脚本。
+     * 行以 '\n' 分割，行尾换行符属于该行。
+     *
+     * @param source 源字符串
+     * @param target 目标字符串
+     * @return 编辑脚本，其中的索引为行索引
+     */
+    public static EditScript diffLines(CharSequence source, CharSequence target) {
+        Preconditions.checkNotNull(source, "Source is null!");
+        Preconditions.checkNotNull(target, "Target is null!");
+        
+        // 将每一行映射为整数，比较时只需比较整数
+        final Map<String, Integer> lineIds = new HashMap<>();
+        final int[] sourceLines = lineIds(source, lineIds);
+        final int[] targetLines = lineIds(target, lineIds);
+        
+        return EditScript.compute(sourceLines.length, targetLines.length,
+            (sourceIndex, targetIndex) -> sourceLines[sourceIndex] == targetLines[targetIndex]);
+    }
+    
+    private static int[] lineIds(CharSequence string, Map<String, Integer> lineIds) {
+        int[] ids = new int[16];
+        int size = 0;
+        
+        final int length = string.length();
+        int beginIndex = 0;
+        while (beginIndex < length) {
+            int endIndex = beginIndex;
+            while (endIndex < length && string.charAt(endIndex) != '\n') {
+                endIndex++;
+            }
+            if (endIndex < length) {
+                endIndex++;
+            }
+            
+            final String line = string.subSequence(beginIndex, endIndex).toString();
+            Integer id = lineIds.get(line);
+            if (id == null) {
+                id = lineIds.size();
+                lineIds.put(line, id);
+            }
+            if (size == ids.length) {
+                ids = java.util.Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+            beginIndex = endIndex;
+        }
+        return java.util.Arrays.copyOf(ids, size);
+    }
+    
     /**
      * 寻找字符串中第一个出现的，位于字符集合中的字符
      *
@@ -124,13 +765,28 @@ public class Strings {
         Preconditions.checkNotNull(charSequence, "Char sequence is null!");
         Preconditions.checkPositionIndex(beginIndex, string.length(), "Begin index");
     
-        final Set<Character> characters = new HashSet<>();
-        for (int i = 0; i < charSequence.length(); i++) {
-            characters.add(charSequence.charAt(i));
-        }
+        final Set<Character> characters = CharacterSet.of(charSequence);
         return indexOfIncludedCharacter(string, characters, beginIndex, defaultIndex);
     }
     
+    /**
+     * 在字符串的区间中寻找第一个出现的，位于字符集合中的字符
+     *
+     * @param string 搜索目标字符串
+     * @param characters 字符集
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param defaultIndex 默认索引
+     * @return 当在区间中找到任何一个字符属于字符集，返回其索引。否则返回默认索引。
+     */
+    public static int indexOfIncludedCharacter(CharSequence string, Set<Character> characters, int beginIndex, int endIndex, int defaultIndex) {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(characters, "Characters are null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        return indexOfCharacter(string, characters, beginIndex, endIndex, defaultIndex, true);
+    }
+    
     /**
      * 寻找字符串中第一个出现的，位于字符集合中的字符
      *
@@ -142,17 +798,9 @@ public class Strings {
      */
     public static int indexOfIncludedCharacter(CharSequence string, Set<Character> characters, int beginIndex, int defaultIndex) {
         Preconditions.checkNotNull(string, "String is null!");
-        Preconditions.checkNotNull(characters, "Characters are null!");
         Preconditions.checkPositionIndex(beginIndex, string.length(), "Begin index");
-    
-        for (int i = beginIndex; i < string.length(); i++) {
-            final char ch = string.charAt(i);
-            if (characters.contains(ch)) {
-                return i;
-            }
-        }
         
-        return defaultIndex;
+        return indexOfIncludedCharacter(string, characters, beginIndex, string.length(), defaultIndex);
     }
     
     /**
@@ -215,13 +863,28 @@ public class Strings {
         Preconditions.checkNotNull(charSequence, "Char sequence is null!");
         Preconditions.checkPositionIndex(beginIndex, string.length(), "Begin index");
     
-        final Set<Character> characters = new HashSet<>();
-        for (int i = 0; i < charSequence.length(); i++) {
-            characters.add(charSequence.charAt(i));
-        }
+        final Set<Character> characters = CharacterSet.of(charSequence);
         return lastIndexOfIncludedCharacter(string, characters, beginIndex, defaultIndex);
     }
     
+    /**
+     * 在字符串的区间中寻找最后一个出现的，位于字符集合中的字符
+     *
+     * @param string 搜索目标字符串
+     * @param characters 字符集
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param defaultIndex 默认索引
+     * @return 当在区间中找到任何一个字符属于字符集，返回其索引。否则返回默认索引。
+     */
+    public static int lastIndexOfIncludedCharacter(CharSequence string, Set<Character> characters, int beginIndex, int endIndex, int defaultIndex) {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(characters, "Characters are null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        return lastIndexOfCharacter(string, characters, beginIndex, endIndex, defaultIndex, true);
+    }
+    
     /**
      * 寻找字符串中最后一个出现的，位于字符集合中的字符
      *
@@ -233,16 +896,9 @@ public class Strings {
      */
     public static int lastIndexOfIncludedCharacter(CharSequence string, Set<Character> characters, int beginIndex, int defaultIndex) {
         Preconditions.checkNotNull(string, "String is null!");
-        Preconditions.checkNotNull(characters, "Characters are null!");
         Preconditions.checkPositionIndex(beginIndex, string.length(), "Begin index");
-    
-        for (int i = string.length() - 1; i >= beginIndex; i--) {
-            final char ch = string.charAt(i);
-            if (characters.contains(ch)) {
-                return i;
-            }
-        }
-        return defaultIndex;
+        
+        return lastIndexOfIncludedCharacter(string, characters, beginIndex, string.length(), defaultIndex);
     }
     
     /**
@@ -305,35 +961,42 @@ public class Strings {
         Preconditions.checkNotNull(charSequence, "Char sequence is null!");
         Preconditions.checkPositionIndex(beginIndex, string.length(), "Begin index");
     
-        final Set<Character> characters = new HashSet<>();
-        for (int i = 0; i < charSequence.length(); i++) {
-            characters.add(charSequence.charAt(i));
-        }
+        final Set<Character> characters = CharacterSet.of(charSequence);
         return indexOfExcluded(string, characters, beginIndex, defaultIndex);
     }
     
     /**
-     * 寻找字符串中第一个出现的，不位于字符集合中的字符
+     * 在字符串的区间中寻找第一个出现的，不位于字符集合中的字符
      *
      * @param string 搜索目标字符串
      * @param characters 字符集
-     * @param beginIndex 起始索引
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
      * @param defaultIndex 默认索引
-     * @return 当在目标字符串中起始索引后找到任何一个字符不属于字符集，返回其索引。否则返回默认索引。
+     * @return 当在区间中找到任何一个字符不属于字符集，返回其索引。否则返回默认索引。
      */
-    public static int indexOfExcluded(CharSequence string, Set<Character> characters, int beginIndex, int defaultIndex) {
+    public static int indexOfExcluded(CharSequence string, Set<Character> characters, int beginIndex, int endIndex, int defaultIndex) {
         Preconditions.checkNotNull(string, "String is null!");
         Preconditions.checkNotNull(characters, "Characters are null!");
-        Preconditions.checkPositionIndex(beginIndex, string.length(), "Begin index");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        return indexOfCharacter(string, characters, beginIndex, endIndex, defaultIndex, false);
+    }
     
-        for (int i = beginIndex; i < string.length(); i++) {
-            final char ch = string.charAt(i);
-            if (characters.contains(ch)) {
-                return i;
-            }
-        }
+    /**
+     * 寻找字符串中第一个出现的，不位于字符集合中的字符
+     *
+     * @param string 搜索目标字符串
+     * @param characters 字符集
+     * @param beginIndex 起始索引
+     * @param defaultIndex 默认索引
+     * @return 当在目标字符串中起始索引后找到任何一个字符不属于字符集，返回其索引。否则返回默认索引。
+     */
+    public static int indexOfExcluded(CharSequence string, Set<Character> characters, int beginIndex, int defaultIndex) {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkPositionIndex(beginIndex, string.length(), "Begin index");
         
-        return defaultIndex;
+        return indexOfExcluded(string, characters, beginIndex, string.length(), defaultIndex);
     }
     
     /**
@@ -396,13 +1059,28 @@ public class Strings {
         Preconditions.checkNotNull(charSequence, "Char sequence is null!");
         Preconditions.checkPositionIndex(beginIndex, string.length(), "Begin index");
     
-        final Set<Character> characters = new HashSet<>();
-        for (int i = 0; i < charSequence.length(); i++) {
-            characters.add(charSequence.charAt(i));
-        }
+        final Set<Character> characters = CharacterSet.of(charSequence);
         return lastIndexOfExcluded(string, characters, beginIndex, defaultIndex);
     }
     
+    /**
+     * 在字符串的区间中寻找最后一个出现的，不位于字符集合中的字符
+     *
+     * @param string 搜索目标字符串
+     * @param characters 字符集
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param defaultIndex 默认索引
+     * @return 当在区间中找到任何一个字符不属于字符集，返回其索引。否则返回默认索引。
+     */
+    public static int lastIndexOfExcluded(CharSequence string, Set<Character> characters, int beginIndex, int endIndex, int defaultIndex) {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(characters, "Characters are null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        return lastIndexOfCharacter(string, characters, beginIndex, endIndex, defaultIndex, false);
+    }
+    
     /**
      * 寻找字符串中最后一个出现的，不位于字符集合中的字符
      *
@@ -414,16 +1092,9 @@ public class Strings {
      */
     public static int lastIndexOfExcluded(CharSequence string, Set<Character> characters, int beginIndex, int defaultIndex) {
         Preconditions.checkNotNull(string, "String is null!");
-        Preconditions.checkNotNull(characters, "Characters are null!");
         Preconditions.checkPositionIndex(beginIndex, string.length(), "Begin index");
-    
-        for (int i = string.length() - 1; i >= beginIndex; i--) {
-            final char ch = string.charAt(i);
-            if (!characters.contains(ch)) {
-                return i;
-            }
-        }
-        return defaultIndex;
+        
+        return lastIndexOfExcluded(string, characters, beginIndex, string.length(), defaultIndex);
     }
     
     /**
@@ -471,4 +1142,1207 @@ public class Strings {
     public static int lastIndexOfExcluded(CharSequence string, CharSequence charSequence) {
         return lastIndexOfExcluded(string, charSequence, 0, -1);
     }
+    
+    /**
+     * 将全角字符转换为半角字符。
+     * 全角字母、数字、标点和全角空格转换为对应的 ASCII 字符，全角符号（如 ￥）转换为半角，半角 CJK 标点（如 ｡）转换为全角。
+     *
+     * @param ch 字符
+     * @return 转换后的字符，无需转换时返回 ch 本身
+     */
+    public static char toHalfWidth(char ch) {
+        return CaseFolding.narrow(ch);
+    }
+    
+    /**
+     * 将字符串中的全角字符转换为半角字符
+     *
+     * @param string 字符串
+     * @return 转换后的字符串。没有需要转换的字符时返回 string 本身，不分配内存
+     * @see #toHalfWidth(char)
+     */
+    public static String toHalfWidth(String string) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        final int length = string.length();
+        int first = 0;
+        while (first < length && CaseFolding.narrow(string.charAt(first)) == string.charAt(first)) {
+            first++;
+        }
+        if (first == length) {
+            return string;
+        }
+        
+        final char[] chars = string.toCharArray();
+        for (int i = first; i < length; i++) {
+            chars[i] = CaseFolding.narrow(chars[i]);
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * 将字符序列中的全角字符转换为半角字符
+     *
+     * @param charSequence 字符序列
+     * @return 转换后的字符序列。没有需要转换的字符时返回 charSequence 本身，否则返回新的字符串
+     * @see #toHalfWidth(char)
+     */
+    public static CharSequence toHalfWidth(CharSequence charSequence) {
+        Preconditions.checkNotNull(charSequence, "Char sequence is null!");
+        
+        if (charSequence instanceof String) {
+            return toHalfWidth((String) charSequence);
+        }
+        
+        final int length = charSequence.length();
+        final char[] array = arrayOf(charSequence);
+        final int offset = array != null ? ((CharSlice) charSequence).arrayOffset() : 0;
+        int first = 0;
+        if (array != null) {
+            while (first < length && CaseFolding.narrow(array[offset + first]) == array[offset + first]) {
+                first++;
+            }
+        } else {
+            while (first < length && CaseFolding.narrow(charSequence.charAt(first)) == charSequence.charAt(first)) {
+                first++;
+            }
+        }
+        if (first == length) {
+            return charSequence;
+        }
+        
+        final char[] chars = new char[length];
+        toHalfWidth(charSequence, 0, length, chars, 0);
+        return new String(chars);
+    }
+    
+    /**
+     * 将字符数组中的全角字符转换为半角字符
+     *
+     * @param array 字符数组
+     * @return 转换后的字符数组。没有需要转换的字符时返回 array 本身，否则返回新的数组
+     * @see #toHalfWidth(char)
+     */
+    public static char[] toHalfWidth(char[] array) {
+        Preconditions.checkNotNull(array, "Array is null!");
+        
+        int first = 0;
+        while (first < array.length && CaseFolding.narrow(array[first]) == array[first]) {
+            first++;
+        }
+        if (first == array.length) {
+            return array;
+        }
+        
+        final char[] chars = array.clone();
+        for (int i = first; i < chars.length; i++) {
+            chars[i] = CaseFolding.narrow(chars[i]);
+        }
+        return chars;
+    }
+    
+    /**
+     * 将字符序列区间中的字符转换为半角后写入调用方提供的数组，不分配内存
+     *
+     * @param source 字符序列
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param destination 目标数组
+     * @param destinationIndex 目标数组中的起始索引
+     * @return 发生转换的字符个数，为 0 时说明区间中没有全角字符
+     * @see #toHalfWidth(char)
+     */
+    public static int toHalfWidth(CharSequence source, int beginIndex, int endIndex, char[] destination, int destinationIndex) {
+        Preconditions.checkNotNull(source, "Source is null!");
+        Preconditions.checkNotNull(destination, "Destination is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, source.length());
+        Preconditions.checkPositionIndexes(destinationIndex, destinationIndex + (endIndex - beginIndex), destination.length);
+        
+        final char[] array = arrayOf(source);
+        if (array != null) {
+            final int offset = ((CharSlice) source).arrayOffset();
+            return toHalfWidth(array, offset + beginIndex, offset + endIndex, destination, destinationIndex);
+        }
+        
+        int converted = 0;
+        for (int i = beginIndex; i < endIndex; i++) {
+            final char ch = source.charAt(i);
+            final char narrowed = CaseFolding.narrow(ch);
+            if (narrowed != ch) {
+                converted++;
+            }
+            destination[destinationIndex++] = narrowed;
+        }
+        return converted;
+    }
+    
+    /**
+     * 将字符数组区间中的字符转换为半角后写入调用方提供的数组，不分配内存。
+     * source 和 destination 可以是同一个数组，此时可用于原地转换；区间重叠时和 {@link System#arraycopy} 一样按复制前的内容转换。
+     *
+     * @param source 源数组
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param destination 目标数组
+     * @param destinationIndex 目标数组中的起始索引
+     * @return 发生转换的字符个数，为 0 时说明区间中没有全角字符
+     * @see #toHalfWidth(char)
+     */
+    public static int toHalfWidth(char[] source, int beginIndex, int endIndex, char[] destination, int destinationIndex) {
+        Preconditions.checkNotNull(source, "Source is null!");
+        Preconditions.checkNotNull(destination, "Destination is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, source.length);
+        Preconditions.checkPositionIndexes(destinationIndex, destinationIndex + (endIndex - beginIndex), destination.length);
+        
+        int converted = 0;
+        if (source == destination && destinationIndex > beginIndex) {
+            // 和 System.arraycopy 一样，目标区间在源区间之后时从后往前写，避免覆盖尚未读取的字符
+            for (int i = endIndex - 1, j = destinationIndex + (endIndex - beginIndex) - 1; i >= beginIndex; i--, j--) {
+                final char ch = source[i];
+                final char narrowed = CaseFolding.narrow(ch);
+                if (narrowed != ch) {
+                    converted++;
+                }
+                destination[j] = narrowed;
+            }
+            return converted;
+        }
+        
+        for (int i = beginIndex; i < endIndex; i++) {
+            final char ch = source[i];
+            final char narrowed = CaseFolding.narrow(ch);
+            if (narrowed != ch) {
+                converted++;
+            }
+            destination[destinationIndex++] = narrowed;
+        }
+        return converted;
+    }
+    
+    /**
+     * 折叠字符的大小写和全角半角，折叠结果相同的字符在不区分大小写的比较中视为相等。
+     * 全角 ASCII 字符和全角空格折叠为半角，半角 CJK 标点折叠为全角，之后按 {@link String#equalsIgnoreCase(String)} 的规则折叠大小写。
+     *
+     * @param ch 字符
+     * @return 折叠后的字符
+     */
+    public static char foldCase(char ch) {
+        return CaseFolding.fold(ch);
+    }
+    
+    /**
+     * 判断 2 个字符序列在折叠大小写和全角半角后是否相等，比较时不创建副本
+     *
+     * @param str1 字符序列1
+     * @param str2 字符序列2
+     * @return 是否相等
+     */
+    public static boolean equalsIgnoreCase(CharSequence str1, CharSequence str2) {
+        Preconditions.checkNotNull(str1, "String 1 is null!");
+        Preconditions.checkNotNull(str2, "String 2 is null!");
+        
+        final int length = str1.length();
+        if (length != str2.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            final char ch1 = str1.charAt(i);
+            final char ch2 = str2.charAt(i);
+            if (ch1 != ch2 && CaseFolding.fold(ch1) != CaseFolding.fold(ch2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 在字符串的区间中寻找第一个在折叠大小写和全角半角后与模式串相等的子串，比较时不创建小写副本
+     *
+     * @param string 搜索目标字符串
+     * @param pattern 模式串
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param defaultIndex 默认索引
+     * @return 找到时返回子串的起始索引，否则返回默认索引。模式串为空时返回起始索引
+     */
+    public static int indexOfIgnoreCase(CharSequence string, CharSequence pattern, int beginIndex, int endIndex, int defaultIndex) {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(pattern, "Pattern is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        final int patternLength = pattern.length();
+        if (patternLength == 0) {
+            return beginIndex;
+        }
+        
+        final char[] array = arrayOf(string);
+        final int offset = array != null ? ((CharSlice) string).arrayOffset() : 0;
+        final char first = CaseFolding.fold(pattern.charAt(0));
+        final char firstUpper = first >= 'a' && first <= 'z' ? (char) (first - ('a' - 'A')) : first;
+        // ASCII 字符只可能折叠为首字符的大小写形式，无需查表
+        if (array != null) {
+            for (int i = beginIndex; i <= endIndex - patternLength; i++) {
+                final char ch = array[offset + i];
+                if ((ch == first || ch == firstUpper || ch >= 128 && CaseFolding.fold(ch) == first)
+                    && regionMatchesIgnoreCase(string, array, offset, i, pattern)) {
+                    return i;
+                }
+            }
+        } else {
+            for (int i = beginIndex; i <= endIndex - patternLength; i++) {
+                final char ch = string.charAt(i);
+                if ((ch == first || ch == firstUpper || ch >= 128 && CaseFolding.fold(ch) == first)
+                    && regionMatchesIgnoreCase(string, null, 0, i, pattern)) {
+                    return i;
+                }
+            }
+        }
+        return defaultIndex;
+    }
+    
+    /**
+     * 在字符串中寻找第一个在折叠大小写和全角半角后与模式串相等的子串
+     *
+     * @param string 搜索目标字符串
+     * @param pattern 模式串
+     * @param beginIndex 起始索引
+     * @param defaultIndex 默认索引
+     * @return 找到时返回子串的起始索引，否则返回默认索引
+     */
+    public static int indexOfIgnoreCase(CharSequence string, CharSequence pattern, int beginIndex, int defaultIndex) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        return indexOfIgnoreCase(string, pattern, beginIndex, string.length(), defaultIndex);
+    }
+    
+    /**
+     * 在字符串中寻找第一个在折叠大小写和全角半角后与模式串相等的子串
+     *
+     * @param string 搜索目标字符串
+     * @param pattern 模式串
+     * @param beginIndex 起始索引
+     * @return 找到时返回子串的起始索引，否则返回 -1
+     */
+    public static int indexOfIgnoreCase(CharSequence string, CharSequence pattern, int beginIndex) {
+        return indexOfIgnoreCase(string, pattern, beginIndex, -1);
+    }
+    
+    /**
+     * 在字符串中寻找第一个在折叠大小写和全角半角后与模式串相等的子串
+     *
+     * @param string 搜索目标字符串
+     * @param pattern 模式串
+     * @return 找到时返回子串的起始索引，否则返回 -1
+     */
+    public static int indexOfIgnoreCase(CharSequence string, CharSequence pattern) {
+        return indexOfIgnoreCase(string, pattern, 0, -1);
+    }
+    
+    /**
+     * 在字符串的区间中寻找最后一个在折叠大小写和全角半角后与模式串相等的子串，比较时不创建小写副本
+     *
+     * @param string 搜索目标字符串
+     * @param pattern 模式串
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param defaultIndex 默认索引
+     * @return 找到时返回子串的起始索引，否则返回默认索引。模式串为空时返回结束索引
+     */
+    public static int lastIndexOfIgnoreCase(CharSequence string, CharSequence pattern, int beginIndex, int endIndex, int defaultIndex) {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(pattern, "Pattern is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        final int patternLength = pattern.length();
+        if (patternLength == 0) {
+            return endIndex;
+        }
+        
+        final char[] array = arrayOf(string);
+        final int offset = array != null ? ((CharSlice) string).arrayOffset() : 0;
+        final char first = CaseFolding.fold(pattern.charAt(0));
+        final char firstUpper = first >= 'a' && first <= 'z' ? (char) (first - ('a' - 'A')) : first;
+        if (array != null) {
+            for (int i = endIndex - patternLength; i >= beginIndex; i--) {
+                final char ch = array[offset + i];
+                if ((ch == first || ch == firstUpper || ch >= 128 && CaseFolding.fold(ch) == first)
+                    && regionMatchesIgnoreCase(string, array, offset, i, pattern)) {
+                    return i;
+                }
+            }
+        } else {
+            for (int i = endIndex - patternLength; i >= beginIndex; i--) {
+                final char ch = string.charAt(i);
+                if ((ch == first || ch == firstUpper || ch >= 128 && CaseFolding.fold(ch) == first)
+                    && regionMatchesIgnoreCase(string, null, 0, i, pattern)) {
+                    return i;
+                }
+            }
+        }
+        return defaultIndex;
+    }
+    
+    /**
+     * 在字符串中寻找最后一个在折叠大小写和全角半角后与模式串相等的子串
+     *
+     * @param string 搜索目标字符串
+     * @param pattern 模式串
+     * @param beginIndex 起始索引
+     * @param defaultIndex 默认索引
+     * @return 找到时返回子串的起始索引，否则返回默认索引
+     */
+    public static int lastIndexOfIgnoreCase(CharSequence string, CharSequence pattern, int beginIndex, int defaultIndex) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        return lastIndexOfIgnoreCase(string, pattern, beginIndex, string.length(), defaultIndex);
+    }
+    
+    /**
+     * 在字符串中寻找最后一个在折叠大小写和全角半角后与模式串相等的子串
+     *
+     * @param string 搜索目标字符串
+     * @param pattern 模式串
+     * @return 找到时返回子串的起始索引，否则返回 -1
+     */
+    public static int lastIndexOfIgnoreCase(CharSequence string, CharSequence pattern) {
+        return lastIndexOfIgnoreCase(string, pattern, 0, -1);
+    }
+    
+    /**
+     * 判断字符串是否包含在折叠大小写和全角半角后与模式串相等的子串
+     *
+     * @param string 搜索目标字符串
+     * @param pattern 模式串
+     * @return 是否包含
+     */
+    public static boolean containsIgnoreCase(CharSequence string, CharSequence pattern) {
+        return indexOfIgnoreCase(string, pattern, 0, -1) >= 0;
+    }
+    
+    /**
+     * 判断从 start 开始的子串是否在折叠后与模式串相等，调用方保证长度足够
+     */
+    private static boolean regionMatchesIgnoreCase(CharSequence string, char[] array, int offset, int start, CharSequence pattern) {
+        final int patternLength = pattern.length();
+        for (int j = 1; j < patternLength; j++) {
+            final char ch = array != null ? array[offset + start + j] : string.charAt(start + j);
+            final char expected = pattern.charAt(j);
+            if (ch != expected && CaseFolding.fold(ch) != CaseFolding.fold(expected)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 在区间中从前向后寻找属于或不属于字符集的字符。
+     * 字符集是 {@link CharacterSet} 时不装箱，字符串是数组支持的 {@link CharSlice} 时直接扫描数组。
+     */
+    private static int indexOfCharacter(CharSequence string, Set<Character> characters, int beginIndex, int endIndex,
+                                        int defaultIndex, boolean included) {
+        final char[] array = arrayOf(string);
+        final int offset = array != null ? ((CharSlice) string).arrayOffset() : 0;
+        if (characters instanceof CharacterSet) {
+            final CharacterSet characterSet = (CharacterSet) characters;
+            if (array != null) {
+                for (int i = beginIndex; i < endIndex; i++) {
+                    if (characterSet.contains(array[offset + i]) == included) {
+                        return i;
+                    }
+                }
+            } else {
+                for (int i = beginIndex; i < endIndex; i++) {
+                    if (characterSet.contains(string.charAt(i)) == included) {
+                        return i;
+                    }
+                }
+            }
+            return defaultIndex;
+        }
+        
+        for (int i = beginIndex; i < endIndex; i++) {
+            final char ch = array != null ? array[offset + i] : string.charAt(i);
+            if (characters.contains(ch) == included) {
+                return i;
+            }
+        }
+        return defaultIndex;
+    }
+    
+    /**
+     * 在区间中从后向前寻找属于或不属于字符集的字符
+     */
+    private static int lastIndexOfCharacter(CharSequence string, Set<Character> characters, int beginIndex, int endIndex,
+                                            int defaultIndex, boolean included) {
+        final char[] array = arrayOf(string);
+        final int offset = array != null ? ((CharSlice) string).arrayOffset() : 0;
+        if (characters instanceof CharacterSet) {
+            final CharacterSet characterSet = (CharacterSet) characters;
+            if (array != null) {
+                for (int i = endIndex - 1; i >= beginIndex; i--) {
+                    if (characterSet.contains(array[offset + i]) == included) {
+                        return i;
+                    }
+                }
+            } else {
+                for (int i = endIndex - 1; i >= beginIndex; i--) {
+                    if (characterSet.contains(string.charAt(i)) == included) {
+                        return i;
+                    }
+                }
+            }
+            return defaultIndex;
+        }
+        
+        for (int i = endIndex - 1; i >= beginIndex; i--) {
+            final char ch = array != null ? array[offset + i] : string.charAt(i);
+            if (characters.contains(ch) == included) {
+                return i;
+            }
+        }
+        return defaultIndex;
+    }
+    
+    /**
+     * JSON 中 ASCII 字符的转义表，null 表示无需转义
+     */
+    private static final String[] JSON_ESCAPES = new String[128];
+    
+    /**
+     * HTML 中 ASCII 字符的转义表，null 表示无需转义
+     */
+    private static final String[] HTML_ESCAPES = new String[128];
+    
+    /**
+     * ASCII 字符对应的十六进制数值，-1 表示不是十六进制数字。
+     * 不使用 {@link Character#digit(char, int)}，因为它也接受全角数字等非 ASCII 数字
+     */
+    private static final byte[] HEX_DIGITS = new byte[128];
+    
+    static {
+        java.util.Arrays.fill(HEX_DIGITS, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_DIGITS['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_DIGITS['a' + i] = (byte) (10 + i);
+            HEX_DIGITS['A' + i] = (byte) (10 + i);
+        }
+        
+        for (char ch = 0; ch < 0x20; ch++) {
+            JSON_ESCAPES[ch] = String.format("\\u%04x", (int) ch);
+        }
+        JSON_ESCAPES['"'] = "\\\"";
+        JSON_ESCAPES['\\'] = "\\\\";
+        JSON_ESCAPES['\b'] = "\\b";
+        JSON_ESCAPES['\f'] = "\\f";
+        JSON_ESCAPES['\n'] = "\\n";
+        JSON_ESCAPES['\r'] = "\\r";
+        JSON_ESCAPES['\t'] = "\\t";
+        
+        HTML_ESCAPES['&'] = "&amp;";
+        HTML_ESCAPES['<'] = "&lt;";
+        HTML_ESCAPES['>'] = "&gt;";
+        HTML_ESCAPES['"'] = "&quot;";
+        HTML_ESCAPES['\''] = "&#39;";
+    }
+    
+    /**
+     * 寻找第一个需要按 JSON 字符串转义的字符
+     */
+    private static int indexOfJsonEscape(CharSequence string, int beginIndex, int endIndex) {
+        for (int i = beginIndex; i < endIndex; i++) {
+            final char ch = string.charAt(i);
+            if (ch < 128 ? JSON_ESCAPES[ch] != null : ch == '\u2028' || ch == '\u2029') {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 寻找第一个需要按 HTML 转义的字符
+     */
+    private static int indexOfHtmlEscape(CharSequence string, int beginIndex, int endIndex) {
+        for (int i = beginIndex; i < endIndex; i++) {
+            final char ch = string.charAt(i);
+            if (ch < 128 && HTML_ESCAPES[ch] != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 寻找第一个使 CSV 字段需要被引号包围的字符
+     */
+    private static int indexOfCsvEscape(CharSequence string, int beginIndex, int endIndex) {
+        for (int i = beginIndex; i < endIndex; i++) {
+            final char ch = string.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 批量写入字符序列的区间，避免逐字符写入或创建子串
+     */
+    private static void appendRun(Appendable appendable, CharSequence string, int beginIndex, int endIndex) throws IOException {
+        if (beginIndex >= endIndex) {
+            return;
+        }
+        final char[] array = arrayOf(string);
+        if (array != null) {
+            final int offset = ((CharSlice) string).arrayOffset();
+            if (appendable instanceof StringBuilder) {
+                ((StringBuilder) appendable).append(array, offset + beginIndex, endIndex - beginIndex);
+                return;
+            }
+            if (appendable instanceof Writer) {
+                ((Writer) appendable).write(array, offset + beginIndex, endIndex - beginIndex);
+                return;
+            }
+        } else if (string instanceof String && appendable instanceof Writer) {
+            ((Writer) appendable).write((String) string, beginIndex, endIndex - beginIndex);
+            return;
+        }
+        appendable.append(string, beginIndex, endIndex);
+    }
+    
+    /**
+     * 将字符序列的区间按 JSON 字符串的规则转义后写入目标，不包括两侧的引号。
+     * 控制字符、引号、反斜杠以及 U+2028、U+2029 会被转义，其余字符原样批量写入。
+     *
+     * @param string 字符序列
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param appendable 写入目标
+     * @throws IOException 写入出错
+     */
+    public static void escapeJson(CharSequence string, int beginIndex, int endIndex, Appendable appendable) throws IOException {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(appendable, "Appendable is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        int runBegin = beginIndex;
+        for (int i = indexOfJsonEscape(string, beginIndex, endIndex); i >= 0; i = indexOfJsonEscape(string, runBegin, endIndex)) {
+            appendRun(appendable, string, runBegin, i);
+            final char ch = string.charAt(i);
+            appendable.append(ch < 128 ? JSON_ESCAPES[ch] : ch == '\u2028' ? "\\u2028" : "\\u2029");
+            runBegin = i + 1;
+        }
+        appendRun(appendable, string, runBegin, endIndex);
+    }
+    
+    /**
+     * 按 JSON 字符串的规则转义，不包括两侧的引号
+     *
+     * @param string 字符序列
+     * @return 转义后的字符串。无需转义时返回 string.toString()，对字符串来说即其本身
+     */
+    public static String escapeJson(CharSequence string) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        final int first = indexOfJsonEscape(string, 0, string.length());
+        if (first < 0) {
+            return string.toString();
+        }
+        final StringBuilder stringBuilder = new StringBuilder(string.length() + 16);
+        try {
+            appendRun(stringBuilder, string, 0, first);
+            escapeJson(string, first, string.length(), stringBuilder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return stringBuilder.toString();
+    }
+    
+    /**
+     * 将 JSON 字符串的内容（不包括两侧的引号）反转义后写入目标
+     *
+     * @param string 字符序列
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param appendable 写入目标
+     * @throws IOException 写入出错
+     * @throws IllegalArgumentException 转义序列不合法
+     */
+    public static void unescapeJson(CharSequence string, int beginIndex, int endIndex, Appendable appendable) throws IOException {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(appendable, "Appendable is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        int runBegin = beginIndex;
+        int i = indexOfCharacter(string, '\\', beginIndex, endIndex);
+        while (i >= 0) {
+            appendRun(appendable, string, runBegin, i);
+            Preconditions.checkArgument(i + 1 < endIndex, "Incomplete escape sequence at index %s!", i);
+            final char escaped = string.charAt(i + 1);
+            int next = i + 2;
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    appendable.append(escaped);
+                    break;
+                case 'b':
+                    appendable.append('\b');
+                    break;
+                case 'f':
+                    appendable.append('\f');
+                    break;
+                case 'n':
+                    appendable.append('\n');
+                    break;
+                case 'r':
+                    appendable.append('\r');
+                    break;
+                case 't':
+                    appendable.append('\t');
+                    break;
+                case 'u':
+                    Preconditions.checkArgument(i + 6 <= endIndex, "Incomplete unicode escape at index %s!", i);
+                    appendable.append((char) parseHex(string, i + 2, i + 6));
+                    next = i + 6;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Illegal escape sequence '\\" + escaped + "' at index " + i + "!");
+            }
+            runBegin = next;
+            i = indexOfCharacter(string, '\\', next, endIndex);
+        }
+        appendRun(appendable, string, runBegin, endIndex);
+    }
+    
+    /**
+     * 反转义 JSON 字符串的内容（不包括两侧的引号）
+     *
+     * @param string 字符序列
+     * @return 反转义后的字符串。没有转义序列时返回 string.toString()
+     * @throws IllegalArgumentException 转义序列不合法
+     */
+    public static String unescapeJson(CharSequence string) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        if (indexOfCharacter(string, '\\', 0, string.length()) < 0) {
+            return string.toString();
+        }
+        final StringBuilder stringBuilder = new StringBuilder(string.length());
+        try {
+            unescapeJson(string, 0, string.length(), stringBuilder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return stringBuilder.toString();
+    }
+    
+    /**
+     * 将字符序列的区间按 HTML 文本和属性值的规则转义后写入目标，转义 &amp;、&lt;、&gt;、&quot; 和 &#39;
+     *
+     * @param string 字符序列
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param appendable 写入目标
+     * @throws IOException 写入出错
+     */
+    public static void escapeHtml(CharSequence string, int beginIndex, int endIndex, Appendable appendable) throws IOException {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(appendable, "Appendable is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        int runBegin = beginIndex;
+        for (int i = indexOfHtmlEscape(string, beginIndex, endIndex); i >= 0; i = indexOfHtmlEscape(string, runBegin, endIndex)) {
+            appendRun(appendable, string, runBegin, i);
+            appendable.append(HTML_ESCAPES[string.charAt(i)]);
+            runBegin = i + 1;
+        }
+        appendRun(appendable, string, runBegin, endIndex);
+    }
+    
+    /**
+     * 按 HTML 文本和属性值的规则转义
+     *
+     * @param string 字符序列
+     * @return 转义后的字符串。无需转义时返回 string.toString()，对字符串来说即其本身
+     */
+    public static String escapeHtml(CharSequence string) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        final int first = indexOfHtmlEscape(string, 0, string.length());
+        if (first < 0) {
+            return string.toString();
+        }
+        final StringBuilder stringBuilder = new StringBuilder(string.length() + 16);
+        try {
+            appendRun(stringBuilder, string, 0, first);
+            escapeHtml(string, first, string.length(), stringBuilder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return stringBuilder.toString();
+    }
+    
+    /**
+     * 将 HTML 文本反转义后写入目标。
+     * 支持 &amp;amp;、&amp;lt;、&amp;gt;、&amp;quot;、&amp;apos;、&amp;nbsp; 和十进制、十六进制的数字字符引用，不认识的实体原样保留。
+     * 引用 0 或代理字符的数字字符引用按 HTML 规范替换为 U+FFFD。
+     *
+     * @param string 字符序列
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param appendable 写入目标
+     * @throws IOException 写入出错
+     */
+    public static void unescapeHtml(CharSequence string, int beginIndex, int endIndex, Appendable appendable) throws IOException {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(appendable, "Appendable is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        int runBegin = beginIndex;
+        int i = indexOfCharacter(string, '&', beginIndex, endIndex);
+        while (i >= 0) {
+            final int semicolon = indexOfCharacter(string, ';', i + 1, Math.min(endIndex, i + 12));
+            final int codePoint = semicolon < 0 ? -1 : parseHtmlEntity(string, i + 1, semicolon);
+            if (codePoint >= 0) {
+                appendRun(appendable, string, runBegin, i);
+                if (Character.isBmpCodePoint(codePoint)) {
+                    appendable.append((char) codePoint);
+                } else {
+                    appendable.append(Character.highSurrogate(codePoint)).append(Character.lowSurrogate(codePoint));
+                }
+                runBegin = semicolon + 1;
+            }
+            i = indexOfCharacter(string, '&', codePoint >= 0 ? semicolon + 1 : i + 1, endIndex);
+        }
+        appendRun(appendable, string, runBegin, endIndex);
+    }
+    
+    /**
+     * 反转义 HTML 文本
+     *
+     * @param string 字符序列
+     * @return 反转义后的字符串。没有实体时返回 string.toString()
+     */
+    public static String unescapeHtml(CharSequence string) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        if (indexOfCharacter(string, '&', 0, string.length()) < 0) {
+            return string.toString();
+        }
+        final StringBuilder stringBuilder = new StringBuilder(string.length());
+        try {
+            unescapeHtml(string, 0, string.length(), stringBuilder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return stringBuilder.toString();
+    }
+    
+    /**
+     * 解析 HTML 实体名或数字字符引用
+     *
+     * @return 码点，无法识别时返回 -1
+     */
+    private static int parseHtmlEntity(CharSequence string, int beginIndex, int endIndex) {
+        final int length = endIndex - beginIndex;
+        if (length < 2) {
+            return -1;
+        }
+        if (string.charAt(beginIndex) == '#') {
+            final boolean hex = string.charAt(beginIndex + 1) == 'x' || string.charAt(beginIndex + 1) == 'X';
+            final int digitsBegin = beginIndex + (hex ? 2 : 1);
+            if (digitsBegin >= endIndex) {
+                return -1;
+            }
+            int codePoint = 0;
+            for (int i = digitsBegin; i < endIndex; i++) {
+                final int digit = hexDigit(string.charAt(i));
+                if (digit < 0 || (!hex && digit >= 10)) {
+                    return -1;
+                }
+                codePoint = codePoint * (hex ? 16 : 10) + digit;
+                if (codePoint > Character.MAX_CODE_POINT) {
+                    return -1;
+                }
+            }
+            // 和 HTML 规范一致，NUL 和代理字符替换为 U+FFFD，避免写出孤立的代理字符
+            if (codePoint == 0 || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                return 0xFFFD;
+            }
+            return codePoint;
+        }
+        switch (string.subSequence(beginIndex, endIndex).toString()) {
+            case "amp":
+                return '&';
+            case "lt":
+                return '<';
+            case "gt":
+                return '>';
+            case "quot":
+                return '"';
+            case "apos":
+                return '\'';
+            case "nbsp":
+                return '\u00A0';
+            default:
+                return -1;
+        }
+    }
+    
+    /**
+     * 将字符序列的区间按 RFC 4180 的规则写成 CSV 字段。
+     * 包含逗号、引号或换行时用引号包围并将引号加倍，否则原样写入。
+     *
+     * @param string 字符序列
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param appendable 写入目标
+     * @throws IOException 写入出错
+     */
+    public static void escapeCsv(CharSequence string, int beginIndex, int endIndex, Appendable appendable) throws IOException {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(appendable, "Appendable is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        if (indexOfCsvEscape(string, beginIndex, endIndex) < 0) {
+            appendRun(appendable, string, beginIndex, endIndex);
+            return;
+        }
+        appendable.append('"');
+        int runBegin = beginIndex;
+        for (int i = indexOfCharacter(string, '"', beginIndex, endIndex); i >= 0; i = indexOfCharacter(string, '"', i + 1, endIndex)) {
+            // 引号本身作为下一段的开头写入，从而被加倍
+            appendRun(appendable, string, runBegin, i + 1);
+            runBegin = i;
+        }
+        appendRun(appendable, string, runBegin, endIndex);
+        appendable.append('"');
+    }
+    
+    /**
+     * 按 RFC 4180 的规则写成 CSV 字段
+     *
+     * @param string 字符序列
+     * @return CSV 字段。无需引号时返回 string.toString()，对字符串来说即其本身
+     */
+    public static String escapeCsv(CharSequence string) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        if (indexOfCsvEscape(string, 0, string.length()) < 0) {
+            return string.toString();
+        }
+        final StringBuilder stringBuilder = new StringBuilder(string.length() + 8);
+        try {
+            escapeCsv(string, 0, string.length(), stringBuilder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return stringBuilder.toString();
+    }
+    
+    /**
+     * 将 CSV 字段还原后写入目标。被引号包围的字段去掉两侧引号并将加倍的引号还原，否则原样写入。
+     *
+     * @param string 字符序列
+     * @param beginIndex 起始索引（包含）
+     * @param endIndex 结束索引（不包含）
+     * @param appendable 写入目标
+     * @throws IOException 写入出错
+     * @throws IllegalArgumentException 被引号包围的字段中有未加倍的引号
+     */
+    public static void unescapeCsv(CharSequence string, int beginIndex, int endIndex, Appendable appendable) throws IOException {
+        Preconditions.checkNotNull(string, "String is null!");
+        Preconditions.checkNotNull(appendable, "Appendable is null!");
+        Preconditions.checkPositionIndexes(beginIndex, endIndex, string.length());
+        
+        if (endIndex - beginIndex < 2 || string.charAt(beginIndex) != '"' || string.charAt(endIndex - 1) != '"') {
+            appendRun(appendable, string, beginIndex, endIndex);
+            return;
+        }
+        final int contentEnd = endIndex - 1;
+        int runBegin = beginIndex + 1;
+        for (int i = indexOfCharacter(string, '"', runBegin, contentEnd); i >= 0; i = indexOfCharacter(string, '"', runBegin, contentEnd)) {
+            Preconditions.checkArgument(i + 1 < contentEnd && string.charAt(i + 1) == '"',
+                "Unescaped quote at index %s!", i);
+            appendRun(appendable, string, runBegin, i + 1);
+            runBegin = i + 2;
+        }
+        appendRun(appendable, string, runBegin, contentEnd);
+    }
+    
+    /**
+     * 还原 CSV 字段
+     *
+     * @param string 字符序列
+     * @return 字段内容。字段没有被引号包围时返回 string.toString()
+     * @throws IllegalArgumentException 被引号包围的字段中有未加倍的引号
+     */
+    public static String unescapeCsv(CharSequence string) {
+        Preconditions.checkNotNull(string, "String is null!");
+        
+        final int length = string.length();
+        if (length < 2 || string.charAt(0) != '"' || string.charAt(length - 1) != '"') {
+            return string.toString();
+        }
+        final StringBuilder stringBuilder = new StringBuilder(length);
+        try {
+            unescapeCsv(string, 0, length, stringBuilder);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return stringBuilder.toString();
+    }
+    
+    private static int indexOfCharacter(CharSequence string, char ch, int beginIndex, int endIndex) {
+        for (int i = beginIndex; i < endIndex; i++) {
+            if (string.charAt(i) == ch) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static int hexDigit(char ch) {
+        return ch < 128 ? HEX_DIGITS[ch] : -1;
+    }
+    
+    private static int parseHex(CharSequence string, int beginIndex, int endIndex) {
+        int value = 0;
+        for (int i = beginIndex; i < endIndex; i++) {
+            final int digit = hexDigit(string.charAt(i));
+            Preconditions.checkArgument(digit >= 0, "Illegal hex digit '%s' at index %s!", string.charAt(i), i);
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+    
+    /**
+     * 获取数组支持的切片的底层数组
+     *
+     * @param string 字符序列
+     * @return 当字符序列是数组支持的 {@link CharSlice} 时返回底层数组，否则返回 null
+     */
+    private static char[] arrayOf(CharSequence string) {
+        return string instanceof CharSlice ? ((CharSlice) string).array() : null;
+    }
+    
+    /**
+     * 编辑距离计算使用的线程私有缓存，使得比较过程中不必分配新数组
+     */
+    private static final class DistanceScratch {
+        
+        /**
+         * ASCII 字符的匹配位向量
+         */
+        final long[] asciiPeq = new long[128];
+        
+        /**
+         * 非 ASCII 字符的开放寻址表，-1 表示空槽
+         */
+        final int[] keys = new int[128];
+        
+        /**
+         * 非 ASCII 字符的匹配位向量
+         */
+        final long[] values = new long[128];
+        
+        /**
+         * 每一列横向差值为 +1 的位集合
+         */
+        long[] positiveHorizontal = new long[16];
+        
+        /**
+         * 每一列横向差值为 -1 的位集合
+         */
+        long[] negativeHorizontal = new long[16];
+        
+        /**
+         * 动态规划使用的三行
+         */
+        int[] row0 = new int[64];
+        int[] row1 = new int[64];
+        int[] row2 = new int[64];
+        
+        /**
+         * Jaro 匹配标记
+         */
+        boolean[] flags1 = new boolean[64];
+        boolean[] flags2 = new boolean[64];
+        
+        DistanceScratch() {
+            java.util.Arrays.fill(keys, -1);
+        }
+        
+        void ensureHorizontal(int size) {
+            if (positiveHorizontal.length < size) {
+                final int capacity = Math.max(size, positiveHorizontal.length * 2);
+                positiveHorizontal = new long[capacity];
+                negativeHorizontal = new long[capacity];
+            }
+        }
+        
+        void ensureRows(int size) {
+            if (row0.length < size) {
+                final int capacity = Math.max(size, row0.length * 2);
+                row0 = new int[capacity];
+                row1 = new int[capacity];
+                row2 = new int[capacity];
+            }
+        }
+        
+        void ensureFlags(int size1, int size2) {
+            if (flags1.length < size1) {
+                flags1 = new boolean[Math.max(size1, flags1.length * 2)];
+            }
+            if (flags2.length < size2) {
+                flags2 = new boolean[Math.max(size2, flags2.length * 2)];
+            }
+        }
+        
+        void putPeq(char ch, long bit) {
+            if (ch < 128) {
+                asciiPeq[ch] |= bit;
+                return;
+            }
+            int index = (ch * 0x9E3779B1) >>> 25;
+            while (keys[index] != -1 && keys[index] != ch) {
+                index = (index + 1) & 127;
+            }
+            keys[index] = ch;
+            values[index] |= bit;
+        }
+        
+        long getPeq(char ch) {
+            if (ch < 128) {
+                return asciiPeq[ch];
+            }
+            int index = (ch * 0x9E3779B1) >>> 25;
+            int key;
+            while ((key = keys[index]) != -1) {
+                if (key == ch) {
+                    return values[index];
+                }
+                index = (index + 1) & 127;
+            }
+            return 0;
+        }
+        
+        void clearPeq(CharSequence pattern, int beginIndex, int endIndex) {
+            boolean nonAscii = false;
+            for (int i = beginIndex; i < endIndex; i++) {
+                final char ch = pattern.charAt(i);
+                if (ch < 128) {
+                    asciiPeq[ch] = 0;
+                } else {
+                    nonAscii = true;
+                }
+            }
+            if (nonAscii) {
+                java.util.Arrays.fill(keys, -1);
+                java.util.Arrays.fill(values, 0);
+            }
+        }
+    }
+    
+    /**
+     * 分块计算最长公共子序列时的共享状态
+     */
+    private static final class WavefrontLcs {
+        
+        final char[] rows;
+        final char[] columns;
+        final int tileSize;
+        final int tileRows;
+        final int tileColumns;
+        
+        /**
+         * 每一列在最近计算过的块底边上的值
+         */
+        final int[] horizontal;
+        
+        /**
+         * 每一行在最近计算过的块右边上的值
+         */
+        final int[] vertical;
+        
+        /**
+         * 块左上角的值，按块所在的对角线（行号 - 列号）保存
+         */
+        final int[] corners;
+        
+        WavefrontLcs(char[] rows, char[] columns, int tileSize) {
+            this.rows = rows;
+            this.columns = columns;
+            this.tileSize = tileSize;
+            this.tileRows = (rows.length + tileSize - 1) / tileSize;
+            this.tileColumns = (columns.length + tileSize - 1) / tileSize;
+            this.horizontal = new int[columns.length + 1];
+            this.vertical = new int[rows.length + 1];
+            this.corners = new int[tileRows + tileColumns];
+        }
+        
+        void computeTile(int tileRow, int tileColumn, int[] row) {
+            final int beginRow = tileRow * tileSize;
+            final int endRow = Math.min(beginRow + tileSize, rows.length);
+            final int beginColumn = tileColumn * tileSize;
+            final int endColumn = Math.min(beginColumn + tileSize, columns.length);
+            final int width = endColumn - beginColumn;
+            final int cornerIndex = tileRow - tileColumn + tileColumns;
+            
+            row[0] = corners[cornerIndex];
+            System.arraycopy(horizontal, beginColumn + 1, row, 1, width);
+            
+            for (int i = beginRow; i < endRow; i++) {
+                final char ch = rows[i];
+                int diagonal = row[0];
+                row[0] = vertical[i + 1];
+                for (int j = 1; j <= width; j++) {
+                    final int above = row[j];
+                    if (ch == columns[beginColumn + j - 1]) {
+                        row[j] = diagonal + 1;
+                    } else if (row[j - 1] > above) {
+                        row[j] = row[j - 1];
+                    }
+                    diagonal = above;
+                }
+                vertical[i + 1] = row[width];
+            }
+            
+            System.arraycopy(row, 1, horizontal, beginColumn + 1, width);
+            corners[cornerIndex] = row[width];
+        }
+    }
+    
+    /**
+     * 计算一条反对角线上的若干块
+     */
+    private static final class WavefrontTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final WavefrontLcs lcs;
+        private final int diagonal;
+        private final int beginTileRow;
+        private final int endTileRow;
+        
+        WavefrontTask(WavefrontLcs lcs, int diagonal, int beginTileRow, int endTileRow) {
+            this.lcs = lcs;
+            this.diagonal = diagonal;
+            this.beginTileRow = beginTileRow;
+            this.endTileRow = endTileRow;
+        }
+        
+        @Override
+        protected void compute() {
+            if (endTileRow - beginTileRow > 1) {
+                final int middle = (beginTileRow + endTileRow) >>> 1;
+                invokeAll(new WavefrontTask(lcs, diagonal, beginTileRow, middle),
+                    new WavefrontTask(lcs, diagonal, middle, endTileRow));
+                return;
+            }
+            lcs.computeTile(beginTileRow, diagonal - beginTileRow, new int[lcs.tileSize + 1]);
+        }
+    }
 }
@@ -0,0 +1,579 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 后缀数组，用于对同一段大文本反复执行子串查询。
+ * 使用 SA-IS 算法在线性时间内构造后缀数组，使用 Kasai 算法构造 LCP 数组。
+ * 构造后可以保存到文件，之后通过内存映射加载，加载时不需要复制数据。
+ * 需要更小的内存占用时，可以通过 {@link #toFmIndex(int)} 构造压缩的 FM 索引。
+ *
+ * @author Chuanwise
+ */
+@SuppressWarnings("unused")
+public final class SuffixArray {
+    
+    /**
+     * 文本的最大长度，保证每个区域都能被单独映射
+     */
+    public static final int MAX_LENGTH = Integer.MAX_VALUE / 4;
+    
+    /**
+     * 文件头部的魔数，即 "SAIX"
+     */
+    private static final int MAGIC = 0x53414958;
+    
+    private static final int VERSION = 1;
+    
+    private static final int HEADER_LENGTH = 16;
+    
+    /**
+     * 写入文件时使用的缓冲区大小
+     */
+    private static final int BUFFER_LENGTH = 1 << 16;
+    
+    private final CharBuffer text;
+    
+    /**
+     * 按字典序排列的后缀起始位置
+     */
+    private final IntBuffer suffixes;
+    
+    /**
+     * lcp[i] 是排名为 i - 1 和 i 的后缀的最长公共前缀长度，lcp[0] 为 0
+     */
+    private final IntBuffer lcp;
+    
+    private final int length;
+    
+    private SuffixArray(CharBuffer text, IntBuffer suffixes, IntBuffer lcp) {
+        this.text = text;
+        this.suffixes = suffixes;
+        this.lcp = lcp;
+        this.length = text.limit();
+    }
+    
+    /**
+     * 构造文本的后缀数组
+     *
+     * @param text 文本
+     * @return 后缀数组
+     * @throws IllegalArgumentException 文本长度超过 {@link #MAX_LENGTH}
+     */
+    public static SuffixArray of(CharSequence text) {
+        Preconditions.checkNotNull(text, "Text is null!");
+        Preconditions.checkArgument(text.length() <= MAX_LENGTH, "Text is longer than " + MAX_LENGTH + "!");
+        
+        final char[] chars = toCharArray(text);
+        final int[] codes = alphabetCodes(chars);
+        final int[] symbols = new int[chars.length];
+        int upper = 0;
+        for (int i = 0; i < chars.length; i++) {
+            symbols[i] = codes[chars[i]];
+            upper = Math.max(upper, symbols[i]);
+        }
+        
+        final int[] suffixes = suffixArray(symbols, upper);
+        final int[] lcp = lcp(symbols, suffixes);
+        return new SuffixArray(CharBuffer.wrap(chars), IntBuffer.wrap(suffixes), IntBuffer.wrap(lcp));
+    }
+    
+    private static char[] toCharArray(CharSequence text) {
+        if (text instanceof String) {
+            return ((String) text).toCharArray();
+        }
+        final char[] chars = new char[text.length()];
+        if (text instanceof CharSlice) {
+            ((CharSlice) text).getChars(0, chars.length, chars, 0);
+        } else {
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = text.charAt(i);
+            }
+        }
+        return chars;
+    }
+    
+    /**
+     * 为出现过的字符分配保持顺序的连续编码
+     */
+    private static int[] alphabetCodes(char[]... texts) {
+        final int[] codes = new int[Character.MAX_VALUE + 1];
+        for (char[] text : texts) {
+            for (char ch : text) {
+                codes[ch] = 1;
+            }
+        }
+        int next = 0;
+        for (int ch = 0; ch < codes.length; ch++) {
+            if (codes[ch] != 0) {
+                codes[ch] = next++;
+            }
+        }
+        return codes;
+    }
+    
+    /**
+     * 使用 SA-IS 算法构造后缀数组
+     *
+     * @param symbols 取值为 [0, upper] 的符号序列
+     * @param upper   符号的最大值
+     * @return 后缀数组
+     */
+    static int[] suffixArray(int[] symbols, int upper) {
+        final int n = symbols.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        if (n == 1) {
+            return new int[] {0};
+        }
+        if (n == 2) {
+            return symbols[0] < symbols[1] ? new int[] {0, 1} : new int[] {1, 0};
+        }
+        
+        // types[i] 为 true 表示 S 型后缀，即后缀 i 小于后缀 i + 1
+        final boolean[] types = new boolean[n];
+        for (int i = n - 2; i >= 0; i--) {
+            types[i] = symbols[i] == symbols[i + 1] ? types[i + 1] : symbols[i] < symbols[i + 1];
+        }
+        
+        // 每个符号的 L 型桶和 S 型桶的起始位置
+        final int[] lBuckets = new int[upper + 1];
+        final int[] sBuckets = new int[upper + 1];
+        for (int i = 0; i < n; i++) {
+            if (!types[i]) {
+                sBuckets[symbols[i]]++;
+            } else {
+                // S 型字符之后必然有更大的字符，因此 symbols[i] + 1 <= upper
+                lBuckets[symbols[i] + 1]++;
+            }
+        }
+        for (int i = 0; i <= upper; i++) {
+            sBuckets[i] += lBuckets[i];
+            if (i < upper) {
+                lBuckets[i + 1] += sBuckets[i];
+            }
+        }
+        
+        final int[] lmsMap = new int[n + 1];
+        java.util.Arrays.fill(lmsMap, -1);
+        int lmsCount = 0;
+        for (int i = 1; i < n; i++) {
+            if (!types[i - 1] && types[i]) {
+                lmsMap[i] = lmsCount++;
+            }
+        }
+        final int[] lms = new int[lmsCount];
+        for (int i = 1, j = 0; i < n; i++) {
+            if (!types[i - 1] && types[i]) {
+                lms[j++] = i;
+            }
+        }
+        
+        final int[] suffixes = new int[n];
+        final int[] buckets = new int[upper + 1];
+        induce(symbols, types, lms, suffixes, buckets, lBuckets, sBuckets);
+        
+        if (lmsCount > 0) {
+            // 按诱导排序的结果给 LMS 子串编号，递归排序 LMS 后缀
+            final int[] sortedLms = new int[lmsCount];
+            for (int i = 0, j = 0; i < n; i++) {
+                if (lmsMap[suffixes[i]] != -1) {
+                    sortedLms[j++] = suffixes[i];
+                }
+            }
+            final int[] reduced = new int[lmsCount];
+            int reducedUpper = 0;
+            reduced[lmsMap[sortedLms[0]]] = 0;
+            for (int i = 1; i < lmsCount; i++) {
+                int left = sortedLms[i - 1];
+                int right = sortedLms[i];
+                final int leftEnd = lmsMap[left] + 1 < lmsCount ? lms[lmsMap[left] + 1] : n;
+                final int rightEnd = lmsMap[right] + 1 < lmsCount ? lms[lmsMap[right] + 1] : n;
+                boolean same = true;
+                if (leftEnd - left != rightEnd - right) {
+                    same = false;
+                } else {
+                    while (left < leftEnd && symbols[left] == symbols[right]) {
+                        left++;
+                        right++;
+                    }
+                    if (left == n || symbols[left] != symbols[right]) {
+                        same = false;
+                    }
+                }
+                if (!same) {
+                    reducedUpper++;
+                }
+                reduced[lmsMap[sortedLms[i]]] = reducedUpper;
+            }
+            
+            final int[] reducedSuffixes = suffixArray(reduced, reducedUpper);
+            for (int i = 0; i < lmsCount; i++) {
+                sortedLms[i] = lms[reducedSuffixes[i]];
+            }
+            induce(symbols, types, sortedLms, suffixes, buckets, lBuckets, sBuckets);
+        }
+        return suffixes;
+    }
+    
+    /**
+     * 根据排好序的 LMS 后缀诱导排序全部后缀
+     */
+    private static void induce(int[] symbols, boolean[] types, int[] lms, int[] suffixes, int[] buckets,
+                               int[] lBuckets, int[] sBuckets) {
+        final int n = symbols.length;
+        java.util.Arrays.fill(suffixes, -1);
+        
+        System.arraycopy(sBuckets, 0, buckets, 0, buckets.length);
+        for (int position : lms) {
+            if (position != n) {
+                suffixes[buckets[symbols[position]]++] = position;
+            }
+        }
+        
+        System.arraycopy(lBuckets, 0, buckets, 0, buckets.length);
+        suffixes[buckets[symbols[n - 1]]++] = n - 1;
+        for (int i = 0; i < n; i++) {
+            final int position = suffixes[i];
+            if (position >= 1 && !types[position - 1]) {
+                suffixes[buckets[symbols[position - 1]]++] = position - 1;
+            }
+        }
+        
+        System.arraycopy(lBuckets, 0, buckets, 0, buckets.length);
+        for (int i = n - 1; i >= 0; i--) {
+            final int position = suffixes[i];
+            if (position >= 1 && types[position - 1]) {
+                suffixes[--buckets[symbols[position - 1] + 1]] = position - 1;
+            }
+        }
+    }
+    
+    /**
+     * 使用 Kasai 算法构造 LCP 数组
+     */
+    static int[] lcp(int[] symbols, int[] suffixes) {
+        final int n = symbols.length;
+        final int[] ranks = new int[n];
+        for (int i = 0; i < n; i++) {
+            ranks[suffixes[i]] = i;
+        }
+        
+        final int[] lcp = new int[n];
+        int height = 0;
+        for (int i = 0; i < n; i++) {
+            if (height > 0) {
+                height--;
+            }
+            if (ranks[i] == 0) {
+                height = 0;
+                continue;
+            }
+            final int j = suffixes[ranks[i] - 1];
+            while (i + height < n && j + height < n && symbols[i + height] == symbols[j + height]) {
+                height++;
+            }
+            lcp[ranks[i]] = height;
+        }
+        return lcp;
+    }
+    
+    /**
+     * 获取文本长度
+     *
+     * @return 文本长度
+     */
+    public int length() {
+        return length;
+    }
+    
+    /**
+     * 获取被索引的文本
+     *
+     * @return 文本
+     */
+    public CharSequence getText() {
+        return text.duplicate();
+    }
+    
+    /**
+     * 获取排名为 rank 的后缀的起始位置
+     *
+     * @param rank 排名
+     * @return 后缀的起始位置
+     */
+    public int getSuffix(int rank) {
+        Preconditions.checkElementIndex(rank, length);
+        
+        return suffixes.get(rank);
+    }
+    
+    /**
+     * 获取排名为 rank - 1 和 rank 的后缀的最长公共前缀长度
+     *
+     * @param rank 排名
+     * @return 最长公共前缀长度，rank 为 0 时返回 0
+     */
+    public int getLcp(int rank) {
+        Preconditions.checkElementIndex(rank, length);
+        
+        return lcp.get(rank);
+    }
+    
+    /**
+     * 比较从 position 开始的后缀和模式串
+     *
+     * @return 后缀小于模式串时返回负数，模式串是后缀的前缀时返回 0，否则返回正数
+     */
+    private int compareSuffix(int position, CharSequence pattern) {
+        final int patternLength = pattern.length();
+        for (int i = 0; i < patternLength; i++) {
+            if (position + i >= length) {
+                return -1;
+            }
+            final char ch = text.get(position + i);
+            final char expected = pattern.charAt(i);
+            if (ch != expected) {
+                return ch < expected ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * 二分查找第一个不小于模式串（strict 为 false）或大于模式串（strict 为 true）的后缀排名
+     */
+    private int bound(CharSequence pattern, boolean strict) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = compareSuffix(suffixes.get(middle), pattern);
+            if (comparison < 0 || strict && comparison == 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * 统计模式串在文本中出现的次数，出现位置可以重叠
+     *
+     * @param pattern 模式串
+     * @return 出现次数
+     */
+    public int count(CharSequence pattern) {
+        Preconditions.checkNotNull(pattern, "Pattern is null!");
+        Preconditions.checkArgument(pattern.length() > 0, "Pattern is empty!");
+        
+        return bound(pattern, true) - bound(pattern, false);
+    }
+    
+    /**
+     * 寻找模式串在文本中的全部出现位置
+     *
+     * @param pattern 模式串
+     * @return 升序排列的出现位置
+     */
+    public int[] locate(CharSequence pattern) {
+        Preconditions.checkNotNull(pattern, "Pattern is null!");
+        Preconditions.checkArgument(pattern.length() > 0, "Pattern is empty!");
+        
+        final int begin = bound(pattern, false);
+        final int end = bound(pattern, true);
+        final int[] positions = new int[end - begin];
+        for (int i = begin; i < end; i++) {
+            positions[i - begin] = suffixes.get(i);
+        }
+        java.util.Arrays.sort(positions);
+        return positions;
+    }
+    
+    /**
+     * 判断文本是否包含模式串
+     *
+     * @param pattern 模式串
+     * @return 是否包含
+     */
+    public boolean contains(CharSequence pattern) {
+        Preconditions.checkNotNull(pattern, "Pattern is null!");
+        Preconditions.checkArgument(pattern.length() > 0, "Pattern is empty!");
+        
+        final int rank = bound(pattern, false);
+        return rank < length && compareSuffix(suffixes.get(rank), pattern) == 0;
+    }
+    
+    /**
+     * 计算 2 个字符串的最长公共子串。
+     * 在两者拼接后的后缀数组中，来自不同字符串的相邻后缀的最大 LCP 即为答案。
+     *
+     * @param str1 字符串1
+     * @param str2 字符串2
+     * @return 最长公共子串，有多个时返回任意一个
+     */
+    public static String longestCommonSubstring(CharSequence str1, CharSequence str2) {
+        Preconditions.checkNotNull(str1, "String 1 is null!");
+        Preconditions.checkNotNull(str2, "String 2 is null!");
+        Preconditions.checkArgument((long) str1.length() + str2.length() < MAX_LENGTH, "Strings are too long!");
+        
+        final char[] chars1 = toCharArray(str1);
+        final char[] chars2 = toCharArray(str2);
+        final int[] codes = alphabetCodes(chars1, chars2);
+        
+        // 使用只出现一次的分隔符，使公共前缀不会跨越 2 个字符串
+        final int[] symbols = new int[chars1.length + 1 + chars2.length];
+        int separator = 0;
+        for (int i = 0; i < chars1.length; i++) {
+            symbols[i] = codes[chars1[i]];
+            separator = Math.max(separator, symbols[i] + 1);
+        }
+        for (int i = 0; i < chars2.length; i++) {
+            symbols[chars1.length + 1 + i] = codes[chars2[i]];
+            separator = Math.max(separator, symbols[chars1.length + 1 + i] + 1);
+        }
+        symbols[chars1.length] = separator;
+        
+        final int[] suffixes = suffixArray(symbols, separator);
+        final int[] lcp = lcp(symbols, suffixes);
+        int bestLength = 0;
+        int bestPosition = 0;
+        for (int i = 1; i < suffixes.length; i++) {
+            if ((suffixes[i - 1] < chars1.length) != (suffixes[i] < chars1.length) && lcp[i] > bestLength) {
+                bestLength = lcp[i];
+                bestPosition = Math.min(suffixes[i - 1], suffixes[i]);
+            }
+        }
+        return new String(chars1, bestPosition, bestLength);
+    }
+    
+    /**
+     * 构造压缩的 FM 索引
+     *
+     * @param sampleRate 后缀数组的采样间隔，越大占用内存越少，定位越慢
+     * @return FM 索引
+     */
+    public FmIndex toFmIndex(int sampleRate) {
+        Preconditions.checkArgument(sampleRate > 0, "Sample rate must be greater than 0!");
+        
+        return new FmIndex(text, suffixes, sampleRate);
+    }
+    
+    /**
+     * 将后缀数组保存到文件，之后可以通过 {@link #load(Path)} 映射加载
+     *
+     * @param path 文件路径
+     * @throws IOException 写入出错
+     */
+    public void save(Path path) throws IOException {
+        Preconditions.checkNotNull(path, "Path is null!");
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_LENGTH);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(length).putInt(0);
+            buffer.flip();
+            writeFully(channel, buffer);
+            
+            final CharBuffer chars = text.duplicate();
+            chars.clear();
+            while (chars.hasRemaining()) {
+                buffer.clear();
+                final CharBuffer part = chars.duplicate();
+                part.limit(part.position() + Math.min(chars.remaining(), BUFFER_LENGTH / 2));
+                buffer.asCharBuffer().put(part);
+                buffer.limit(2 * (part.limit() - chars.position()));
+                chars.position(part.limit());
+                writeFully(channel, buffer);
+            }
+            if (length % 2 != 0) {
+                buffer.clear();
+                buffer.putChar((char) 0);
+                buffer.flip();
+                writeFully(channel, buffer);
+            }
+            
+            writeInts(channel, buffer, suffixes);
+            writeInts(channel, buffer, lcp);
+        }
+    }
+    
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, IntBuffer ints) throws IOException {
+        final IntBuffer source = ints.duplicate();
+        source.clear();
+        while (source.hasRemaining()) {
+            buffer.clear();
+            final IntBuffer part = source.duplicate();
+            part.limit(part.position() + Math.min(source.remaining(), BUFFER_LENGTH / 4));
+            buffer.asIntBuffer().put(part);
+            buffer.limit(4 * (part.limit() - source.position()));
+            source.position(part.limit());
+            writeFully(channel, buffer);
+        }
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * 通过内存映射加载 {@link #save(Path)} 保存的后缀数组，不复制数据
+     *
+     * @param path 文件路径
+     * @return 后缀数组
+     * @throws IOException 读取出错或文件格式错误
+     */
+    public static SuffixArray load(Path path) throws IOException {
+        Preconditions.checkNotNull(path, "Path is null!");
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a suffix array file: " + path);
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported suffix array file version: " + version);
+            }
+            final int length = header.getInt();
+            final long textLength = 2L * (length + length % 2);
+            final long intsLength = 4L * length;
+            if (length < 0 || channel.size() < HEADER_LENGTH + textLength + 2 * intsLength) {
+                throw new IOException("Truncated suffix array file: " + path);
+            }
+            
+            final CharBuffer text = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH, 2L * length).asCharBuffer();
+            final IntBuffer suffixes = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH + textLength, intsLength).asIntBuffer();
+            final IntBuffer lcp = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH + textLength + intsLength, intsLength).asIntBuffer();
+            return new SuffixArray(text, suffixes, lcp);
+        }
+    }
+}
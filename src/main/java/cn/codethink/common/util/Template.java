@@ -0,0 +1,483 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的占位符模板，例如 {@code "{name} has {count} items"}。
+ * 模式串只在编译时解析一次，渲染时依次写入常量片段和参数，并根据参数长度预先确定缓冲区大小。
+ * 使用 <code>{{</code> 和 <code>}}</code> 表示字面的花括号。
+ * 模板是不可变的，可以被多个线程共享。
+ *
+ * @author Chuanwise
+ * @see Strings#template(String)
+ */
+@SuppressWarnings("unused")
+public final class Template {
+    
+    private final String pattern;
+    
+    /**
+     * 常量片段，比占位符多 1 个
+     */
+    private final String[] literals;
+    
+    /**
+     * 每个占位符对应的参数序号
+     */
+    private final int[] slots;
+    
+    /**
+     * 按首次出现顺序排列的参数名
+     */
+    private final String[] names;
+    
+    /**
+     * 常量片段的总长度
+     */
+    private final int literalLength;
+    
+    private Template(String pattern, String[] literals, int[] slots, String[] names) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.slots = slots;
+        this.names = names;
+        
+        int literalLength = 0;
+        for (String literal : literals) {
+            literalLength += literal.length();
+        }
+        this.literalLength = literalLength;
+    }
+    
+    /**
+     * 编译模板
+     *
+     * @param pattern 模式串
+     * @return 模板
+     * @throws IllegalArgumentException 花括号不匹配
+     */
+    public static Template compile(String pattern) {
+        Preconditions.checkNotNull(pattern, "Pattern is null!");
+        
+        final List<String> literals = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<Integer> slots = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        
+        final int length = pattern.length();
+        int i = 0;
+        while (i < length) {
+            final char ch = pattern.charAt(i);
+            if (ch == '{') {
+                if (i + 1 < length && pattern.charAt(i + 1) == '{') {
+                    literal.append('{');
+                    i += 2;
+                    continue;
+                }
+                final int end = pattern.indexOf('}', i + 1);
+                Preconditions.checkArgument(end >= 0, "Unclosed placeholder at index %s in pattern: %s", i, pattern);
+                final String name = pattern.substring(i + 1, end);
+                Preconditions.checkArgument(name.indexOf('{') < 0, "Nested '{' at index %s in pattern: %s", i, pattern);
+                
+                int slot = names.indexOf(name);
+                if (slot < 0) {
+                    slot = names.size();
+                    names.add(name);
+                }
+                literals.add(StringBuilders.toStringAndClear(literal));
+                slots.add(slot);
+                i = end + 1;
+            } else if (ch == '}') {
+                Preconditions.checkArgument(i + 1 < length && pattern.charAt(i + 1) == '}',
+                    "Unmatched '}' at index %s in pattern: %s", i, pattern);
+                literal.append('}');
+                i += 2;
+            } else {
+                literal.append(ch);
+                i++;
+            }
+        }
+        literals.add(literal.toString());
+        
+        final int[] slotArray = new int[slots.size()];
+        for (int j = 0; j < slotArray.length; j++) {
+            slotArray[j] = slots.get(j);
+        }
+        return new Template(pattern, literals.toArray(new String[0]), slotArray, names.toArray(new String[0]));
+    }
+    
+    /**
+     * 获取模式串
+     *
+     * @return 模式串
+     */
+    public String getPattern() {
+        return pattern;
+    }
+    
+    /**
+     * 获取参数个数，即不同占位符名的个数
+     *
+     * @return 参数个数
+     */
+    public int getArgumentCount() {
+        return names.length;
+    }
+    
+    /**
+     * 获取参数名
+     *
+     * @param index 参数序号
+     * @return 参数名
+     */
+    public String getName(int index) {
+        Preconditions.checkElementIndex(index, names.length);
+        
+        return names[index];
+    }
+    
+    /**
+     * 获取参数名对应的序号
+     *
+     * @param name 参数名
+     * @return 参数序号，不存在时返回 -1
+     */
+    public int indexOf(String name) {
+        Preconditions.checkNotNull(name, "Name is null!");
+        
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static int estimateLength(Object argument) {
+        if (argument instanceof CharSequence) {
+            return ((CharSequence) argument).length();
+        }
+        if (argument instanceof Integer) {
+            return 11;
+        }
+        if (argument instanceof Long) {
+            return 20;
+        }
+        return 16;
+    }
+    
+    private static void appendArgument(StringBuilder stringBuilder, Object argument) {
+        if (argument instanceof CharSequence) {
+            stringBuilder.append((CharSequence) argument);
+        } else if (argument instanceof Integer) {
+            stringBuilder.append(((Integer) argument).intValue());
+        } else if (argument instanceof Long) {
+            stringBuilder.append(((Long) argument).longValue());
+        } else {
+            stringBuilder.append(argument);
+        }
+    }
+    
+    /**
+     * 渲染模板并写入 StringBuilder
+     *
+     * @param stringBuilder 写入目标
+     * @param arguments     按参数名首次出现顺序排列的参数
+     * @return stringBuilder
+     * @throws IllegalArgumentException 参数个数与模板不一致
+     */
+    public StringBuilder renderTo(StringBuilder stringBuilder, Object... arguments) {
+        Preconditions.checkNotNull(stringBuilder, "String builder is null!");
+        Preconditions.checkNotNull(arguments, "Arguments are null!");
+        Preconditions.checkArgument(arguments.length == names.length,
+            "Template requires %s arguments, but got %s!", names.length, arguments.length);
+        
+        int length = literalLength;
+        for (int slot : slots) {
+            length += estimateLength(arguments[slot]);
+        }
+        stringBuilder.ensureCapacity(stringBuilder.length() + length);
+        
+        for (int i = 0; i < slots.length; i++) {
+            stringBuilder.append(literals[i]);
+            appendArgument(stringBuilder, arguments[slots[i]]);
+        }
+        return stringBuilder.append(literals[slots.length]);
+    }
+    
+    /**
+     * 渲染模板
+     *
+     * @param arguments 按参数名首次出现顺序排列的参数
+     * @return 渲染结果
+     * @throws IllegalArgumentException 参数个数与模板不一致
+     */
+    public String render(Object... arguments) {
+        Preconditions.checkNotNull(arguments, "Arguments are null!");
+        
+        if (slots.length == 0) {
+            Preconditions.checkArgument(arguments.length == names.length,
+                "Template requires %s arguments, but got %s!", names.length, arguments.length);
+            return literals[0];
+        }
+        final StringBuilder stringBuilder = StringBuilders.acquire();
+        try {
+            renderTo(stringBuilder, arguments);
+        } catch (RuntimeException e) {
+            StringBuilders.release(stringBuilder);
+            throw e;
+        }
+        return StringBuilders.toStringAndRelease(stringBuilder);
+    }
+    
+    /**
+     * 按参数名渲染模板
+     *
+     * @param arguments 参数名到参数的映射
+     * @return 渲染结果
+     * @throws IllegalArgumentException 缺少参数
+     */
+    public String render(Map<String, ?> arguments) {
+        Preconditions.checkNotNull(arguments, "Arguments are null!");
+        
+        final Object[] values = new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            final String name = names[i];
+            Preconditions.checkArgument(arguments.containsKey(name), "Missing argument: %s", name);
+            values[i] = arguments.get(name);
+        }
+        return render(values);
+    }
+    
+    /**
+     * 创建渲染器。渲染器可以反复使用，基本类型参数不装箱
+     *
+     * @return 渲染器
+     */
+    public Renderer renderer() {
+        return new Renderer();
+    }
+    
+    @Override
+    public String toString() {
+        return pattern;
+    }
+    
+    /**
+     * 可复用的渲染器，基本类型参数直接写入缓冲区而不装箱。
+     * 渲染器不是线程安全的，每个线程应使用自己的渲染器。
+     */
+    public final class Renderer {
+        
+        private static final byte UNSET = 0;
+        private static final byte OBJECT = 1;
+        private static final byte INT = 2;
+        private static final byte LONG = 3;
+        private static final byte DOUBLE = 4;
+        private static final byte CHAR = 5;
+        private static final byte BOOLEAN = 6;
+        
+        private final byte[] kinds = new byte[names.length];
+        private final long[] primitives = new long[names.length];
+        private final Object[] objects = new Object[names.length];
+        
+        private Renderer() {
+        }
+        
+        private int slotOf(String name) {
+            final int index = indexOf(name);
+            Preconditions.checkArgument(index >= 0, "No such argument: %s", name);
+            return index;
+        }
+        
+        public Renderer set(int index, Object value) {
+            Preconditions.checkElementIndex(index, names.length);
+            
+            kinds[index] = OBJECT;
+            objects[index] = value;
+            return this;
+        }
+        
+        public Renderer set(int index, int value) {
+            Preconditions.checkElementIndex(index, names.length);
+            
+            kinds[index] = INT;
+            primitives[index] = value;
+            objects[index] = null;
+            return this;
+        }
+        
+        public Renderer set(int index, long value) {
+            Preconditions.checkElementIndex(index, names.length);
+            
+            kinds[index] = LONG;
+            primitives[index] = value;
+            objects[index] = null;
+            return this;
+        }
+        
+        public Renderer set(int index, double value) {
+            Preconditions.checkElementIndex(index, names.length);
+            
+            kinds[index] = DOUBLE;
+            primitives[index] = Double.doubleToRawLongBits(value);
+            objects[index] = null;
+            return this;
+        }
+        
+        public Renderer set(int index, char value) {
+            Preconditions.checkElementIndex(index, names.length);
+            
+            kinds[index] = CHAR;
+            primitives[index] = value;
+            objects[index] = null;
+            return this;
+        }
+        
+        public Renderer set(int index, boolean value) {
+            Preconditions.checkElementIndex(index, names.length);
+            
+            kinds[index] = BOOLEAN;
+            primitives[index] = value ? 1 : 0;
+            objects[index] = null;
+            return this;
+        }
+        
+        public Renderer set(String name, Object value) {
+            return set(slotOf(name), value);
+        }
+        
+        public Renderer set(String name, int value) {
+            return set(slotOf(name), value);
+        }
+        
+        public Renderer set(String name, long value) {
+            return set(slotOf(name), value);
+        }
+        
+        public Renderer set(String name, double value) {
+            return set(slotOf(name), value);
+        }
+        
+        public Renderer set(String name, char value) {
+            return set(slotOf(name), value);
+        }
+        
+        public Renderer set(String name, boolean value) {
+            return set(slotOf(name), value);
+        }
+        
+        private int estimateSlotLength(int slot) {
+            switch (kinds[slot]) {
+                case INT:
+                    return 11;
+                case LONG:
+                    return 20;
+                case DOUBLE:
+                    return 24;
+                case CHAR:
+                    return 1;
+                case BOOLEAN:
+                    return 5;
+                default:
+                    return estimateLength(objects[slot]);
+            }
+        }
+        
+        private void appendSlot(StringBuilder stringBuilder, int slot) {
+            switch (kinds[slot]) {
+                case INT:
+                    stringBuilder.append((int) primitives[slot]);
+                    break;
+                case LONG:
+                    stringBuilder.append(primitives[slot]);
+                    break;
+                case DOUBLE:
+                    stringBuilder.append(Double.longBitsToDouble(primitives[slot]));
+                    break;
+                case CHAR:
+                    stringBuilder.append((char) primitives[slot]);
+                    break;
+                case BOOLEAN:
+                    stringBuilder.append(primitives[slot] != 0);
+                    break;
+                case OBJECT:
+                    appendArgument(stringBuilder, objects[slot]);
+                    break;
+                default:
+                    throw new IllegalStateException("Argument '" + names[slot] + "' is not set!");
+            }
+        }
+        
+        /**
+         * 渲染模板并写入 StringBuilder，参数保持不变，可以继续渲染
+         *
+         * @param stringBuilder 写入目标
+         * @return stringBuilder
+         * @throws IllegalStateException 存在未设置的参数
+         */
+        public StringBuilder renderTo(StringBuilder stringBuilder) {
+            Preconditions.checkNotNull(stringBuilder, "String builder is null!");
+            
+            int length = literalLength;
+            for (int slot : slots) {
+                length += estimateSlotLength(slot);
+            }
+            stringBuilder.ensureCapacity(stringBuilder.length() + length);
+            
+            for (int i = 0; i < slots.length; i++) {
+                stringBuilder.append(literals[i]);
+                appendSlot(stringBuilder, slots[i]);
+            }
+            return stringBuilder.append(literals[slots.length]);
+        }
+        
+        /**
+         * 渲染模板，参数保持不变，可以继续渲染
+         *
+         * @return 渲染结果
+         * @throws IllegalStateException 存在未设置的参数
+         */
+        public String render() {
+            final StringBuilder stringBuilder = StringBuilders.acquire();
+            try {
+                renderTo(stringBuilder);
+            } catch (RuntimeException e) {
+                StringBuilders.release(stringBuilder);
+                throw e;
+            }
+            return StringBuilders.toStringAndRelease(stringBuilder);
+        }
+        
+        /**
+         * 清除全部参数
+         *
+         * @return this
+         */
+        public Renderer clear() {
+            java.util.Arrays.fill(kinds, UNSET);
+            java.util.Arrays.fill(objects, null);
+            return this;
+        }
+    }
+}
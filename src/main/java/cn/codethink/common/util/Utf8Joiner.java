@@ -0,0 +1,389 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 直接拼接为 UTF-8 字节的 joiner，用于输出到网络或日志文件。
+ * 元素在添加时就被编码到可增长的字节数组中，ASCII 字符逐字节直接写入，
+ * 省去先拼接字符串再整体编码的一次遍历和复制。
+ * 拼接规则和 {@link Joiner} 相同。
+ *
+ * @author Chuanwise
+ * @see Joiner.Builder#buildUtf8()
+ */
+@SuppressWarnings("unused")
+public class Utf8Joiner {
+    
+    private final byte[] prefix;
+    
+    private final byte[] suffix;
+    
+    private final byte[] delimiter;
+    
+    private final byte[] emptyString;
+    
+    private final boolean nullable;
+    
+    private final Escaper escaper;
+    
+    /**
+     * 字节缓存，总是以前缀开头
+     */
+    private byte[] bytes;
+    
+    /**
+     * 已写入的字节数
+     */
+    private int length;
+    
+    /**
+     * 转义元素时使用的字符缓存
+     */
+    private StringBuilder escaped;
+    
+    Utf8Joiner(String prefix, String suffix, String delimiter, String emptyString, boolean nullable, Escaper escaper) {
+        this.prefix = prefix.getBytes(StandardCharsets.UTF_8);
+        this.suffix = suffix.getBytes(StandardCharsets.UTF_8);
+        this.delimiter = delimiter.getBytes(StandardCharsets.UTF_8);
+        this.emptyString = emptyString.getBytes(StandardCharsets.UTF_8);
+        this.nullable = nullable;
+        this.escaper = escaper;
+        
+        this.bytes = new byte[Math.max(16, this.prefix.length)];
+        write(this.prefix);
+    }
+    
+    private boolean isContentEmpty() {
+        return length == prefix.length;
+    }
+    
+    private void ensureCapacity(long capacity) {
+        if (capacity > bytes.length) {
+            Preconditions.checkArgument(capacity <= Strings.MAX_ARRAY_LENGTH,
+                "Joined byte length %s exceeds the max array length %s!", capacity, Strings.MAX_ARRAY_LENGTH);
+            
+            final long doubled = (long) bytes.length << 1;
+            bytes = java.util.Arrays.copyOf(bytes, (int) Math.min(Strings.MAX_ARRAY_LENGTH, Math.max(doubled, capacity)));
+        }
+    }
+    
+    private void write(byte[] source) {
+        ensureCapacity((long) length + source.length);
+        if (source.length <= 4) {
+            for (byte value : source) {
+                bytes[length++] = value;
+            }
+            return;
+        }
+        System.arraycopy(source, 0, bytes, length, source.length);
+        length += source.length;
+    }
+    
+    /**
+     * 将字符序列编码为 UTF-8 写入缓存。不成对的代理字符写为 '?'，和 {@link String#getBytes(java.nio.charset.Charset)} 一致
+     */
+    private void encode(CharSequence string) {
+        final int stringLength = string.length();
+        ensureCapacity((long) length + stringLength);
+        
+        // ASCII 字符一个字节一个字符，遇到其他字符前不需要检查容量
+        int i = 0;
+        int index = length;
+        final byte[] bytes = this.bytes;
+        while (i < stringLength) {
+            final char ch = string.charAt(i);
+            if (ch >= 0x80) {
+                break;
+            }
+            bytes[index++] = (byte) ch;
+            i++;
+        }
+        length = index;
+        if (i == stringLength) {
+            return;
+        }
+        
+        ensureCapacity(length + (long) (stringLength - i) * 3);
+        encodeNonAscii(string, i, stringLength);
+    }
+    
+    private void encodeNonAscii(CharSequence string, int beginIndex, int endIndex) {
+        final byte[] bytes = this.bytes;
+        int index = length;
+        for (int i = beginIndex; i < endIndex; i++) {
+            final char ch = string.charAt(i);
+            if (ch < 0x80) {
+                bytes[index++] = (byte) ch;
+            } else if (ch < 0x800) {
+                bytes[index++] = (byte) (0xC0 | ch >> 6);
+                bytes[index++] = (byte) (0x80 | ch & 0x3F);
+            } else if (Character.isSurrogate(ch)) {
+                final char low = i + 1 < endIndex ? string.charAt(i + 1) : 0;
+                if (Character.isHighSurrogate(ch) && Character.isLowSurrogate(low)) {
+                    final int codePoint = Character.toCodePoint(ch, low);
+                    bytes[index++] = (byte) (0xF0 | codePoint >> 18);
+                    bytes[index++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    bytes[index++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    bytes[index++] = (byte) (0x80 | codePoint & 0x3F);
+                    i++;
+                } else {
+                    bytes[index++] = '?';
+                }
+            } else {
+                bytes[index++] = (byte) (0xE0 | ch >> 12);
+                bytes[index++] = (byte) (0x80 | ch >> 6 & 0x3F);
+                bytes[index++] = (byte) (0x80 | ch & 0x3F);
+            }
+        }
+        length = index;
+    }
+    
+    private void append(String string) {
+        if (string == null) {
+            encode("null");
+            return;
+        }
+        if (escaper == null) {
+            encode(string);
+            return;
+        }
+        if (escaped == null) {
+            escaped = new StringBuilder();
+        }
+        escaped.setLength(0);
+        encode(escaper.escape(string, escaped));
+    }
+    
+    /**
+     * 添加一个字符串
+     *
+     * @param string 字符串
+     * @return this
+     */
+    public Utf8Joiner plus(String string) {
+        Preconditions.checkArgument(nullable || Objects.nonNull(string), "String isn't nullable, but got null!");
+        
+        if (!isContentEmpty()) {
+            write(delimiter);
+        }
+        append(string);
+        
+        return this;
+    }
+    
+    /**
+     * 添加一个元素
+     *
+     * @param element  元素
+     * @param function 方法
+     * @return this
+     */
+    public <T> Utf8Joiner plus(T element, Function<T, String> function) {
+        Preconditions.checkArgument(nullable || Objects.nonNull(element), "Element isn't nullable, but got null!");
+        Preconditions.checkNotNull(function, "Function is null!");
+        
+        if (!isContentEmpty()) {
+            write(delimiter);
+        }
+        append(function.apply(element));
+        
+        return this;
+    }
+    
+    /**
+     * 添加若干元素
+     *
+     * @param elements 元素
+     * @param function 方法
+     * @return this
+     */
+    public <T> Utf8Joiner plusAll(T[] elements, Function<T, String> function) {
+        Preconditions.checkNotNull(elements, "Elements are null!");
+        Preconditions.checkNotNull(function, "Function is null!");
+        
+        for (T element : elements) {
+            plus(element, function);
+        }
+        return this;
+    }
+    
+    /**
+     * 添加若干元素
+     *
+     * @param iterable 元素
+     * @param function 方法
+     * @return this
+     */
+    public <T> Utf8Joiner plusAll(Iterable<T> iterable, Function<T, String> function) {
+        Preconditions.checkNotNull(iterable, "Iterable is null!");
+        Preconditions.checkNotNull(function, "Function is null!");
+        
+        for (T element : iterable) {
+            plus(element, function);
+        }
+        return this;
+    }
+    
+    /**
+     * 添加若干元素
+     *
+     * @param iterable 元素
+     * @return this
+     */
+    public Utf8Joiner plusAll(Iterable<?> iterable) {
+        return plusAll(iterable, java.util.Objects::toString);
+    }
+    
+    /**
+     * 清空已添加的元素，缓存容量超过上限时收缩缓存
+     *
+     * @param maxRetainedCapacity 保留的最大缓存容量
+     * @return this
+     */
+    public Utf8Joiner reset(int maxRetainedCapacity) {
+        Preconditions.checkArgument(maxRetainedCapacity >= 0, "Max retained capacity must be greater than or equals to 0!");
+        
+        length = prefix.length;
+        if (bytes.length > maxRetainedCapacity && bytes.length > prefix.length) {
+            bytes = java.util.Arrays.copyOf(bytes, Math.max(maxRetainedCapacity, prefix.length));
+        }
+        return this;
+    }
+    
+    /**
+     * 清空已添加的元素，保留缓存容量以便复用
+     *
+     * @return this
+     */
+    public Utf8Joiner reset() {
+        length = prefix.length;
+        
+        return this;
+    }
+    
+    /**
+     * 获取合并后结果的字节数
+     *
+     * @return 字节数
+     */
+    public int getByteLength() {
+        return isContentEmpty() ? emptyString.length : length + suffix.length;
+    }
+    
+    /**
+     * 执行写入操作，期间缓存末尾临时带有后缀
+     */
+    private interface Output {
+        void write(byte[] bytes, int length) throws IOException;
+    }
+    
+    private void output(Output output) throws IOException {
+        if (isContentEmpty()) {
+            output.write(emptyString, emptyString.length);
+            return;
+        }
+        final int contentLength = length;
+        write(suffix);
+        try {
+            output.write(bytes, length);
+        } finally {
+            length = contentLength;
+        }
+    }
+    
+    /**
+     * 合并结果
+     *
+     * @return UTF-8 编码的结果
+     */
+    public byte[] join() {
+        if (isContentEmpty()) {
+            return emptyString.clone();
+        }
+        final byte[] result = java.util.Arrays.copyOf(bytes, length + suffix.length);
+        System.arraycopy(suffix, 0, result, length, suffix.length);
+        return result;
+    }
+    
+    /**
+     * 将结果写入字节缓冲区
+     *
+     * @param buffer 字节缓冲区，剩余空间不足时抛出 {@link java.nio.BufferOverflowException}
+     * @return 字节缓冲区
+     */
+    public ByteBuffer joinTo(ByteBuffer buffer) {
+        Preconditions.checkNotNull(buffer, "Buffer is null!");
+        
+        if (isContentEmpty()) {
+            return buffer.put(emptyString);
+        }
+        return buffer.put(bytes, 0, length).put(suffix);
+    }
+    
+    /**
+     * 将结果写入输出流
+     *
+     * @param outputStream 输出流
+     * @return 输出流
+     * @throws IOException 写入出错
+     */
+    public <O extends OutputStream> O joinTo(O outputStream) throws IOException {
+        Preconditions.checkNotNull(outputStream, "Output stream is null!");
+        
+        output((bytes, length) -> outputStream.write(bytes, 0, length));
+        return outputStream;
+    }
+    
+    /**
+     * 将结果写入通道。缓存直接交给通道，不再复制
+     *
+     * @param channel 通道
+     * @return 写入的字节数
+     * @throws IOException 写入出错
+     */
+    public int joinTo(WritableByteChannel channel) throws IOException {
+        Preconditions.checkNotNull(channel, "Channel is null!");
+        
+        final int[] written = new int[1];
+        output((bytes, length) -> {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            written[0] = length;
+        });
+        return written[0];
+    }
+    
+    @Override
+    public String toString() {
+        if (isContentEmpty()) {
+            return new String(emptyString, StandardCharsets.UTF_8);
+        }
+        return new String(join(), StandardCharsets.UTF_8);
+    }
+}
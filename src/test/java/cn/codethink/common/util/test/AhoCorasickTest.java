@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util.test;
+
+import cn.codethink.common.util.AhoCorasick;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+public class AhoCorasickTest {
+    
+    @Test
+    public void overlapping() throws IOException {
+        final AhoCorasick matcher = AhoCorasick.builder()
+            .addAll("he", "she", "his", "hers")
+            .build();
+        
+        final List<AhoCorasick.Match> matches = matcher.findAll("ushers");
+        Assertions.assertEquals(3, matches.size());
+        Assertions.assertEquals(new AhoCorasick.Match(1, 1, 4), matches.get(0));
+        Assertions.assertEquals(new AhoCorasick.Match(0, 2, 4), matches.get(1));
+        Assertions.assertEquals(new AhoCorasick.Match(3, 2, 6), matches.get(2));
+        Assertions.assertEquals(matches, matcher.findAll(new StringReader("ushers")));
+        
+        Assertions.assertTrue(matcher.containsAny("this"));
+        Assertions.assertFalse(matcher.containsAny("HERS"));
+    }
+    
+    @Test
+    public void leftmostLongestIgnoreCase() {
+        final AhoCorasick matcher = AhoCorasick.builder()
+            .addAll("abc", "abcd", "cde", "一万")
+            .ignoreAsciiCase(true)
+            .semantics(AhoCorasick.Semantics.LEFTMOST_LONGEST)
+            .build();
+        
+        final List<AhoCorasick.Match> matches = matcher.findAll("xABCDE 一万");
+        Assertions.assertEquals(2, matches.size());
+        Assertions.assertEquals(new AhoCorasick.Match(1, 1, 5), matches.get(0));
+        Assertions.assertEquals(new AhoCorasick.Match(3, 7, 9), matches.get(1));
+        Assertions.assertEquals(new AhoCorasick.Match(1, 1, 5), matcher.findFirst("xABCDE"));
+    }
+}
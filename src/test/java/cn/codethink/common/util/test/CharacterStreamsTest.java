@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util.test;
+
+import cn.codethink.common.util.CharacterStreams;
+import cn.codethink.common.util.Strings;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class CharacterStreamsTest {
+    
+    /**
+     * 和 CharacterStreams 中映射文件的块大小一致
+     */
+    private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+    
+    @Test
+    public void reader() throws IOException {
+        final String text = Strings.repeat(" ", 10000) + "key = value";
+        final Set<Character> blanks = Collections.singleton(' ');
+        
+        Assertions.assertEquals(10000, CharacterStreams.indexOfExcluded(new StringReader(text), blanks));
+        Assertions.assertEquals(10004, CharacterStreams.indexOfIncludedCharacter(new StringReader(text), Collections.singleton('=')));
+        Assertions.assertEquals(-1, CharacterStreams.indexOfIncludedCharacter(new StringReader(text), Collections.singleton('#')));
+        Assertions.assertEquals(10002, CharacterStreams.countIncludedCharacters(new StringReader(text), blanks));
+    }
+    
+    @Test
+    public void chunkBoundary(@TempDir Path directory) throws IOException {
+        // 'a' 填满第一块，最后一个字节是 "中" 的首字节，两个后续字节落在第二块
+        final byte[] bytes = new byte[CHUNK_SIZE + 4];
+        java.util.Arrays.fill(bytes, 0, CHUNK_SIZE - 1, (byte) 'a');
+        System.arraycopy("中xa".getBytes(StandardCharsets.UTF_8), 0, bytes, CHUNK_SIZE - 1, 5);
+        final Path path = directory.resolve("chunks.txt");
+        Files.write(path, bytes);
+        
+        final Set<Character> a = Collections.singleton('a');
+        try (FileChannel channel = FileChannel.open(path)) {
+            Assertions.assertEquals(CHUNK_SIZE - 1, CharacterStreams.indexOfIncludedCharacter(channel, Collections.singleton('中')));
+            Assertions.assertEquals(CHUNK_SIZE - 1, CharacterStreams.indexOfExcluded(channel, a, ForkJoinPool.commonPool()));
+            Assertions.assertEquals(CHUNK_SIZE + 3, CharacterStreams.lastIndexOfIncludedCharacter(channel, a));
+            Assertions.assertEquals(CHUNK_SIZE + 2, CharacterStreams.lastIndexOfExcluded(channel, a));
+            Assertions.assertEquals(CHUNK_SIZE, CharacterStreams.countIncludedCharacters(channel, a));
+            Assertions.assertEquals(0, CharacterStreams.countIncludedCharacters(channel, Collections.singleton('�')));
+            
+            final List<Long> offsets = new ArrayList<>();
+            CharacterStreams.forEachIncludedCharacter(channel, Collections.singleton('中'), offsets::add);
+            Assertions.assertEquals(Collections.singletonList((long) CHUNK_SIZE - 1), offsets);
+        }
+    }
+    
+    @Test
+    public void invalidBytes(@TempDir Path directory) throws IOException {
+        final byte[] bytes = {
+            // 过长编码的 U+0000 和 '/'
+            (byte) 0xE0, (byte) 0x80, (byte) 0x80, (byte) 0xC0, (byte) 0xAF,
+            // 编码后的代理字符 U+D800
+            (byte) 0xED, (byte) 0xA0, (byte) 0x80,
+            // 超过 U+10FFFF 的码点
+            (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80,
+            'A',
+            // U+1F600
+            (byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80
+        };
+        final Path path = directory.resolve("invalid.txt");
+        Files.write(path, bytes);
+        
+        try (FileChannel channel = FileChannel.open(path)) {
+            Assertions.assertEquals(12, CharacterStreams.countIncludedCharacters(channel, Collections.singleton('�')));
+            Assertions.assertEquals(-1, CharacterStreams.indexOfIncludedCharacter(channel, Collections.singleton('\0')));
+            Assertions.assertEquals(12, CharacterStreams.indexOfIncludedCharacter(channel, Collections.singleton('A')));
+            
+            final Set<Character> surrogates = new HashSet<>();
+            surrogates.add('\uD83D');
+            surrogates.add('\uDE00');
+            Assertions.assertEquals(13, CharacterStreams.lastIndexOfIncludedCharacter(channel, surrogates));
+            Assertions.assertEquals(-1, CharacterStreams.indexOfIncludedCharacter(channel, Collections.singleton('\uD83D')));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util.test;
+
+import cn.codethink.common.util.Arrays;
+import cn.codethink.common.util.ConcurrentJoiner;
+import cn.codethink.common.util.Escaper;
+import cn.codethink.common.util.Joiner;
+import cn.codethink.common.util.Utf8Joiner;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class JoinerTest {
+    
+    @Test
+    public void pool() {
+        final Joiner.Pool pool = Joiner.builder().prefix("[").suffix("]").buildPool(64);
+        
+        final Joiner joiner = pool.acquire();
+        Assertions.assertEquals("[a, b]", joiner.plus("a").plus("b").join());
+        pool.release(joiner);
+        Assertions.assertSame(joiner, pool.acquire());
+        Assertions.assertEquals("", joiner.join());
+        pool.release(joiner);
+        
+        final String nested = pool.join(outer -> outer.plus("x").plus(pool.join(inner -> inner.plus("y").plus("z"))));
+        Assertions.assertEquals("[x, [y, z]]", nested);
+        
+        Assertions.assertSame(Joiner.pool("|"), Joiner.pool("|"));
+        Assertions.assertEquals("1|2|3", Arrays.joinToString(new Integer[]{1, 2, 3}, "|"));
+        Assertions.assertEquals("c", Joiner.newInstance().plus("a").reset().plus("c").join());
+    }
+    
+    @Test
+    public void join() throws IOException {
+        final Joiner joiner = Joiner.builder().prefix("(").suffix(")").emptyString("none").build();
+        Assertions.assertEquals("none", joiner.join());
+        Assertions.assertEquals("none", joiner.joinTo(new StringWriter()).toString());
+        
+        joiner.plusAll(new Integer[]{1, 2});
+        Assertions.assertEquals("(1, 2)", joiner.join());
+        Assertions.assertEquals("(1, 2, 3)", joiner.plus("3").join());
+        Assertions.assertEquals("x(1, 2, 3)", joiner.joinTo(new StringBuilder("x")).toString());
+        Assertions.assertEquals("(1, 2, 3)", joiner.joinTo(new StringWriter()).toString());
+    }
+    
+    @Test
+    public void append() {
+        final Joiner joiner = Joiner.builder().prefix("[").suffix("]").build();
+        joiner.plus(1).plus(2L).plus(0.5).plusAll(new int[]{7, 8}).append("x", (element, stringBuilder) -> stringBuilder.append(element).append('!'));
+        Assertions.assertEquals("[1, 2, 0.5, 7, 8, x!]", joiner.join());
+        
+        final Joiner escaped = Joiner.builder().delimiter(",").escaper(Escaper.CSV).build();
+        escaped.appendAll(new String[]{"a,b", "c"}, (element, stringBuilder) -> stringBuilder.append(element)).plus(3);
+        Assertions.assertEquals("\"a,b\",c,3", escaped.join());
+    }
+    
+    @Test
+    public void collector() {
+        final Joiner.Builder builder = Joiner.builder().prefix("[").suffix("]").delimiter(",").emptyString("empty");
+        final String expected = IntStream.range(0, 10000).mapToObj(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+        Assertions.assertEquals(expected, IntStream.range(0, 10000).boxed().parallel().collect(builder.buildCollector(String::valueOf)));
+        Assertions.assertEquals(expected, IntStream.range(0, 10000).mapToObj(String::valueOf).collect(builder.buildCollector()));
+        Assertions.assertEquals("empty", IntStream.range(0, 0).mapToObj(String::valueOf).parallel().collect(builder.buildCollector()));
+    }
+    
+    @Test
+    public void concurrent() throws InterruptedException {
+        final ConcurrentJoiner ordered = Joiner.builder().prefix("[").suffix("]").delimiter(",").buildConcurrent(true);
+        final ConcurrentJoiner unordered = Joiner.builder().delimiter(",").buildConcurrent(false);
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    unordered.append(j, (element, stringBuilder) -> stringBuilder.append(element));
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < 100; i++) {
+            ordered.plus(String.valueOf(i));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        Assertions.assertEquals(IntStream.range(0, 100).mapToObj(String::valueOf).collect(Collectors.joining(",", "[", "]")), ordered.join());
+        Assertions.assertEquals(4000, unordered.size());
+        Assertions.assertEquals(4000, unordered.join().split(",").length);
+        
+        unordered.clear();
+        Assertions.assertEquals("", unordered.join());
+    }
+    
+    @Test
+    public void concurrentOrdered() throws InterruptedException {
+        final ConcurrentJoiner joiner = Joiner.builder().delimiter(",").buildConcurrent(true);
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final int producer = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    joiner.plus(producer + ":" + j);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        final int[] next = new int[threads.length];
+        for (String element : joiner.join().split(",")) {
+            final int separator = element.indexOf(':');
+            final int producer = Integer.parseInt(element.substring(0, separator));
+            Assertions.assertEquals(next[producer]++, Integer.parseInt(element.substring(separator + 1)));
+        }
+        for (int count : next) {
+            Assertions.assertEquals(1000, count);
+        }
+    }
+    
+    @Test
+    public void concurrentFailure() {
+        for (boolean ordered : new boolean[]{true, false}) {
+            final ConcurrentJoiner joiner = Joiner.builder().delimiter(",").buildConcurrent(ordered);
+            joiner.plus("a");
+            Assertions.assertThrows(IllegalStateException.class, () -> joiner.append("b", (element, stringBuilder) -> {
+                stringBuilder.append(element);
+                throw new IllegalStateException();
+            }));
+            joiner.plus("c");
+            
+            Assertions.assertEquals(2, joiner.size());
+            Assertions.assertEquals("a,c", joiner.join());
+        }
+    }
+    
+    @Test
+    public void joinToString() {
+        Assertions.assertEquals("-2147483648, 0, 2147483647", Arrays.joinToString(new int[]{Integer.MIN_VALUE, 0, Integer.MAX_VALUE}));
+        Assertions.assertEquals("-9223372036854775808|-1|9223372036854775807", Arrays.joinToString(new long[]{Long.MIN_VALUE, -1, Long.MAX_VALUE}, "|"));
+        Assertions.assertEquals("-128、127", Arrays.joinToString(new byte[]{-128, 127}, "、"));
+        Assertions.assertEquals("true, false", Arrays.joinToString(new boolean[]{true, false}));
+        Assertions.assertEquals("", Arrays.joinToString(new short[0]));
+        Assertions.assertEquals("b, null", cn.codethink.common.util.Collections.joinToString(java.util.Arrays.asList("a", "b", null), 1, 3, ", "));
+    }
+    
+    @Test
+    public void utf8() throws IOException {
+        final Utf8Joiner joiner = Joiner.builder().prefix("«").suffix("»").delimiter("、").buildUtf8();
+        joiner.plus("ascii").plus("中文").plus("😀").plus("\uD800");
+        
+        final byte[] expected = "«ascii、中文、😀、?»".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertArrayEquals(expected, joiner.join());
+        Assertions.assertEquals(expected.length, joiner.getByteLength());
+        
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Assertions.assertEquals(expected.length, joiner.joinTo(Channels.newChannel(outputStream)));
+        Assertions.assertArrayEquals(expected, outputStream.toByteArray());
+        
+        Assertions.assertArrayEquals(new byte[0], joiner.reset().join());
+    }
+}
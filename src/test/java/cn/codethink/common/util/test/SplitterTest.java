@@ -0,0 +1,56 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util.test;
+
+import cn.codethink.common.util.Splitter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class SplitterTest {
+    
+    @Test
+    public void split() {
+        Assertions.assertEquals(Arrays.asList("a", "b", "", "c", ""), Splitter.on(",").splitToList("a,b,,c,"));
+        
+        final Splitter splitter = Splitter.builder()
+            .delimiters(",;")
+            .trimWhitespaces()
+            .omitEmptyStrings(true)
+            .build();
+        Assertions.assertEquals(Arrays.asList("a", "b", "c"), splitter.splitToList(" a , b ;; ,c　,  "));
+        
+        final Splitter limited = Splitter.builder().limit(2).trimWhitespaces().build();
+        Assertions.assertEquals(Arrays.asList("a", "b , c"), limited.splitToList(" a , b , c "));
+    }
+    
+    @Test
+    public void splitQuoted() {
+        final Splitter splitter = Splitter.builder().quote('"').trimWhitespaces().build();
+        Assertions.assertEquals(Arrays.asList("x", "a,b", "say \"hi\""), splitter.splitToList("x, \"a,b\" , \"say \"\"hi\"\"\""));
+        
+        final StringBuilder stringBuilder = new StringBuilder();
+        final int count = splitter.split("x, \"a,b\"", (string, beginIndex, endIndex) ->
+            stringBuilder.append('[').append(string, beginIndex, endIndex).append(']'));
+        Assertions.assertEquals(2, count);
+        Assertions.assertEquals("[x][a,b]", stringBuilder.toString());
+        
+        Assertions.assertThrows(IllegalArgumentException.class, () -> splitter.splitToList("\"a\"b,c"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Splitter.builder().quote('"').build().splitToList("\"a\" ,c"));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util.test;
+
+import cn.codethink.common.util.CharacterSet;
+import cn.codethink.common.util.StringArena;
+import cn.codethink.common.util.Strings;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StringArenaTest {
+    
+    @Test
+    public void handles() {
+        final StringArena arena = StringArena.builder().pageSize(16).deduplicate(true).build();
+        final long apple = arena.add("apple");
+        final long banana = arena.add("banana");
+        final long chinese = arena.add("苹果, 香蕉");
+        final long longer = arena.add("a string longer than one page");
+        
+        Assertions.assertEquals(apple, arena.add("apple"));
+        Assertions.assertEquals(4, arena.size());
+        Assertions.assertEquals("苹果, 香蕉", arena.toString(chinese));
+        Assertions.assertEquals("a string longer than one page", arena.toString(longer));
+        Assertions.assertEquals("apple".hashCode(), arena.hashCode(apple));
+        Assertions.assertTrue(arena.compare(apple, banana) < 0);
+        Assertions.assertEquals(banana, arena.find("banana"));
+        Assertions.assertEquals(StringArena.NO_HANDLE, arena.find("cherry"));
+        
+        Assertions.assertEquals(2, arena.indexOfIncludedCharacter(chinese, CharacterSet.of(", "), 0, -1));
+        Assertions.assertEquals(Strings.maxLongestCommonSubsequenceLength("apple", "banana"),
+            arena.longestCommonSubsequenceLength(apple, banana));
+        Assertions.assertTrue(Strings.containsIgnoreCase(arena.view(longer), "ONE PAGE"));
+    }
+    
+    @Test
+    public void invalidHandles() {
+        final StringArena arena = StringArena.newInstance();
+        final long apple = arena.add("apple");
+        Assertions.assertEquals(5, arena.length(apple));
+        
+        // 'e' 被当作头部解析时长度越过了已写入的范围，之后的偏移和不存在的页都未写入
+        Assertions.assertThrows(IllegalArgumentException.class, () -> arena.length(apple + 5));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> arena.length(apple + 6));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> arena.toString(1L << 32));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> arena.length(StringArena.NO_HANDLE));
+        
+        // 指向字符串内部且解析结果落在已写入范围内的句柄无法识别，只保证不越界
+        final long key = arena.add("key\u0004abcdef");
+        Assertions.assertEquals(2, arena.length(key + 4));
+        Assertions.assertEquals("ab", arena.toString(key + 4));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util.test;
+
+import cn.codethink.common.util.ChunkedStringBuilder;
+import cn.codethink.common.util.ConcurrentStringBuffer;
+import cn.codethink.common.util.StringBuilderPool;
+import cn.codethink.common.util.StringBuilders;
+import cn.codethink.common.util.Strings;
+import cn.codethink.common.util.Template;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+public class StringBuildersTest {
+    
+    @Test
+    public void pool() {
+        final StringBuilderPool pool = StringBuilderPool.builder().initialCapacity(16).maxRetainedCapacity(64).build();
+        
+        final StringBuilder first = pool.acquire().append("hello");
+        Assertions.assertEquals("hello", pool.toStringAndRelease(first));
+        Assertions.assertSame(first, pool.acquire());
+        
+        final StringBuilder nested = pool.acquire();
+        Assertions.assertNotSame(first, nested);
+        pool.release(nested);
+        
+        first.append(Strings.repeat("x", 100));
+        pool.release(first);
+        Assertions.assertEquals(1, pool.getHitCount());
+        Assertions.assertEquals(2, pool.getMissCount());
+        Assertions.assertEquals(1, pool.getOversizeDropCount());
+        
+        final StringBuilder trimmed = new StringBuilder(Strings.repeat("y", 100));
+        Assertions.assertEquals(100, StringBuilders.toStringAndClear(trimmed, 16).length());
+        Assertions.assertTrue(trimmed.capacity() <= 16);
+    }
+    
+    @Test
+    public void nestedTemplate() {
+        final Template inner = Strings.template("<{value}>");
+        final Template outer = Strings.template("[{first}, {second}]");
+        final Object lazy = new Object() {
+            @Override
+            public String toString() {
+                return inner.render("inner");
+            }
+        };
+        Assertions.assertEquals("[<inner>, x]", outer.render(lazy, "x"));
+    }
+    
+    @Test
+    public void concurrentStringBuffer() throws InterruptedException {
+        final ConcurrentStringBuffer buffer = new ConcurrentStringBuffer();
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            final String letter = String.valueOf((char) ('a' + i));
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    buffer.append("[" + Strings.repeat(letter, j % 300) + "]");
+                }
+            });
+            threads[i].start();
+        }
+        final StringBuilder drained = new StringBuilder();
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                drained.append(buffer.toStringAndClear());
+            }
+        }
+        drained.append(buffer.toStringAndClear());
+        
+        int expected = 0;
+        for (int j = 0; j < 1000; j++) {
+            expected += j % 300;
+        }
+        Assertions.assertEquals(8 * (expected + 2000), drained.length());
+        
+        // 每次追加的内容必须连续：每一段都是方括号包围的同一个字母
+        int blocks = 0;
+        for (int i = 0; i < drained.length(); i++) {
+            Assertions.assertEquals('[', drained.charAt(i));
+            final int close = drained.indexOf("]", i);
+            for (int j = i + 2; j < close; j++) {
+                Assertions.assertEquals(drained.charAt(i + 1), drained.charAt(j));
+            }
+            blocks++;
+            i = close;
+        }
+        Assertions.assertEquals(8000, blocks);
+        Assertions.assertTrue(buffer.isEmpty());
+        Assertions.assertEquals("", buffer.toStringAndClear());
+    }
+    
+    @Test
+    public void chunkedStringBuilder() throws IOException {
+        final ChunkedStringBuilder builder = ChunkedStringBuilder.builder().chunkSize(16).build();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("item").append(String.valueOf(i)).append(',');
+            expected.append("item").append(i).append(',');
+        }
+        
+        Assertions.assertEquals(expected.length(), builder.length());
+        Assertions.assertEquals(expected.toString(), builder.toString());
+        Assertions.assertEquals(expected.indexOf("item42"), builder.indexOf("item42"));
+        Assertions.assertEquals(expected.indexOf("ITEM42".toLowerCase()), Strings.indexOfIgnoreCase(builder, "ITEM42"));
+        Assertions.assertEquals(expected.substring(10, 50), builder.subSequence(10, 50).toString());
+        Assertions.assertEquals(expected.toString(), builder.writeTo(new StringWriter()).toString());
+        
+        builder.setLength(4);
+        Assertions.assertEquals("item", builder.toString());
+        builder.clear();
+        Assertions.assertTrue(builder.isEmpty());
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util.test;
+
+import cn.codethink.common.util.CharSlice;
+import cn.codethink.common.util.EditScript;
+import cn.codethink.common.util.Escaper;
+import cn.codethink.common.util.Joiner;
+import cn.codethink.common.util.StringInterner;
+import cn.codethink.common.util.Strings;
+import cn.codethink.common.util.Template;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class StringsTest {
+    
+    @Test
+    public void levenshteinDistance() {
+        Assertions.assertEquals(3, Strings.levenshteinDistance("kitten", "sitting"));
+        Assertions.assertEquals(0, Strings.levenshteinDistance("", ""));
+        Assertions.assertEquals(2, Strings.levenshteinDistance("一千零一", "一千一百"));
+        Assertions.assertEquals(-1, Strings.levenshteinDistance("kitten", "sitting", 2));
+        
+        final String longString = Strings.repeat("abcdefghij", 20);
+        Assertions.assertEquals(2, Strings.levenshteinDistance(longString, "x" + longString.substring(1) + "y"));
+    }
+    
+    @Test
+    public void optimalStringAlignmentDistance() {
+        Assertions.assertEquals(1, Strings.optimalStringAlignmentDistance("ab", "ba"));
+        Assertions.assertEquals(3, Strings.optimalStringAlignmentDistance("ca", "abc"));
+        Assertions.assertEquals(-1, Strings.optimalStringAlignmentDistance("ca", "abc", 2));
+    }
+    
+    @Test
+    public void jaroWinklerSimilarity() {
+        Assertions.assertEquals(0.961, Strings.jaroWinklerSimilarity("MARTHA", "MARHTA"), 0.001);
+        Assertions.assertEquals(0.840, Strings.jaroWinklerSimilarity("DWAYNE", "DUANE"), 0.001);
+        Assertions.assertEquals(0, Strings.jaroWinklerSimilarity("DIXON", "DICKSONX", 0.9));
+    }
+    
+    @Test
+    public void diff() {
+        final EditScript editScript = Strings.diff("abcabba", "cbabac");
+        Assertions.assertEquals(4, editScript.getKeepLength());
+        Assertions.assertEquals(5, editScript.getDistance());
+        
+        final EditScript lines = Strings.diffLines("a\nb\nc\n", "a\nc\nd\n");
+        Assertions.assertEquals("=1 -1 =1 +1", lines.toString());
+        Assertions.assertEquals(EditScript.Operation.DELETE, lines.getOperation(1));
+        Assertions.assertEquals(1, lines.getSourceIndex(1));
+    }
+    
+    @Test
+    public void indexOfExcluded() {
+        final Set<Character> blanks = new HashSet<>();
+        blanks.add(' ');
+        blanks.add('\t');
+        
+        Assertions.assertEquals(2, Strings.indexOfExcluded(" \tkey ", blanks, 0, -1));
+        Assertions.assertEquals(6, Strings.indexOfExcluded("key \t value", blanks, 3, -1));
+        Assertions.assertEquals(-1, Strings.indexOfExcluded(" \t ", blanks, 0, -1));
+    }
+    
+    @Test
+    public void parallelLongestCommonSubsequenceLength() {
+        final String str1 = Strings.repeat("ACCGGTCGAGTGCGCGGAAGCCGGCCGAA", 7);
+        final String str2 = Strings.repeat("GTCGTTCGGAATGCCGTTGCTCTGTAAA", 9);
+        final int expected = Strings.maxLongestCommonSubsequenceLength(str1, str2);
+        
+        Assertions.assertEquals(expected, Strings.parallelLongestCommonSubsequenceLength(str1, str2, ForkJoinPool.commonPool(), 16));
+        Assertions.assertEquals(expected, Strings.parallelLongestCommonSubsequenceLength(str1, str2));
+    }
+    
+    @Test
+    public void charSlice() {
+        final char[] array = "  key = value  ".toCharArray();
+        final CharSlice slice = CharSlice.of(array, 1, array.length - 1);
+        
+        Assertions.assertEquals(5, Strings.indexOfIncludedCharacter(slice, "="));
+        Assertions.assertEquals(1, Strings.indexOfExcluded(slice, " "));
+        Assertions.assertEquals(11, Strings.lastIndexOfExcluded(slice, " "));
+        Assertions.assertTrue(slice.subSequence(1, 4).contentEquals("key"));
+        Assertions.assertEquals("key".hashCode(), slice.subSequence(1, 4).hashCode());
+        Assertions.assertEquals(CharSlice.of("value"), CharSlice.of("  key = value  ", 8, 13));
+    }
+    
+    @Test
+    public void intern() {
+        final StringInterner interner = StringInterner.builder().capacity(16).maxLength(8).build();
+        final char[] array = "tag,tag".toCharArray();
+        
+        final String tag = interner.intern(array, 0, 3);
+        Assertions.assertSame(tag, interner.intern(array, 4, 7));
+        Assertions.assertSame(tag, interner.intern(CharSlice.of("[tag]", 1, 4)));
+        Assertions.assertEquals(1, interner.getMissCount());
+        Assertions.assertEquals(2, interner.getHitCount());
+        Assertions.assertEquals("very long string", interner.intern("very long string"));
+    }
+    
+    @Test
+    public void repeat() throws IOException {
+        Assertions.assertEquals("abcabcabc", Strings.repeat("abc", 3));
+        Assertions.assertEquals("", Strings.repeat("abc", 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Strings.repeat("abc", Integer.MAX_VALUE));
+        
+        final StringWriter writer = new StringWriter();
+        Strings.repeat("中文", 5000, writer);
+        Assertions.assertEquals(Strings.repeat("中文", 5000), writer.toString());
+    }
+    
+    @Test
+    public void ignoreCase() {
+        Assertions.assertEquals(6, Strings.indexOfIgnoreCase("Hello，ＷＯＲＬＤ｡", "world。"));
+        Assertions.assertEquals(8, Strings.lastIndexOfIgnoreCase("abc ABC ａｂｃ", "Abc"));
+        Assertions.assertEquals(4, Strings.lastIndexOfIgnoreCase("abc ABC ａｂｃ", "Abc", 0, 10, -1));
+        Assertions.assertTrue(Strings.containsIgnoreCase(CharSlice.of("数量：１０ＫＧ"), "10kg"));
+        Assertions.assertTrue(Strings.equalsIgnoreCase("「ＯＫ」", "｢ok｣"));
+        Assertions.assertFalse(Strings.containsIgnoreCase("abc", "abd"));
+    }
+    
+    @Test
+    public void toHalfWidth() {
+        final String clean = "价格: 100元, 已售 5 件。";
+        Assertions.assertSame(clean, Strings.toHalfWidth(clean));
+        Assertions.assertEquals("价格:100元,已售 5 件。", Strings.toHalfWidth("价格：１００元，已售　５　件｡"));
+        
+        final char[] array = "ＡＢＣ-123".toCharArray();
+        final char[] buffer = new char[array.length];
+        Assertions.assertEquals(3, Strings.toHalfWidth(CharSlice.of(array), 0, array.length, buffer, 0));
+        Assertions.assertArrayEquals("ABC-123".toCharArray(), buffer);
+        Assertions.assertSame(buffer, Strings.toHalfWidth(buffer));
+        
+        final char[] overlapping = "ＡＢＣ--".toCharArray();
+        Assertions.assertEquals(3, Strings.toHalfWidth(overlapping, 0, 3, overlapping, 2));
+        Assertions.assertArrayEquals("ＡＢABC".toCharArray(), overlapping);
+        Assertions.assertEquals(1, Strings.toHalfWidth(overlapping, 1, 5, overlapping, 0));
+        Assertions.assertArrayEquals("BABCC".toCharArray(), overlapping);
+    }
+    
+    @Test
+    public void escape() {
+        final String plain = "普通文本";
+        Assertions.assertSame(plain, Strings.escapeJson(plain));
+        Assertions.assertEquals("say \\\"hi\\\"\\n", Strings.escapeJson("say \"hi\"\n"));
+        Assertions.assertEquals("say \"hi\"\n", Strings.unescapeJson("say \\\"hi\\\"\\n"));
+        Assertions.assertEquals("&lt;a href=&quot;x&quot;&gt;", Strings.escapeHtml("<a href=\"x\">"));
+        Assertions.assertEquals("<a> & 😀", Strings.unescapeHtml("&lt;a&gt; &amp; &#128512;"));
+        Assertions.assertEquals("\"a,\"\"b\"\"\"", Strings.escapeCsv("a,\"b\""));
+        Assertions.assertEquals("a,\"b\"", Strings.unescapeCsv("\"a,\"\"b\"\"\""));
+        
+        Assertions.assertEquals("A", Strings.unescapeJson("\\u0041"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Strings.unescapeJson("\\u\uFF10\uFF10\uFF14\uFF11"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Strings.unescapeJson("\\u\u0660\u0660\u0664\u0661"));
+        Assertions.assertEquals("&#\uFF16\uFF15;", Strings.unescapeHtml("&#\uFF16\uFF15;"));
+        Assertions.assertEquals("&#1a;", Strings.unescapeHtml("&#1a;"));
+        Assertions.assertEquals("\uFFFD|\uFFFD|\uFFFD", Strings.unescapeHtml("&#xD800;|&#0;|&#57343;"));
+        
+        final Joiner joiner = Joiner.builder().delimiter(",").escaper(Escaper.CSV).build();
+        Assertions.assertEquals("\"x,y\",z", joiner.plus("x,y").plus("z").join());
+    }
+    
+    @Test
+    public void template() {
+        final Template template = Strings.template("{name} 有 {count} 件商品，{{不是占位符}}，{name}！");
+        Assertions.assertEquals(2, template.getArgumentCount());
+        Assertions.assertEquals("小明 有 3 件商品，{不是占位符}，小明！", template.render("小明", 3));
+        
+        final Map<String, Object> arguments = new HashMap<>();
+        arguments.put("name", "小红");
+        arguments.put("count", 5L);
+        Assertions.assertEquals("小红 有 5 件商品，{不是占位符}，小红！", template.render(arguments));
+        
+        final Template.Renderer renderer = template.renderer().set("name", "小刚").set("count", 7);
+        Assertions.assertEquals("小刚 有 7 件商品，{不是占位符}，小刚！", renderer.render());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Strings.template("{unclosed"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> template.render("only one"));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 CodeThink Technologies and contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.codethink.common.util.test;
+
+import cn.codethink.common.util.FmIndex;
+import cn.codethink.common.util.SuffixArray;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class SuffixArrayTest {
+    
+    @Test
+    public void search() {
+        final SuffixArray suffixArray = SuffixArray.of("mississippi");
+        Assertions.assertEquals(4, suffixArray.getSuffix(2));
+        Assertions.assertEquals(4, suffixArray.getLcp(3));
+        Assertions.assertEquals(2, suffixArray.count("issi"));
+        Assertions.assertArrayEquals(new int[] {1, 4}, suffixArray.locate("issi"));
+        Assertions.assertFalse(suffixArray.contains("spi"));
+        
+        final FmIndex fmIndex = suffixArray.toFmIndex(4);
+        Assertions.assertEquals(4, fmIndex.count("s"));
+        Assertions.assertArrayEquals(new int[] {2, 3, 5, 6}, fmIndex.locate("s"));
+        Assertions.assertEquals(0, fmIndex.count("x"));
+    }
+    
+    @Test
+    public void longestCommonSubstring() {
+        Assertions.assertEquals("人民共和国", SuffixArray.longestCommonSubstring("中华人民共和国", "人民共和国成立"));
+        Assertions.assertEquals("", SuffixArray.longestCommonSubstring("abc", "xyz"));
+    }
+    
+    @Test
+    public void persistence(@TempDir Path directory) throws IOException {
+        final Path path = directory.resolve("index.sa");
+        SuffixArray.of("banana").save(path);
+        
+        final SuffixArray loaded = SuffixArray.load(path);
+        Assertions.assertEquals("banana", loaded.getText().toString());
+        Assertions.assertArrayEquals(new int[] {1, 3}, loaded.locate("ana"));
+    }
+}